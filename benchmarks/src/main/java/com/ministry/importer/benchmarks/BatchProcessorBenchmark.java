@@ -0,0 +1,46 @@
+package com.ministry.importer.benchmarks;
+
+import com.ministry.importer.utility.BatchProcessor;
+import com.ministry.importer.utility.ConcurrentBatchProcessor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code BatchProcessor.add} under contention; vary the producer count with {@code -t}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class BatchProcessorBenchmark {
+
+    @Param({"synchronized", "concurrent"})
+    private String implementation;
+
+    @Param({"1000"})
+    private int batchSize;
+
+    private BatchProcessor<Object> batchProcessor;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        batchProcessor = "concurrent".equals(implementation)
+                ? new ConcurrentBatchProcessor<>(batchSize, blackhole::consume)
+                : new BatchProcessor<>(batchSize, blackhole::consume);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batchProcessor.flush();
+    }
+
+    @Benchmark
+    public void add() {
+        batchProcessor.add(Boolean.TRUE);
+    }
+}
@@ -0,0 +1,73 @@
+package com.ministry.importer.benchmarks;
+
+import com.ministry.importer.enums.Status;
+import com.ministry.importer.model.Person;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkFixtures {
+    private static final String[] FIRST_NAMES = {"Jean", "Marie", "Paul", "Claire", "Ahmed", "Fatou", "Luc", "Awa"};
+    private static final String[] LAST_NAMES = {"Dupont", "Martin", "Diallo", "Bernard", "Kone", "Petit"};
+    private static final Status[] STATUSES = Status.values();
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Writes a workbook in the ministry layout. SXSSF keeps only a window of rows in memory,
+     * so even the million-row fixture is generated with a small heap.
+     */
+    static File createWorkbook(int rows) throws IOException {
+        File file = File.createTempFile("people-" + rows + "-", ".xlsx");
+        file.deleteOnExit();
+
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(1000);
+             OutputStream out = new FileOutputStream(file)) {
+            workbook.setCompressTempFiles(true);
+            Sheet sheet = workbook.createSheet("Employees");
+
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("matricule");
+            header.createCell(1).setCellValue("nom");
+            header.createCell(2).setCellValue("prenom");
+            header.createCell(3).setCellValue("datedenaissance");
+            header.createCell(4).setCellValue("status");
+
+            for (int i = 1; i <= rows; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("EMP" + i);
+                row.createCell(1).setCellValue(FIRST_NAMES[i % FIRST_NAMES.length]);
+                row.createCell(2).setCellValue(LAST_NAMES[i % LAST_NAMES.length]);
+                row.createCell(3).setCellValue(String.format("%02d/%02d/%04d", i % 28 + 1, i % 12 + 1, 1950 + i % 50));
+                row.createCell(4).setCellValue(STATUSES[i % STATUSES.length].getLabel());
+            }
+
+            workbook.write(out);
+            workbook.dispose();
+        }
+        return file;
+    }
+
+    static List<Person> people(int count, String prefix) {
+        List<Person> people = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Person person = new Person();
+            person.setMatricule(prefix + i);
+            person.setFirstName(FIRST_NAMES[i % FIRST_NAMES.length]);
+            person.setLastName(LAST_NAMES[i % LAST_NAMES.length]);
+            person.setBirthDate(LocalDate.of(1950 + i % 50, i % 12 + 1, i % 28 + 1));
+            person.setStatus(STATUSES[i % STATUSES.length]);
+            people.add(person);
+        }
+        return people;
+    }
+}
@@ -0,0 +1,38 @@
+package com.ministry.importer.benchmarks;
+
+import com.ministry.importer.utility.DateParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateParserBenchmark {
+
+    // One value per supported format, in the order DateParser tries them
+    @Param({"12/25/2023", "25/12/2023", "2023-12-25", "25-12-2023", "12-25-2023", "2023/12/25"})
+    private String value;
+
+    private DateParser column;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        column = new DateParser();
+        column.parse(value);
+    }
+
+    @Benchmark
+    public LocalDate parseDate() {
+        return DateParser.parseDate(value);
+    }
+
+    @Benchmark
+    public LocalDate parseColumn() {
+        return column.parse(value);
+    }
+}
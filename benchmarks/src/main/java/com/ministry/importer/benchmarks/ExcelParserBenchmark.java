@@ -0,0 +1,51 @@
+package com.ministry.importer.benchmarks;
+
+import com.ministry.importer.enums.ParseMode;
+import com.ministry.importer.model.Person;
+import com.ministry.importer.parser.ExcelStreamParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full parse of generated workbooks. The WORKBOOK mode needs several GB of heap at one million
+ * rows, so only EVENT runs by default; pass {@code -p mode=WORKBOOK} to compare.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExcelParserBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"EVENT"})
+    private ParseMode mode;
+
+    private File workbook;
+    private ExcelStreamParser parser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workbook = BenchmarkFixtures.createWorkbook(rows);
+        parser = new ExcelStreamParser(mode);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        workbook.delete();
+    }
+
+    @Benchmark
+    public void parseAsStream(Blackhole blackhole) {
+        try (Stream<Person> people = parser.parseAsStream(workbook.getAbsolutePath())) {
+            people.forEach(blackhole::consume);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ministry.importer.benchmarks;
+
+import com.ministry.importer.model.Person;
+import com.ministry.importer.repository.PersonRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code PersonRepository.saveAll} against an in-memory H2 database. Absolute numbers say
+ * nothing about PostgreSQL; use it to compare changes to the JDBC path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonRepositoryBenchmark {
+    private static final String URL = "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;MODE=PostgreSQL";
+
+    @Param({"1000", "10000"})
+    private int batchSize;
+
+    private PersonRepository repository;
+    private List<Person> people;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Properties config = new Properties();
+        config.setProperty("db.url", URL);
+        config.setProperty("db.user", "sa");
+        config.setProperty("db.password", "");
+        repository = PersonRepository.fromConfig(config);
+        people = BenchmarkFixtures.people(batchSize, "BENCH");
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE TABLE people");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repository.close();
+    }
+
+    @Benchmark
+    public void saveAll() {
+        repository.saveAll(people);
+    }
+}
@@ -0,0 +1,23 @@
+package com.ministry.importer.benchmarks;
+
+import com.ministry.importer.enums.Status;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatusBenchmark {
+
+    @Param({"Actif", "EN ATTENTE", "suspendu"})
+    private String label;
+
+    @Benchmark
+    public Status fromLabel() {
+        return Status.fromLabel(label);
+    }
+}
@@ -2,28 +2,148 @@ package com.ministry.importer;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
+import com.ministry.importer.metrics.MetricsReporter;
+import com.ministry.importer.model.DiffResult;
+import com.ministry.importer.model.ImportResult;
+import com.ministry.importer.model.ValidationReport;
 import com.ministry.importer.service.ParallelImportService;
+import com.ministry.importer.utility.ConfigLoader;
+import com.ministry.importer.utility.FileResolver;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
 
 public class Application {
     private static final Logger logger = LogManager.getLogger(Application.class);
+    private static final String USAGE = "Usage: java -jar importer.jar [--all-sheets] [--validate|--diff] <file|directory|glob>...";
 
     public static void main(String[] args) {
         logger.info("Démarrage de l'application");
 
-        if (args.length == 0) {
-            logger.error("Usage: java -jar importer.jar <file_path>");
+        boolean allSheets = false;
+        boolean validateOnly = false;
+        boolean diff = false;
+        List<String> inputs = new ArrayList<>();
+        for (String arg : args) {
+            if ("--all-sheets".equals(arg)) {
+                allSheets = true;
+            } else if ("--validate".equals(arg) || "--dry-run".equals(arg)) {
+                validateOnly = true;
+            } else if ("--diff".equals(arg)) {
+                diff = true;
+            } else {
+                inputs.add(arg);
+            }
+        }
+
+        if (inputs.isEmpty()) {
+            logger.error(USAGE);
             System.exit(1);
         }
 
-        String filePath = args[0];
-        try (ParallelImportService importService = new ParallelImportService()) {
+        List<String> filePaths = FileResolver.resolve(inputs);
+        if (filePaths.isEmpty()) {
+            logger.error("Aucun fichier à importer pour {}", inputs);
+            System.exit(1);
+        }
 
-            long startTime = System.currentTimeMillis();
-            int importedCount = importService.importFromFile(filePath);
-            long duration = System.currentTimeMillis() - startTime;
+        Properties config = ConfigLoader.load();
+        if (validateOnly) {
+            validate(config, filePaths, allSheets);
+            return;
+        }
+        if (diff) {
+            diff(config, filePaths, allSheets);
+            return;
+        }
+        String metricsFile = config.getProperty("import.metrics.file", "").trim();
+
+        boolean complete;
+        try (ParallelImportService importService = ParallelImportService.fromConfig(config)) {
+            MetricsReporter reporter = new MetricsReporter(importService.getMetrics(),
+                    ConfigLoader.getInt(config, "import.metrics.interval", 10),
+                    metricsFile.isEmpty() ? null : Paths.get(metricsFile));
+            try {
+                ImportResult result = importService.importFiles(filePaths, allSheets);
 
-            logger.info("Successfully imported {} people in {} ms", importedCount, duration);
+                logger.info("Batches: {} written, {} failed, avg {} ms, max {} ms",
+                        result.getBatchCount() - result.getBatchesFailed(), result.getBatchesFailed(),
+                        String.format("%.1f", result.getAverageBatchMillis()),
+                        String.format("%.1f", result.getMaxBatchMillis()));
+                if (result.getRowsSkipped() > 0) {
+                    logger.info("{} ligne(s) déjà importée(s) lors d'une exécution précédente", result.getRowsSkipped());
+                }
+                if (result.getRowsDuplicated() > 0) {
+                    logger.warn("{} ligne(s) écartée(s) car leur matricule est en double", result.getRowsDuplicated());
+                }
+                if (result.getRowsRejected() > 0) {
+                    logger.warn("{} ligne(s) rejetée(s)", result.getRowsRejected());
+                }
+                logger.info("Metrics: {}", importService.getMetrics().toLogLine());
+                complete = result.isComplete();
+                if (complete) {
+                    logger.info("Successfully imported {} people in {} ms",
+                            result.getRowsWritten(), result.getDurationMillis());
+                } else {
+                    logger.error("Imported only {} of {} people in {} ms",
+                            result.getRowsWritten(), result.getRowsParsed(), result.getDurationMillis());
+                }
+            } finally {
+                reporter.close();
+            }
+        }
 
+        if (!complete) {
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Reads and checks the files without writing to the database; exits with 2 when an
+     * import would reject rows or meet duplicated matricules.
+     */
+    private static void validate(Properties config, List<String> filePaths, boolean allSheets) {
+        ValidationReport report;
+        try (ParallelImportService importService = ParallelImportService.forValidation(config)) {
+            report = importService.validateFiles(filePaths, allSheets);
+        }
+
+        logger.info("Validation de {} ligne(s) de {} source(s) en {} ms: {} valide(s), {} rejetée(s)",
+                report.getRowsRead(), report.getSourceCount(), report.getDurationMillis(),
+                report.getRowsValid(), report.getRowsRejected());
+        report.getRejectReasons().forEach((reason, count) -> logger.warn("  {}: {} ligne(s)", reason, count));
+        logger.info("Formats de date de naissance: {}", report.getDateFormats());
+        logger.info("{} matricule(s) distinct(s)", report.getDistinctMatricules());
+        if (report.getDuplicateRows() > 0) {
+            logger.warn("{} matricule(s) en double sur {} ligne(s) en trop, par exemple {}",
+                    report.getDuplicatedMatricules(), report.getDuplicateRows(), report.getDuplicateSample());
+        }
+        if (!report.isClean()) {
+            System.exit(2);
+        }
+        logger.info("Aucune anomalie détectée");
+    }
+
+    /**
+     * Writes only the differences between the files and the people table, including the
+     * deletion of the people the files no longer list.
+     */
+    private static void diff(Properties config, List<String> filePaths, boolean allSheets) {
+        DiffResult result;
+        try (ParallelImportService importService = ParallelImportService.fromConfig(config)) {
+            result = importService.diffFiles(filePaths, allSheets, config.getProperty("import.changes.file"));
+        }
+
+        logger.info("{} ligne(s) comparée(s) en {} ms: {} ajoutée(s), {} modifiée(s), {} supprimée(s), {} inchangée(s)",
+                result.getRowsRead(), result.getDurationMillis(), result.getInserted(), result.getUpdated(),
+                result.getDeleted(), result.getUnchanged());
+        if (result.getRowsDuplicated() > 0) {
+            logger.warn("{} ligne(s) écartée(s) car leur matricule est en double", result.getRowsDuplicated());
+        }
+        if (result.getRowsRejected() > 0) {
+            logger.warn("{} ligne(s) rejetée(s)", result.getRowsRejected());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package com.ministry.importer.enums;
+
+public enum DuplicatePolicy {
+    /** Every row is written, duplicated matricules included. */
+    KEEP,
+    /** Only the first row of each matricule, in input order, is written. */
+    FIRST_WINS,
+    /** Only the last row of each matricule, in input order, is written. */
+    LAST_WINS,
+    /** No row of a duplicated matricule is written; all of them go to the rejects. */
+    REJECT;
+
+    public static DuplicatePolicy fromConfig(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return KEEP;
+        }
+        String name = value.trim().replace('-', '_');
+        for (DuplicatePolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Politique de doublons non valide: " + value);
+    }
+}
@@ -0,0 +1,20 @@
+package com.ministry.importer.enums;
+
+public enum LoadStrategy {
+    /** JDBC batched {@code INSERT} statements, supported by every driver. */
+    BATCH_INSERT,
+    /** PostgreSQL {@code COPY ... FROM STDIN}, falls back to {@link #BATCH_INSERT} on other databases. */
+    COPY;
+
+    public static LoadStrategy fromConfig(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return BATCH_INSERT;
+        }
+        for (LoadStrategy strategy : values()) {
+            if (strategy.name().equalsIgnoreCase(value.trim())) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException("Stratégie de chargement non valide: " + value);
+    }
+}
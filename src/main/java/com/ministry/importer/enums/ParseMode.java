@@ -0,0 +1,8 @@
+package com.ministry.importer.enums;
+
+public enum ParseMode {
+    /** Loads the whole workbook into an {@code XSSFWorkbook} before reading rows. */
+    WORKBOOK,
+    /** Streams the first sheet through POI's event model with bounded memory. */
+    EVENT
+}
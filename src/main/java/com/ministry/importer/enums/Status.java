@@ -1,27 +1,70 @@
 package com.ministry.importer.enums;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 public enum Status {
-    ACTIF("Actif"),
-    INACTIF("Inactif"),
-    SUSPENDU("Suspendu"),
-    EN_ATTENTE("En attente");
+    ACTIF("Actif", 1),
+    INACTIF("Inactif", 2),
+    SUSPENDU("Suspendu", 3),
+    EN_ATTENTE("En attente", 4);
+
+    // Exact labels first, then their lower case for the rest of the case-insensitive matches
+    private static final Map<String, Status> BY_LABEL = new HashMap<>();
+    private static final Status[] BY_CODE;
+
+    static {
+        int maxCode = 0;
+        for (Status status : values()) {
+            BY_LABEL.put(status.label, status);
+            BY_LABEL.putIfAbsent(status.label.toLowerCase(Locale.ROOT), status);
+            maxCode = Math.max(maxCode, status.code);
+        }
+        BY_CODE = new Status[maxCode + 1];
+        for (Status status : values()) {
+            BY_CODE[status.code] = status;
+        }
+    }
 
     private final String label;
+    private final short code;
 
-    Status(String label) {
+    Status(String label, int code) {
         this.label = label;
+        this.code = (short) code;
     }
 
     public String getLabel() {
         return label;
     }
 
+    /**
+     * Stable code of the status in the {@code person_status} lookup table; unlike the ordinal,
+     * it does not change when statuses are added or reordered.
+     */
+    public short getCode() {
+        return code;
+    }
+
     public static Status fromLabel(String label) {
-        for (Status status : Status.values()) {
-            if (status.getLabel().equalsIgnoreCase(label)) {
+        if (label != null) {
+            Status status = BY_LABEL.get(label);
+            if (status == null) {
+                status = BY_LABEL.get(label.toLowerCase(Locale.ROOT));
+            }
+            if (status != null) {
                 return status;
             }
         }
         throw new IllegalArgumentException("Statut non valide: " + label);
     }
+
+    public static Status fromCode(int code) {
+        Status status = code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (status == null) {
+            throw new IllegalArgumentException("Code de statut non valide: " + code);
+        }
+        return status;
+    }
 }
@@ -0,0 +1,20 @@
+package com.ministry.importer.enums;
+
+public enum StatusStorage {
+    /** The status name is stored in a {@code VARCHAR} column. */
+    TEXT,
+    /** The status code is stored in a {@code SMALLINT} column referencing {@code person_status}. */
+    CODE;
+
+    public static StatusStorage fromConfig(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return TEXT;
+        }
+        for (StatusStorage storage : values()) {
+            if (storage.name().equalsIgnoreCase(value.trim())) {
+                return storage;
+            }
+        }
+        throw new IllegalArgumentException("Stockage du statut non valide: " + value);
+    }
+}
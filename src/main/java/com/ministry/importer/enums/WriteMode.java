@@ -0,0 +1,20 @@
+package com.ministry.importer.enums;
+
+public enum WriteMode {
+    /** Every row is inserted; re-importing a file duplicates its people. */
+    APPEND,
+    /** Rows are merged on {@code matricule}; unchanged rows are left untouched. */
+    UPSERT;
+
+    public static WriteMode fromConfig(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return APPEND;
+        }
+        for (WriteMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Mode d'écriture non valide: " + value);
+    }
+}
@@ -0,0 +1,20 @@
+package com.ministry.importer.enums;
+
+public enum WriterThreads {
+    /** A fixed pool of {@code import.writers} platform threads, each draining the write queue. */
+    PLATFORM,
+    /** One virtual thread per batch write, at most one per pooled connection. Requires Java 21. */
+    VIRTUAL;
+
+    public static WriterThreads fromConfig(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return PLATFORM;
+        }
+        for (WriterThreads threads : values()) {
+            if (threads.name().equalsIgnoreCase(value.trim())) {
+                return threads;
+            }
+        }
+        throw new IllegalArgumentException("import.writer.threads non valide (platform ou virtual): " + value);
+    }
+}
@@ -0,0 +1,234 @@
+package com.ministry.importer.metrics;
+
+import com.ministry.importer.repository.PersonRepository;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters and timings of an import, updated by the readers, the write pipeline and the
+ * repository, and reset when the next import starts. Counters are {@link LongAdder}s so the
+ * hot paths never contend on them; percentiles are computed when they are read.
+ */
+public class ImportMetrics implements ImportMetricsMXBean {
+    public static final String OBJECT_NAME = "com.ministry.importer:type=ImportMetrics";
+
+    private final PersonRepository repository;
+    private final LongAdder rowsParsed = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder rowsRejected = new LongAdder();
+    private final LongAdder rowsSkipped = new LongAdder();
+    private final LongAdder batchesWritten = new LongAdder();
+    private final LongAdder batchesFailed = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final LongAdder backpressureNanos = new LongAdder();
+    private volatile long connectionWaitBaseline;
+    private long[] latencies = new long[256];
+    private int latencyCount;
+    private volatile long startNanos = System.nanoTime();
+    private volatile long endNanos;
+    private volatile IntSupplier queueDepth = () -> 0;
+
+    public ImportMetrics(PersonRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Resets every counter for a new import whose write queue is sampled through {@code queueDepth}.
+     */
+    public synchronized void start(IntSupplier queueDepth) {
+        for (LongAdder counter : new LongAdder[]{rowsParsed, rowsWritten, rowsRejected, rowsSkipped,
+                batchesWritten, batchesFailed, readNanos, writeNanos, backpressureNanos}) {
+            counter.reset();
+        }
+        latencyCount = 0;
+        connectionWaitBaseline = repository.getConnectionWaitNanos();
+        this.queueDepth = queueDepth;
+        endNanos = 0;
+        startNanos = System.nanoTime();
+    }
+
+    public void finish() {
+        endNanos = System.nanoTime();
+        queueDepth = () -> 0;
+    }
+
+    public void recordRowParsed() {
+        rowsParsed.increment();
+    }
+
+    public void recordRowRejected() {
+        rowsRejected.increment();
+    }
+
+    public void recordRowsSkipped(int rows) {
+        rowsSkipped.add(rows);
+    }
+
+    public void recordRead(long nanos) {
+        readNanos.add(nanos);
+    }
+
+    public void recordBackpressure(long nanos) {
+        backpressureNanos.add(nanos);
+    }
+
+    public void recordBatch(int size, long nanos, boolean succeeded) {
+        writeNanos.add(nanos);
+        if (succeeded) {
+            rowsWritten.add(size);
+            batchesWritten.increment();
+        } else {
+            batchesFailed.increment();
+        }
+        synchronized (this) {
+            if (latencyCount == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[latencyCount++] = nanos;
+        }
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+    }
+
+    @Override
+    public long getRowsParsed() {
+        return rowsParsed.sum();
+    }
+
+    @Override
+    public long getRowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    @Override
+    public long getRowsRejected() {
+        return rowsRejected.sum();
+    }
+
+    @Override
+    public long getRowsSkipped() {
+        return rowsSkipped.sum();
+    }
+
+    @Override
+    public double getRowsParsedPerSecond() {
+        return perSecond(getRowsParsed());
+    }
+
+    @Override
+    public double getRowsWrittenPerSecond() {
+        return perSecond(getRowsWritten());
+    }
+
+    @Override
+    public long getBatchesWritten() {
+        return batchesWritten.sum();
+    }
+
+    @Override
+    public long getBatchesFailed() {
+        return batchesFailed.sum();
+    }
+
+    @Override
+    public long getParseMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(0, readNanos.sum() - backpressureNanos.sum()));
+    }
+
+    @Override
+    public long getWriteMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(writeNanos.sum());
+    }
+
+    @Override
+    public long getBackpressureMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(backpressureNanos.sum());
+    }
+
+    @Override
+    public double getBatchLatencyP50Millis() {
+        return latencyPercentile(0.50);
+    }
+
+    @Override
+    public double getBatchLatencyP99Millis() {
+        return latencyPercentile(0.99);
+    }
+
+    @Override
+    public double getBatchLatencyMaxMillis() {
+        return latencyPercentile(1.0);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return repository.getActiveConnections();
+    }
+
+    @Override
+    public int getThreadsAwaitingConnection() {
+        return repository.getThreadsAwaitingConnection();
+    }
+
+    @Override
+    public long getConnectionWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(repository.getConnectionWaitNanos() - connectionWaitBaseline);
+    }
+
+    public String toLogLine() {
+        return String.format(Locale.ROOT, "parsed %d (%.0f rows/s), written %d (%.0f rows/s), rejected %d, "
+                        + "batches %d ok / %d failed, batch p50 %.1f ms p99 %.1f ms, parse %d ms, write %d ms, "
+                        + "queue %d, pool %d active / %d waiting",
+                getRowsParsed(), getRowsParsedPerSecond(), getRowsWritten(), getRowsWrittenPerSecond(),
+                getRowsRejected(), getBatchesWritten(), getBatchesFailed(), getBatchLatencyP50Millis(),
+                getBatchLatencyP99Millis(), getParseMillis(), getWriteMillis(), getQueueDepth(),
+                getActiveConnections(), getThreadsAwaitingConnection());
+    }
+
+    public String toJson() {
+        return String.format(Locale.ROOT, "{\"elapsedMillis\":%d,\"rowsParsed\":%d,\"rowsWritten\":%d,"
+                        + "\"rowsRejected\":%d,\"rowsSkipped\":%d,\"rowsParsedPerSecond\":%.1f,"
+                        + "\"rowsWrittenPerSecond\":%.1f,\"batchesWritten\":%d,\"batchesFailed\":%d,"
+                        + "\"parseMillis\":%d,\"writeMillis\":%d,\"backpressureMillis\":%d,"
+                        + "\"batchLatencyP50Millis\":%.3f,\"batchLatencyP99Millis\":%.3f,\"batchLatencyMaxMillis\":%.3f,"
+                        + "\"queueDepth\":%d,\"activeConnections\":%d,\"threadsAwaitingConnection\":%d,"
+                        + "\"connectionWaitMillis\":%d}",
+                getElapsedMillis(), getRowsParsed(), getRowsWritten(), getRowsRejected(), getRowsSkipped(),
+                getRowsParsedPerSecond(), getRowsWrittenPerSecond(), getBatchesWritten(), getBatchesFailed(),
+                getParseMillis(), getWriteMillis(), getBackpressureMillis(), getBatchLatencyP50Millis(),
+                getBatchLatencyP99Millis(), getBatchLatencyMaxMillis(), getQueueDepth(), getActiveConnections(),
+                getThreadsAwaitingConnection(), getConnectionWaitMillis());
+    }
+
+    private double perSecond(long count) {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : count * 1000.0 / elapsed;
+    }
+
+    private double latencyPercentile(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (latencyCount == 0) {
+                return 0;
+            }
+            sorted = Arrays.copyOf(latencies, latencyCount);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
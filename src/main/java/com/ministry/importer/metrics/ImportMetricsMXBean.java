@@ -0,0 +1,46 @@
+package com.ministry.importer.metrics;
+
+/**
+ * JMX view of the running (or last) import, registered as {@link ImportMetrics#OBJECT_NAME}.
+ */
+public interface ImportMetricsMXBean {
+    long getElapsedMillis();
+
+    long getRowsParsed();
+
+    long getRowsWritten();
+
+    long getRowsRejected();
+
+    long getRowsSkipped();
+
+    double getRowsParsedPerSecond();
+
+    double getRowsWrittenPerSecond();
+
+    long getBatchesWritten();
+
+    long getBatchesFailed();
+
+    /** Time readers spent parsing, excluding the time they were blocked by a full write queue. */
+    long getParseMillis();
+
+    /** Time writers spent saving batches. */
+    long getWriteMillis();
+
+    long getBackpressureMillis();
+
+    double getBatchLatencyP50Millis();
+
+    double getBatchLatencyP99Millis();
+
+    double getBatchLatencyMaxMillis();
+
+    int getQueueDepth();
+
+    int getActiveConnections();
+
+    int getThreadsAwaitingConnection();
+
+    long getConnectionWaitMillis();
+}
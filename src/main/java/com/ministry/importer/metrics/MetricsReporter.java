@@ -0,0 +1,111 @@
+package com.ministry.importer.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Publishes {@link ImportMetrics}: registers them with the platform MBean server and, every
+ * {@code intervalSeconds}, logs a progress line and rewrites the JSON snapshot file if one is set.
+ * A last snapshot is written on close.
+ */
+public class MetricsReporter implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(MetricsReporter.class);
+
+    private final ImportMetrics metrics;
+    private final Path snapshotFile;
+    private final ScheduledExecutorService scheduler;
+    private ObjectName objectName;
+
+    public MetricsReporter(ImportMetrics metrics, int intervalSeconds, Path snapshotFile) {
+        this.metrics = metrics;
+        this.snapshotFile = snapshotFile;
+        registerMBean();
+
+        if (intervalSeconds > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "import-metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(this::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    void report() {
+        try {
+            logger.info("Progress: {}", metrics.toLogLine());
+            writeSnapshot();
+        } catch (RuntimeException e) {
+            // Never let a reporting problem stop the schedule
+            logger.warn("Failed to report import metrics", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        try {
+            writeSnapshot();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to write import metrics", e);
+        }
+        unregisterMBean();
+    }
+
+    private void writeSnapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            Files.write(temp, metrics.toJson().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Impossible d'écrire les métriques dans " + snapshotFile, e);
+        }
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(ImportMetrics.OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(metrics, name);
+            objectName = name;
+        } catch (JMException e) {
+            logger.warn("Failed to register import metrics with JMX", e);
+        }
+    }
+
+    private void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            logger.debug("Import metrics already unregistered", e);
+        }
+        objectName = null;
+    }
+}
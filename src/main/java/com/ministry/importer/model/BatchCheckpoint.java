@@ -0,0 +1,40 @@
+package com.ministry.importer.model;
+
+/**
+ * Journal entry of a committed batch: rows {@code firstRow} to {@code firstRow + rowCount - 1}
+ * of one source (a sheet or a CSV chunk) of the import identified by {@code importId}.
+ * Rows are numbered from 0 in the order the source yields valid people.
+ */
+public class BatchCheckpoint {
+    private final String importId;
+    private final String source;
+    private final long firstRow;
+    private final int rowCount;
+
+    public BatchCheckpoint(String importId, String source, long firstRow, int rowCount) {
+        this.importId = importId;
+        this.source = source;
+        this.firstRow = firstRow;
+        this.rowCount = rowCount;
+    }
+
+    public String getImportId() {
+        return importId;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getFirstRow() {
+        return firstRow;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public long getEndRow() {
+        return firstRow + rowCount;
+    }
+}
@@ -0,0 +1,63 @@
+package com.ministry.importer.model;
+
+/**
+ * Outcome of a diff import: how the rows read compare with the people table, and the
+ * changes applied to bring the table in line with the input.
+ */
+public class DiffResult {
+    private final long rowsRead;
+    private final long rowsRejected;
+    private final long rowsDuplicated;
+    private final long inserted;
+    private final long updated;
+    private final long deleted;
+    private final long unchanged;
+    private final long durationMillis;
+
+    /**
+     * @param rowsDuplicated rows left out because a later row of the input has the same matricule
+     */
+    public DiffResult(long rowsRead, long rowsRejected, long rowsDuplicated, long inserted, long updated,
+                      long deleted, long unchanged, long durationMillis) {
+        this.rowsRead = rowsRead;
+        this.rowsRejected = rowsRejected;
+        this.rowsDuplicated = rowsDuplicated;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.deleted = deleted;
+        this.unchanged = unchanged;
+        this.durationMillis = durationMillis;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getRowsDuplicated() {
+        return rowsDuplicated;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+
+    public long getUnchanged() {
+        return unchanged;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+}
@@ -0,0 +1,134 @@
+package com.ministry.importer.model;
+
+import java.util.Collections;
+import java.util.List;
+
+public class ImportResult {
+    private final int rowsParsed;
+    private final int rowsWritten;
+    private final int rowsRejected;
+    private final int rowsSkipped;
+    private final int rowsDuplicated;
+    private final int batchesFailed;
+    private final List<BatchTiming> batchTimings;
+    private final List<Integer> batchSizes;
+    private final long durationMillis;
+
+    public ImportResult(int rowsParsed, int rowsWritten, int batchesFailed,
+                        List<BatchTiming> batchTimings, long durationMillis) {
+        this(rowsParsed, rowsWritten, 0, 0, batchesFailed, batchTimings, durationMillis);
+    }
+
+    public ImportResult(int rowsParsed, int rowsWritten, int rowsRejected, int rowsSkipped, int batchesFailed,
+                        List<BatchTiming> batchTimings, long durationMillis) {
+        this(rowsParsed, rowsWritten, rowsRejected, rowsSkipped, batchesFailed, batchTimings, List.of(), durationMillis);
+    }
+
+    public ImportResult(int rowsParsed, int rowsWritten, int rowsRejected, int rowsSkipped, int batchesFailed,
+                        List<BatchTiming> batchTimings, List<Integer> batchSizes, long durationMillis) {
+        this(rowsParsed, rowsWritten, rowsRejected, rowsSkipped, 0, batchesFailed, batchTimings, batchSizes,
+                durationMillis);
+    }
+
+    public ImportResult(int rowsParsed, int rowsWritten, int rowsRejected, int rowsSkipped, int rowsDuplicated,
+                        int batchesFailed, List<BatchTiming> batchTimings, List<Integer> batchSizes,
+                        long durationMillis) {
+        this.rowsParsed = rowsParsed;
+        this.rowsWritten = rowsWritten;
+        this.rowsRejected = rowsRejected;
+        this.rowsSkipped = rowsSkipped;
+        this.rowsDuplicated = rowsDuplicated;
+        this.batchesFailed = batchesFailed;
+        this.batchTimings = Collections.unmodifiableList(batchTimings);
+        this.batchSizes = Collections.unmodifiableList(batchSizes);
+        this.durationMillis = durationMillis;
+    }
+
+    public int getRowsParsed() {
+        return rowsParsed;
+    }
+
+    public int getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Rows that could not be mapped and were quarantined; they are not part of {@link #getRowsParsed()}.
+     */
+    public int getRowsRejected() {
+        return rowsRejected;
+    }
+
+    /**
+     * Rows left out because a previous run of the same file already committed them.
+     */
+    public int getRowsSkipped() {
+        return rowsSkipped;
+    }
+
+    /**
+     * Rows left out because another row of the same matricule was kept; not part of {@link #getRowsParsed()}.
+     */
+    public int getRowsDuplicated() {
+        return rowsDuplicated;
+    }
+
+    public int getBatchesFailed() {
+        return batchesFailed;
+    }
+
+    public int getBatchCount() {
+        return batchTimings.size();
+    }
+
+    public List<BatchTiming> getBatchTimings() {
+        return batchTimings;
+    }
+
+    /**
+     * Batch sizes used during the import, in the order they were chosen.
+     */
+    public List<Integer> getBatchSizes() {
+        return batchSizes;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public boolean isComplete() {
+        return batchesFailed == 0 && rowsWritten == rowsParsed;
+    }
+
+    public double getAverageBatchMillis() {
+        return batchTimings.stream().mapToLong(BatchTiming::getDurationNanos).average().orElse(0) / 1_000_000.0;
+    }
+
+    public double getMaxBatchMillis() {
+        return batchTimings.stream().mapToLong(BatchTiming::getDurationNanos).max().orElse(0) / 1_000_000.0;
+    }
+
+    public static class BatchTiming {
+        private final int size;
+        private final long durationNanos;
+        private final boolean succeeded;
+
+        public BatchTiming(int size, long durationNanos, boolean succeeded) {
+            this.size = size;
+            this.durationNanos = durationNanos;
+            this.succeeded = succeeded;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        public boolean isSucceeded() {
+            return succeeded;
+        }
+    }
+}
@@ -22,6 +22,15 @@ public class Person {
         this.birthDate = DateParser.parseDate(birthDate);
         this.status = Status.fromLabel(status);
     }
+
+    public Person(String matricule, String firstName, String lastName, LocalDate birthDate, Status status) {
+        this.matricule = matricule;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.birthDate = birthDate;
+        this.status = status;
+    }
+
     public Status getStatus() {
         return status;
     }
@@ -0,0 +1,200 @@
+package com.ministry.importer.model;
+
+import com.ministry.importer.enums.Status;
+import com.ministry.importer.utility.ContentHash;
+
+import java.nio.CharBuffer;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * A batch of people stored column by column rather than as {@link Person} objects: the
+ * matricule and names of every row share one char array, birth dates are kept as epoch days
+ * and statuses as ordinals. A queued batch of a thousand rows is then a handful of arrays
+ * instead of several thousand small objects.
+ * <p>
+ * First names repeat a lot, so each distinct one is stored once per batch and shared by the
+ * rows that carry it, up to {@value #MAX_DISTINCT_FIRST_NAMES} distinct names.
+ * <p>
+ * Rows are copied in by {@link #add(Person)} or {@link #add(String, String, String, LocalDate, Status)};
+ * {@link #get(int)} builds a new {@code Person} on each call, so writers should prefer the
+ * column accessors.
+ */
+public final class PersonBatch extends AbstractList<Person> implements RandomAccess {
+    public static final int MATRICULE = 0;
+    public static final int FIRST_NAME = 1;
+    public static final int LAST_NAME = 2;
+    private static final int TEXT_FIELDS = 3;
+    private static final int CHARS_PER_ROW = 32;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final byte NO_STATUS = -1;
+    private static final Status[] STATUSES = Status.values();
+    static final int MAX_DISTINCT_FIRST_NAMES = 4096;
+
+    // Start in the text array of each first name already stored
+    private final Map<String, Integer> firstNames = new HashMap<>();
+
+    private char[] text;
+    private int textLength;
+    private int[] textStart;
+    // -1 for a null field
+    private int[] textLengths;
+    private int[] birthEpochDays;
+    private byte[] statusOrdinals;
+    private int size;
+
+    public PersonBatch() {
+        this(16);
+    }
+
+    public PersonBatch(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.text = new char[capacity * CHARS_PER_ROW];
+        this.textStart = new int[capacity * TEXT_FIELDS];
+        this.textLengths = new int[capacity * TEXT_FIELDS];
+        this.birthEpochDays = new int[capacity];
+        this.statusOrdinals = new byte[capacity];
+    }
+
+    @Override
+    public boolean add(Person person) {
+        add(person.getMatricule(), person.getFirstName(), person.getLastName(),
+                person.getBirthDate(), person.getStatus());
+        return true;
+    }
+
+    public void add(String matricule, String firstName, String lastName, LocalDate birthDate, Status status) {
+        if (size == birthEpochDays.length) {
+            grow();
+        }
+        int field = size * TEXT_FIELDS;
+        putText(field + MATRICULE, matricule);
+        putFirstName(field + FIRST_NAME, firstName);
+        putText(field + LAST_NAME, lastName);
+        birthEpochDays[size] = birthDate == null ? NO_DATE : Math.toIntExact(birthDate.toEpochDay());
+        statusOrdinals[size] = status == null ? NO_STATUS : (byte) status.ordinal();
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Person get(int row) {
+        checkIndex(row);
+        return new Person(getMatricule(row), getFirstName(row), getLastName(row), getBirthDate(row), getStatus(row));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        textLength = 0;
+        firstNames.clear();
+        modCount++;
+    }
+
+    public String getMatricule(int row) {
+        return getString(row, MATRICULE);
+    }
+
+    public String getFirstName(int row) {
+        return getString(row, FIRST_NAME);
+    }
+
+    public String getLastName(int row) {
+        return getString(row, LAST_NAME);
+    }
+
+    /**
+     * The text of a field as a view over the shared array, without copying it, or null.
+     */
+    public CharSequence getText(int row, int field) {
+        int index = textIndex(row, field);
+        int length = textLengths[index];
+        return length < 0 ? null : CharBuffer.wrap(text, textStart[index], length);
+    }
+
+    public LocalDate getBirthDate(int row) {
+        checkIndex(row);
+        int epochDay = birthEpochDays[row];
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    public Status getStatus(int row) {
+        checkIndex(row);
+        byte ordinal = statusOrdinals[row];
+        return ordinal == NO_STATUS ? null : STATUSES[ordinal];
+    }
+
+    /**
+     * The {@link ContentHash} of the row, computed over the text in place.
+     */
+    public long getContentHash(int row) {
+        return ContentHash.of(getText(row, MATRICULE), getText(row, FIRST_NAME), getText(row, LAST_NAME),
+                getBirthDate(row), getStatus(row));
+    }
+
+    private String getString(int row, int field) {
+        int index = textIndex(row, field);
+        int length = textLengths[index];
+        return length < 0 ? null : new String(text, textStart[index], length);
+    }
+
+    private int textIndex(int row, int field) {
+        checkIndex(row);
+        if (field < MATRICULE || field > LAST_NAME) {
+            throw new IllegalArgumentException("Unknown text field " + field);
+        }
+        return row * TEXT_FIELDS + field;
+    }
+
+    private void putFirstName(int index, String value) {
+        Integer start = value == null ? null : firstNames.get(value);
+        if (start != null) {
+            textStart[index] = start;
+            textLengths[index] = value.length();
+            return;
+        }
+        putText(index, value);
+        if (value != null && firstNames.size() < MAX_DISTINCT_FIRST_NAMES) {
+            firstNames.put(value, textStart[index]);
+        }
+    }
+
+    private void putText(int index, String value) {
+        if (value == null) {
+            textStart[index] = textLength;
+            textLengths[index] = -1;
+            return;
+        }
+        int length = value.length();
+        if (textLength + length > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + length));
+        }
+        value.getChars(0, length, text, textLength);
+        textStart[index] = textLength;
+        textLengths[index] = length;
+        textLength += length;
+    }
+
+    private void grow() {
+        int capacity = birthEpochDays.length * 2;
+        textStart = Arrays.copyOf(textStart, capacity * TEXT_FIELDS);
+        textLengths = Arrays.copyOf(textLengths, capacity * TEXT_FIELDS);
+        birthEpochDays = Arrays.copyOf(birthEpochDays, capacity);
+        statusOrdinals = Arrays.copyOf(statusOrdinals, capacity);
+    }
+
+    private void checkIndex(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of " + size);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ministry.importer.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A source row that could not be turned into a {@link Person}, with the raw cell values
+ * and the reason it was rejected.
+ */
+public class RejectedRow {
+    private final String source;
+    private final long rowNumber;
+    private final List<String> values;
+    private final String reason;
+
+    public RejectedRow(String source, long rowNumber, List<String> values, String reason) {
+        this.source = source;
+        this.rowNumber = rowNumber;
+        this.values = Collections.unmodifiableList(values);
+        this.reason = reason;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
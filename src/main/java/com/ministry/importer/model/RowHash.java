@@ -0,0 +1,22 @@
+package com.ministry.importer.model;
+
+/**
+ * The matricule of a stored row and the {@link com.ministry.importer.utility.ContentHash} of its content.
+ */
+public class RowHash {
+    private final String matricule;
+    private final long contentHash;
+
+    public RowHash(String matricule, long contentHash) {
+        this.matricule = matricule;
+        this.contentHash = contentHash;
+    }
+
+    public String getMatricule() {
+        return matricule;
+    }
+
+    public long getContentHash() {
+        return contentHash;
+    }
+}
@@ -0,0 +1,95 @@
+package com.ministry.importer.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a validate-only run found in its input: the rows an import would write or reject,
+ * why rows were rejected, the formats birth dates were written in and the matricules that
+ * appear more than once. Nothing was written to the database.
+ */
+public class ValidationReport {
+    private final int sourceCount;
+    private final long rowsValid;
+    private final long rowsRejected;
+    private final Map<String, Long> rejectReasons;
+    private final Map<String, Long> dateFormats;
+    private final long distinctMatricules;
+    private final long duplicatedMatricules;
+    private final long duplicateRows;
+    private final List<String> duplicateSample;
+    private final long durationMillis;
+
+    /**
+     * @param rejectReasons   rejected rows per reason, most frequent first
+     * @param dateFormats     valid rows per birth date format, most frequent first
+     * @param duplicateRows   rows whose matricule was already read
+     * @param duplicateSample a few of the duplicated matricules
+     */
+    public ValidationReport(int sourceCount, long rowsValid, long rowsRejected, Map<String, Long> rejectReasons,
+                            Map<String, Long> dateFormats, long distinctMatricules, long duplicatedMatricules,
+                            long duplicateRows, List<String> duplicateSample, long durationMillis) {
+        this.sourceCount = sourceCount;
+        this.rowsValid = rowsValid;
+        this.rowsRejected = rowsRejected;
+        this.rejectReasons = Collections.unmodifiableMap(rejectReasons);
+        this.dateFormats = Collections.unmodifiableMap(dateFormats);
+        this.distinctMatricules = distinctMatricules;
+        this.duplicatedMatricules = duplicatedMatricules;
+        this.duplicateRows = duplicateRows;
+        this.duplicateSample = Collections.unmodifiableList(duplicateSample);
+        this.durationMillis = durationMillis;
+    }
+
+    public int getSourceCount() {
+        return sourceCount;
+    }
+
+    public long getRowsRead() {
+        return rowsValid + rowsRejected;
+    }
+
+    public long getRowsValid() {
+        return rowsValid;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public Map<String, Long> getRejectReasons() {
+        return rejectReasons;
+    }
+
+    public Map<String, Long> getDateFormats() {
+        return dateFormats;
+    }
+
+    public long getDistinctMatricules() {
+        return distinctMatricules;
+    }
+
+    public long getDuplicatedMatricules() {
+        return duplicatedMatricules;
+    }
+
+    public long getDuplicateRows() {
+        return duplicateRows;
+    }
+
+    public List<String> getDuplicateSample() {
+        return duplicateSample;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * True when no row would be rejected and every matricule appears once.
+     */
+    public boolean isClean() {
+        return rowsRejected == 0 && duplicateRows == 0;
+    }
+}
@@ -0,0 +1,296 @@
+package com.ministry.importer.parser;
+
+import com.ministry.importer.model.Person;
+import com.ministry.importer.model.RejectedRow;
+import com.ministry.importer.utility.DateParser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parses CSV and TSV exports (RFC 4180 quoting, UTF-8) with the same column layout as the
+ * Excel files. The file is memory-mapped and tokenized byte by byte. {@link #split(String, int)}
+ * cuts it into chunks that start on a record boundary so they can be parsed in parallel.
+ */
+public class CsvStreamParser {
+    private static final int COLUMN_COUNT = 5;
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+    private static final int HEADER_SCAN_LIMIT = 64 * 1024;
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    public static boolean supports(String filePath) {
+        String name = filePath.toLowerCase();
+        return name.endsWith(".csv") || name.endsWith(".tsv");
+    }
+
+    public Stream<Person> parseAsStream(String filePath) {
+        return parseChunk(split(filePath, 1).get(0), null);
+    }
+
+    /**
+     * Splits the file into at most {@code chunkCount} chunks of similar size. Boundaries are
+     * placed after a line break that is not inside a quoted field, which takes one quick pass
+     * over the bytes before the last boundary.
+     */
+    public List<Chunk> split(String filePath, int chunkCount) {
+        Path path = Paths.get(filePath);
+        try (MappedInput input = new MappedInput(path)) {
+            long size = input.size();
+            long start = hasBom(input) ? UTF8_BOM.length : 0;
+            byte delimiter = detectDelimiter(input, start, filePath);
+            // One date format per file: a chunk starting on ambiguous dates follows the others
+            DateParser birthDates = new DateParser();
+
+            List<Chunk> chunks = new ArrayList<>();
+            long chunkStart = start;
+            long firstRow = 1;
+            if (chunkCount > 1 && size - start >= 2 * MIN_CHUNK_SIZE) {
+                long target = Math.max(MIN_CHUNK_SIZE, (size - start) / chunkCount);
+                long nextBoundary = start + target;
+                boolean quoted = false;
+                long records = 0;
+                for (long position = start; position < size && chunks.size() < chunkCount - 1; position++) {
+                    int b = input.byteAt(position);
+                    if (b == '"') {
+                        quoted = !quoted;
+                    } else if (b == '\n' && !quoted) {
+                        records++;
+                        if (position + 1 >= nextBoundary && position + 1 < size) {
+                            chunks.add(new Chunk(path, chunkStart, position + 1, delimiter, chunks.isEmpty(), firstRow,
+                                    birthDates));
+                            chunkStart = position + 1;
+                            firstRow = records + 1;
+                            nextBoundary = chunkStart + target;
+                        }
+                    }
+                }
+            }
+            chunks.add(new Chunk(path, chunkStart, size, delimiter, chunks.isEmpty(), firstRow, birthDates));
+            return chunks;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read CSV file " + filePath, e);
+        }
+    }
+
+    public Stream<Person> parseChunk(Chunk chunk) {
+        return parseChunk(chunk, null);
+    }
+
+    /**
+     * Parses one chunk, handing rows that cannot be mapped to {@code rejects} instead of
+     * failing the stream. A null handler keeps the failing behaviour.
+     */
+    public Stream<Person> parseChunk(Chunk chunk, Consumer<RejectedRow> rejects) {
+        try {
+            MappedInput input = new MappedInput(chunk.path);
+            ChunkReader reader = new ChunkReader(input, chunk, new RowMapper(chunk.path.toString(), rejects,
+                    new DateParser(chunk.birthDates)));
+            return StreamSupport.stream(reader, false).onClose(() -> {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to close CSV file", e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read CSV file " + chunk.path, e);
+        }
+    }
+
+    private static boolean hasBom(MappedInput input) throws IOException {
+        for (int i = 0; i < UTF8_BOM.length; i++) {
+            if (input.byteAt(i) != (UTF8_BOM[i] & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Picks the delimiter that appears most often, outside quotes, in the header line.
+     * French Excel exports use ';' where others use ','.
+     */
+    private static byte detectDelimiter(MappedInput input, long start, String filePath) throws IOException {
+        if (filePath.toLowerCase().endsWith(".tsv")) {
+            return '\t';
+        }
+        int commas = 0;
+        int semicolons = 0;
+        int tabs = 0;
+        boolean quoted = false;
+        for (long position = start; position < start + HEADER_SCAN_LIMIT; position++) {
+            int b = input.byteAt(position);
+            if (b == MappedInput.END_OF_INPUT || (b == '\n' && !quoted)) {
+                break;
+            }
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (!quoted) {
+                if (b == ',') commas++;
+                else if (b == ';') semicolons++;
+                else if (b == '\t') tabs++;
+            }
+        }
+        if (semicolons > commas && semicolons >= tabs) {
+            return ';';
+        }
+        return tabs > commas ? (byte) '\t' : (byte) ',';
+    }
+
+    public static final class Chunk {
+        private final Path path;
+        private final long start;
+        private final long end;
+        private final byte delimiter;
+        private final boolean hasHeader;
+        private final long firstRow;
+        private final DateParser birthDates;
+
+        Chunk(Path path, long start, long end, byte delimiter, boolean hasHeader, long firstRow,
+              DateParser birthDates) {
+            this.path = path;
+            this.start = start;
+            this.end = end;
+            this.delimiter = delimiter;
+            this.hasHeader = hasHeader;
+            this.firstRow = firstRow;
+            this.birthDates = birthDates;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        @Override
+        public String toString() {
+            return path + "[" + start + ", " + end + ")";
+        }
+    }
+
+    private static final class ChunkReader extends Spliterators.AbstractSpliterator<Person> {
+        private final MappedInput input;
+        private final long end;
+        private final byte delimiter;
+        private final RowMapper mapper;
+        private final RowView row = new RowView(COLUMN_COUNT);
+        private byte[] field = new byte[256];
+        private int fieldLength;
+        private long position;
+        private long rowNumber;
+        private boolean headerPending;
+
+        ChunkReader(MappedInput input, Chunk chunk, RowMapper mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.input = input;
+            this.end = chunk.end;
+            this.delimiter = chunk.delimiter;
+            this.mapper = mapper;
+            this.position = chunk.start;
+            this.rowNumber = chunk.firstRow - 1;
+            this.headerPending = chunk.hasHeader;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Person> action) {
+            try {
+                while (position < end) {
+                    int fields = readRecord();
+                    rowNumber++;
+                    if (headerPending) {
+                        headerPending = false;
+                        continue;
+                    }
+                    if (fields == 1 && row.isEmpty(0)) {
+                        continue;
+                    }
+                    Person person = mapper.map(row);
+                    if (person != null) {
+                        action.accept(person);
+                        return true;
+                    }
+                }
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read CSV file", e);
+            }
+        }
+
+        private int readRecord() throws IOException {
+            row.clear(rowNumber + 1);
+            int fields = 0;
+            while (true) {
+                fieldLength = 0;
+                boolean quoted = false;
+                int b = input.byteAt(position);
+
+                if (b == '"') {
+                    quoted = true;
+                    position++;
+                    while (true) {
+                        b = input.byteAt(position++);
+                        if (b == MappedInput.END_OF_INPUT) {
+                            position--;
+                            break;
+                        }
+                        if (b == '"') {
+                            if (input.byteAt(position) != '"') {
+                                break;
+                            }
+                            position++;
+                        }
+                        append(b);
+                    }
+                    b = input.byteAt(position);
+                }
+                // Unquoted field, or stray bytes after a closing quote which are kept as is
+                while (b != MappedInput.END_OF_INPUT && b != delimiter && b != '\n' && b != '\r') {
+                    append(b);
+                    b = input.byteAt(++position);
+                }
+
+                if (fields < COLUMN_COUNT) {
+                    row.setText(fields, fieldLength == 0 && !quoted
+                            ? null
+                            : new String(field, 0, fieldLength, StandardCharsets.UTF_8));
+                }
+                fields++;
+
+                if (b == delimiter) {
+                    position++;
+                    continue;
+                }
+                if (b == '\r') {
+                    position++;
+                    if (input.byteAt(position) == '\n') {
+                        position++;
+                    }
+                } else if (b == '\n') {
+                    position++;
+                }
+                return fields;
+            }
+        }
+
+        private void append(int b) {
+            if (fieldLength == field.length) {
+                field = Arrays.copyOf(field, field.length * 2);
+            }
+            field[fieldLength++] = (byte) b;
+        }
+    }
+}
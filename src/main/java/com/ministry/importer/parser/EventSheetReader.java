@@ -0,0 +1,325 @@
+package com.ministry.importer.parser;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Reads one sheet of an XLSX file with a SAX handler running on a dedicated thread.
+ * Rows are handed over through a bounded queue, so memory stays flat whatever the sheet size
+ * and the reader simply blocks when the consumer falls behind.
+ * <p>
+ * Rows are {@link RowView}s that go back to the reader once the consumer asks for the next
+ * one, so a row must be used before advancing. Shared strings are resolved once per index,
+ * and numbers are kept as numbers.
+ */
+final class EventSheetReader extends Spliterators.AbstractSpliterator<RowView> implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final long CLOSE_TIMEOUT_MS = 5000;
+    private static final RowView END_OF_SHEET = new RowView(0);
+
+    private final OPCPackage pkg;
+    private final BlockingQueue<RowView> rows = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // One view per queued row, plus the one being filled and the one being consumed
+    private final BlockingQueue<RowView> freeRows = new ArrayBlockingQueue<>(QUEUE_CAPACITY + 2);
+    private final Thread readerThread;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+    private boolean finished;
+    private RowView consumed;
+
+    private EventSheetReader(OPCPackage pkg, InputStream sheet, XMLReader xmlReader) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.pkg = pkg;
+        this.readerThread = new Thread(() -> read(xmlReader, sheet), "xlsx-event-reader");
+        this.readerThread.setDaemon(true);
+    }
+
+    static EventSheetReader open(File file, int sheetIndex, int columnCount) throws Exception {
+        OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            SharedStrings strings = new ReadOnlySharedStringsTable(pkg);
+            Iterator<InputStream> sheets = xssfReader.getSheetsData();
+            for (int i = 0; i < sheetIndex && sheets.hasNext(); i++) {
+                sheets.next().close();
+            }
+            if (!sheets.hasNext()) {
+                throw new IllegalStateException("Workbook has no sheet " + sheetIndex + ": " + file);
+            }
+
+            boolean date1904 = isDate1904(xssfReader);
+            XMLReader xmlReader = XMLHelper.newXMLReader();
+            EventSheetReader reader = new EventSheetReader(pkg, sheets.next(), xmlReader);
+            xmlReader.setContentHandler(reader.new SheetHandler(strings, columnCount, date1904));
+            reader.readerThread.start();
+            return reader;
+        } catch (Exception e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+
+    static int countSheets(File file) throws Exception {
+        OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            Iterator<InputStream> sheets = new XSSFReader(pkg).getSheetsData();
+            int count = 0;
+            while (sheets.hasNext()) {
+                sheets.next().close();
+                count++;
+            }
+            return count;
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    /**
+     * Whether the workbook counts dates from 1904, as set in its {@code workbookPr}.
+     */
+    private static boolean isDate1904(XSSFReader xssfReader) throws Exception {
+        boolean[] date1904 = new boolean[1];
+        XMLReader xmlReader = XMLHelper.newXMLReader();
+        xmlReader.setContentHandler(new DefaultHandler() {
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if ("workbookPr".equals(localName)) {
+                    String value = attributes.getValue("date1904");
+                    date1904[0] = "1".equals(value) || "true".equalsIgnoreCase(value);
+                }
+            }
+        });
+        try (InputStream workbook = xssfReader.getWorkbookData()) {
+            xmlReader.parse(new InputSource(workbook));
+        }
+        return date1904[0];
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super RowView> action) {
+        if (finished) {
+            return false;
+        }
+        if (consumed != null) {
+            freeRows.offer(consumed);
+            consumed = null;
+        }
+
+        RowView row;
+        try {
+            row = rows.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for sheet rows", e);
+        }
+
+        if (row == END_OF_SHEET) {
+            finished = true;
+            if (failure != null) {
+                throw new RuntimeException("Failed to parse Excel file", failure);
+            }
+            return false;
+        }
+        consumed = row;
+        action.accept(row);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        readerThread.interrupt();
+        rows.clear();
+        try {
+            readerThread.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void read(XMLReader xmlReader, InputStream sheet) {
+        try (sheet) {
+            xmlReader.parse(new InputSource(sheet));
+        } catch (Throwable e) {
+            if (!closed) {
+                failure = e;
+            }
+        } finally {
+            pkg.revert();
+        }
+
+        if (!closed) {
+            try {
+                rows.put(END_OF_SHEET);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void publish(RowView row) throws SAXException {
+        try {
+            rows.put(row);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SAXException("Sheet reading interrupted");
+        }
+    }
+
+    static int columnIndex(String cellReference) {
+        int column = 0;
+        for (int i = 0; i < cellReference.length(); i++) {
+            char c = cellReference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    private final class SheetHandler extends DefaultHandler {
+        private final SharedStrings strings;
+        // Resolved shared strings by index; each lookup in the table builds a rich text
+        private final String[] sharedStrings;
+        private final int columnCount;
+        private final boolean date1904;
+        private final StringBuilder value = new StringBuilder();
+
+        private RowView current;
+        private long rowNumber;
+        private int column;
+        private String cellType;
+        private boolean capturing;
+        private boolean headerSkipped;
+
+        SheetHandler(SharedStrings strings, int columnCount, boolean date1904) {
+            this.strings = strings;
+            this.sharedStrings = new String[Math.max(strings.getUniqueCount(), 0)];
+            this.columnCount = columnCount;
+            this.date1904 = date1904;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    String number = attributes.getValue("r");
+                    rowNumber = number != null ? Long.parseLong(number) : rowNumber + 1;
+                    current = freeRows.poll();
+                    if (current == null) {
+                        current = new RowView(columnCount, date1904);
+                    }
+                    current.clear(rowNumber);
+                    column = -1;
+                    break;
+                case "c":
+                    String reference = attributes.getValue("r");
+                    column = reference != null ? columnIndex(reference) : column + 1;
+                    cellType = attributes.getValue("t");
+                    value.setLength(0);
+                    break;
+                case "v":
+                case "t":
+                    capturing = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (capturing) {
+                value.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v":
+                case "t":
+                    capturing = false;
+                    break;
+                case "c":
+                    if (column >= 0 && column < columnCount && value.length() > 0) {
+                        decode();
+                    }
+                    break;
+                case "row":
+                    if (headerSkipped) {
+                        publish(current);
+                    } else {
+                        headerSkipped = true;
+                        freeRows.offer(current);
+                    }
+                    current = null;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void decode() {
+            if (cellType == null || "n".equals(cellType)) {
+                String raw = value.toString();
+                current.setNumber(column, Double.parseDouble(raw), raw);
+                return;
+            }
+            switch (cellType) {
+                case "s":
+                    current.setText(column, sharedString(sharedStringIndex()));
+                    break;
+                case "inlineStr":
+                case "str":
+                    current.setText(column, value.toString());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private int sharedStringIndex() {
+            int index = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    return Integer.parseInt(value.toString().trim());
+                }
+                index = index * 10 + (c - '0');
+            }
+            return index;
+        }
+
+        private String sharedString(int index) {
+            if (index >= sharedStrings.length) {
+                return strings.getItemAt(index).getString();
+            }
+            String string = sharedStrings[index];
+            if (string == null) {
+                string = strings.getItemAt(index).getString();
+                sharedStrings[index] = string;
+            }
+            return string;
+        }
+    }
+}
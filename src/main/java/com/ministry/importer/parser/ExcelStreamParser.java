@@ -1,24 +1,92 @@
 package com.ministry.importer.parser;
 
+import com.ministry.importer.enums.ParseMode;
 import com.ministry.importer.model.Person;
+import com.ministry.importer.model.RejectedRow;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import java.io.File;
 import java.io.FileInputStream;
 import java.util.Iterator;
+import java.util.Objects;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 public class ExcelStreamParser {
+    private static final int COLUMN_COUNT = 5;
+
+    private final ParseMode mode;
+
+    public ExcelStreamParser() {
+        this(ParseMode.EVENT);
+    }
+
+    public ExcelStreamParser(ParseMode mode) {
+        this.mode = mode;
+    }
+
     public Stream<Person> parseAsStream(String filePath) {
+        return parseSheet(filePath, 0, null);
+    }
+
+    public Stream<Person> parseAsStream(String filePath, Consumer<RejectedRow> rejects) {
+        return parseSheet(filePath, 0, rejects);
+    }
+
+    public Stream<Person> parseSheet(String filePath, int sheetIndex) {
+        return parseSheet(filePath, sheetIndex, null);
+    }
+
+    /**
+     * Parses one sheet, handing rows that cannot be mapped to {@code rejects} instead of
+     * failing the stream. A null handler keeps the failing behaviour.
+     */
+    public Stream<Person> parseSheet(String filePath, int sheetIndex, Consumer<RejectedRow> rejects) {
+        RowMapper mapper = new RowMapper(sourceName(filePath, sheetIndex), rejects);
+        if (mode == ParseMode.EVENT) {
+            return parseWithEvents(filePath, sheetIndex, mapper);
+        }
+        return parseWithWorkbook(filePath, sheetIndex, mapper);
+    }
+
+    public int getSheetCount(String filePath) {
+        try {
+            if (mode == ParseMode.EVENT) {
+                return EventSheetReader.countSheets(new File(filePath));
+            }
+            try (FileInputStream file = new FileInputStream(new File(filePath));
+                 Workbook workbook = new XSSFWorkbook(file)) {
+                return workbook.getNumberOfSheets();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse Excel file", e);
+        }
+    }
+
+    private Stream<Person> parseWithEvents(String filePath, int sheetIndex, RowMapper mapper) {
+        try {
+            EventSheetReader reader = EventSheetReader.open(new File(filePath), sheetIndex, COLUMN_COUNT);
+
+            return StreamSupport.stream(reader, false)
+                    .onClose(reader::close)
+                    .map(mapper::map)
+                    .filter(Objects::nonNull);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse Excel file", e);
+        }
+    }
+
+    private Stream<Person> parseWithWorkbook(String filePath, int sheetIndex, RowMapper mapper) {
         try {
             FileInputStream file = new FileInputStream(new File(filePath));
             Workbook workbook = new XSSFWorkbook(file);
 
-            Sheet sheet = workbook.getSheetAt(0);
+            Sheet sheet = workbook.getSheetAt(sheetIndex);
             Iterator<Row> rowIterator = sheet.iterator();
+            RowView view = new RowView(COLUMN_COUNT, ((XSSFWorkbook) workbook).isDate1904());
 
             if (rowIterator.hasNext())
                 rowIterator.next();
@@ -34,28 +102,39 @@ public class ExcelStreamParser {
                             throw new RuntimeException("Failed to close resources", e);
                         }
                     })
-                    .map(this::mapRowToPerson);
+                    .map(row -> mapper.map(readRow(row, view)))
+                    .filter(Objects::nonNull);
         } catch (Exception e) {
             throw new RuntimeException("Failed to parse Excel file", e);
         }
     }
 
-    private Person mapRowToPerson(Row row) {
-        return new Person(
-                getStringValue(row.getCell(0)),
-                getStringValue(row.getCell(1)),
-                getStringValue(row.getCell(2)),
-                getStringValue(row.getCell(3)),
-                getStringValue(row.getCell(4)));
+    private static RowView readRow(Row row, RowView view) {
+        view.clear(row.getRowNum() + 1);
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            Cell cell = row.getCell(i);
+            if (cell == null) {
+                continue;
+            }
+            switch (cell.getCellType()) {
+                case STRING:
+                    view.setText(i, cell.getStringCellValue());
+                    break;
+                case NUMERIC:
+                    view.setNumber(i, cell.getNumericCellValue(), null);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return view;
     }
 
-    private String getStringValue(Cell cell) {
-        if (cell == null) return null;
-        
-        switch (cell.getCellType()) {
-            case STRING: return cell.getStringCellValue();
-            case NUMERIC: return String.valueOf(cell.getNumericCellValue());
-            default: return null;
-        }
+    /**
+     * How rejected rows refer to a sheet: the file alone for the first one, then with the
+     * sheet number, counted from 1.
+     */
+    public static String sourceName(String filePath, int sheetIndex) {
+        return sheetIndex == 0 ? filePath : filePath + "#" + (sheetIndex + 1);
     }
 }
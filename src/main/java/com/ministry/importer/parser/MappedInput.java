@@ -0,0 +1,55 @@
+package com.ministry.importer.parser;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Random byte access over a file through a sliding memory-mapped window, so files larger than
+ * the 2 GB limit of a single {@link MappedByteBuffer} can be read without copying into the heap.
+ */
+final class MappedInput implements AutoCloseable {
+    static final int END_OF_INPUT = -1;
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowLength;
+
+    MappedInput(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    long size() {
+        return size;
+    }
+
+    int byteAt(long position) throws IOException {
+        if (position >= size) {
+            return END_OF_INPUT;
+        }
+        long offset = position - windowStart;
+        if (window == null || offset < 0 || offset >= windowLength) {
+            map(position);
+            offset = 0;
+        }
+        return window.get((int) offset) & 0xFF;
+    }
+
+    private void map(long position) throws IOException {
+        windowStart = position;
+        windowLength = (int) Math.min(WINDOW_SIZE, size - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,21 @@
+package com.ministry.importer.parser;
+
+import com.ministry.importer.model.RejectedRow;
+
+import java.util.function.Consumer;
+
+/**
+ * Reject handler that also hears of the rows a parser turned into people, with what the parser
+ * knows of them beyond the person itself. Given where a parser takes a reject handler, it is
+ * called for each row just before its person is handed to the stream, on the same thread.
+ */
+public interface RowListener extends Consumer<RejectedRow> {
+    /** Format reported for birth dates typed in Excel as dates rather than text. */
+    String EXCEL_DATE = "excel date";
+
+    /**
+     * @param rowNumber       row of the source the next person was read from
+     * @param birthDateFormat pattern its birth date was written in, {@link #EXCEL_DATE}, or null
+     */
+    void accepted(long rowNumber, String birthDateFormat);
+}
@@ -0,0 +1,88 @@
+package com.ministry.importer.parser;
+
+import com.ministry.importer.enums.Status;
+import com.ministry.importer.model.Person;
+import com.ministry.importer.model.RejectedRow;
+import com.ministry.importer.utility.DateParser;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Turns the rows of one source (a sheet or a CSV chunk) into people. Invalid rows are
+ * handed to the reject handler and skipped; without a handler the error is thrown as before,
+ * and rows without a matricule are mapped as they always were.
+ * A handler that is a {@link RowListener} also hears of each row mapped.
+ */
+final class RowMapper {
+    private static final int MATRICULE = 0;
+    private static final int FIRST_NAME = 1;
+    private static final int LAST_NAME = 2;
+    private static final int BIRTH_DATE = 3;
+    private static final int STATUS = 4;
+
+    private final String source;
+    private final Consumer<RejectedRow> rejects;
+    private final RowListener listener;
+    private final DateParser birthDates;
+
+    RowMapper(String source, Consumer<RejectedRow> rejects) {
+        this(source, rejects, new DateParser());
+    }
+
+    /**
+     * @param birthDates parser of this source's birth dates, which may share its detected format
+     *                   with the other chunks of the same file
+     */
+    RowMapper(String source, Consumer<RejectedRow> rejects, DateParser birthDates) {
+        this.source = source;
+        this.rejects = rejects;
+        this.listener = rejects instanceof RowListener ? (RowListener) rejects : null;
+        this.birthDates = birthDates;
+    }
+
+    /**
+     * Returns the person, or null when the row was rejected.
+     */
+    Person map(RowView row) {
+        try {
+            String matricule = row.getText(MATRICULE);
+            if (rejects != null && (matricule == null || matricule.trim().isEmpty())) {
+                throw new IllegalArgumentException("Matricule manquant");
+            }
+            Person person = new Person(matricule, row.getText(FIRST_NAME), row.getText(LAST_NAME),
+                    birthDate(row), Status.fromLabel(row.getText(STATUS)));
+            if (listener != null) {
+                listener.accepted(row.getRowNumber(),
+                        row.isNumber(BIRTH_DATE) ? RowListener.EXCEL_DATE : birthDates.getLastPattern());
+            }
+            return person;
+        } catch (RuntimeException e) {
+            if (rejects == null) {
+                throw e;
+            }
+            rejects.accept(new RejectedRow(source, row.getRowNumber(), Arrays.asList(row.toValues()), reason(e)));
+            return null;
+        }
+    }
+
+    /**
+     * Dates typed in Excel are day numbers, read as such; text is parsed in the formats of the column.
+     */
+    private LocalDate birthDate(RowView row) {
+        if (!row.isNumber(BIRTH_DATE)) {
+            return birthDates.parse(row.getText(BIRTH_DATE));
+        }
+        double serial = row.getNumber(BIRTH_DATE);
+        if (!DateUtil.isValidExcelDate(serial)) {
+            throw new IllegalArgumentException("Impossible de parser la date: " + row.getText(BIRTH_DATE));
+        }
+        return DateUtil.getLocalDateTime(serial, row.isDate1904()).toLocalDate();
+    }
+
+    private static String reason(RuntimeException e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,123 @@
+package com.ministry.importer.parser;
+
+import java.math.BigDecimal;
+
+/**
+ * The cells of one row, filled in place by a reader and handed to the {@link RowMapper}.
+ * A view is reused from row to row; numeric cells keep their value rather than a text
+ * rendering of it, which is only built when a text column holds a number.
+ */
+final class RowView {
+    private static final byte EMPTY = 0;
+    private static final byte TEXT = 1;
+    private static final byte NUMBER = 2;
+
+    private final byte[] kinds;
+    private final String[] texts;
+    private final double[] numbers;
+    private final boolean date1904;
+    private long number;
+
+    RowView(int columnCount) {
+        this(columnCount, false);
+    }
+
+    /**
+     * @param date1904 numeric dates count days from 1904 rather than 1900, as set per workbook
+     */
+    RowView(int columnCount, boolean date1904) {
+        this.kinds = new byte[columnCount];
+        this.texts = new String[columnCount];
+        this.numbers = new double[columnCount];
+        this.date1904 = date1904;
+    }
+
+    void clear(long rowNumber) {
+        this.number = rowNumber;
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = EMPTY;
+            texts[i] = null;
+        }
+    }
+
+    int getColumnCount() {
+        return kinds.length;
+    }
+
+    long getRowNumber() {
+        return number;
+    }
+
+    boolean isDate1904() {
+        return date1904;
+    }
+
+    void setText(int column, String value) {
+        if (column >= 0 && column < kinds.length) {
+            kinds[column] = value == null ? EMPTY : TEXT;
+            texts[column] = value;
+        }
+    }
+
+    /**
+     * @param raw the number as written in the file, if any, so that it can be rendered
+     *            without going through a double
+     */
+    void setNumber(int column, double value, String raw) {
+        if (column >= 0 && column < kinds.length) {
+            kinds[column] = NUMBER;
+            numbers[column] = value;
+            texts[column] = raw;
+        }
+    }
+
+    boolean isEmpty(int column) {
+        return kinds[column] == EMPTY;
+    }
+
+    boolean isNumber(int column) {
+        return kinds[column] == NUMBER;
+    }
+
+    double getNumber(int column) {
+        return numbers[column];
+    }
+
+    /**
+     * The cell as text; a number is written without exponent nor trailing zeros, so that a
+     * matricule typed as {@code 12345} reads {@code 12345} and not {@code 12345.0}.
+     */
+    String getText(int column) {
+        if (kinds[column] != NUMBER) {
+            return texts[column];
+        }
+        String raw = texts[column];
+        if (raw != null && isPlainInteger(raw)) {
+            return raw;
+        }
+        BigDecimal value = raw != null ? new BigDecimal(raw) : BigDecimal.valueOf(numbers[column]);
+        return value.stripTrailingZeros().toPlainString();
+    }
+
+    String[] toValues() {
+        String[] values = new String[kinds.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getText(i);
+        }
+        return values;
+    }
+
+    private static boolean isPlainInteger(String raw) {
+        int start = raw.startsWith("-") ? 1 : 0;
+        if (raw.length() == start) {
+            return false;
+        }
+        for (int i = start; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,194 @@
+package com.ministry.importer.repository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * First load of an empty people table. Rows go to an unlogged copy of the table that has no
+ * index nor constraint, so nothing is maintained row by row and nothing is written to the WAL.
+ * At the end, in one transaction, the copy replaces the table, is made logged and gets the
+ * constraints and indexes of the original back, built once over all the rows.
+ * <p>
+ * If the swap fails, for instance because a view or a foreign key depends on people, the rows
+ * are copied into the original table instead.
+ */
+final class BulkLoad {
+    private static final Logger logger = LogManager.getLogger(BulkLoad.class);
+    static final String TABLE = "people_load";
+
+    private static final String IS_EMPTY_SQL = "SELECT NOT EXISTS (SELECT 1 FROM people)";
+    private static final String IS_PARTITIONED_SQL =
+            "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'people'::regclass)";
+    private static final String SELECT_CONSTRAINTS_SQL = "SELECT conname, pg_get_constraintdef(oid) " +
+            "FROM pg_constraint WHERE conrelid = 'people'::regclass AND contype IN ('p', 'u', 'c', 'f', 'x') " +
+            "ORDER BY contype <> 'p', conname";
+    // Indexes backing a constraint come back with the constraint
+    private static final String SELECT_INDEXES_SQL = "SELECT pg_get_indexdef(i.indexrelid) FROM pg_index i " +
+            "WHERE i.indrelid = 'people'::regclass " +
+            "AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid AND c.conrelid = i.indrelid)";
+    private static final String CREATE_SQL = "CREATE UNLOGGED TABLE " + TABLE +
+            " (LIKE people INCLUDING DEFAULTS INCLUDING IDENTITY)";
+    private static final String DROP_SQL = "DROP TABLE IF EXISTS " + TABLE;
+    // The last row of a matricule wins, as it does with an upsert per batch
+    private static final String DEDUPLICATE_SQL = "DELETE FROM " + TABLE + " a USING " + TABLE + " b " +
+            "WHERE a.matricule = b.matricule AND a.id < b.id";
+
+    private final List<String> constraints;
+    private final List<String> indexes;
+    private final String copyBackSql;
+    private final boolean deduplicate;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private long loadStarted;
+
+    private BulkLoad(List<String> constraints, List<String> indexes, String copyBackSql, boolean deduplicate) {
+        this.constraints = constraints;
+        this.indexes = indexes;
+        this.copyBackSql = copyBackSql;
+        this.deduplicate = deduplicate;
+    }
+
+    /**
+     * Creates the load table if people is empty and not partitioned, otherwise returns null.
+     *
+     * @param columns      the columns written by the importer
+     * @param upsertClause appended to the copy back into people, or null when appending
+     */
+    static BulkLoad prepare(Connection connection, String columns, String upsertClause) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement stmt = connection.createStatement()) {
+            if (!queryBoolean(stmt, IS_EMPTY_SQL)) {
+                logger.info("Table people is not empty, loading it row by row");
+                connection.commit();
+                return null;
+            }
+            if (queryBoolean(stmt, IS_PARTITIONED_SQL)) {
+                logger.info("Table people is partitioned, loading it row by row");
+                connection.commit();
+                return null;
+            }
+
+            List<String> constraints = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery(SELECT_CONSTRAINTS_SQL)) {
+                while (rs.next()) {
+                    constraints.add("ALTER TABLE people ADD CONSTRAINT " + rs.getString(1) + " " + rs.getString(2));
+                }
+            }
+            List<String> indexes = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery(SELECT_INDEXES_SQL)) {
+                while (rs.next()) {
+                    indexes.add(rs.getString(1));
+                }
+            }
+            stmt.execute(DROP_SQL);
+            stmt.execute(CREATE_SQL);
+            connection.commit();
+
+            String copyBackSql = upsertClause == null
+                    ? "INSERT INTO people (" + columns + ") SELECT " + columns + " FROM " + TABLE + " ORDER BY id"
+                    : "INSERT INTO people (" + columns + ") SELECT DISTINCT ON (matricule) " + columns +
+                    " FROM " + TABLE + " ORDER BY matricule, id DESC" + upsertClause;
+            BulkLoad bulkLoad = new BulkLoad(constraints, indexes, copyBackSql, upsertClause != null);
+            bulkLoad.phase("prepare", start);
+            bulkLoad.loadStarted = System.nanoTime();
+            logger.info("Table people is empty, loading it through {} ({} constraint(s) and {} index(es) deferred)",
+                    TABLE, constraints.size(), indexes.size());
+            return bulkLoad;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * Swaps the load table in and rebuilds its constraints and indexes.
+     *
+     * @return the milliseconds spent in each phase, in order
+     */
+    Map<String, Long> finish(Connection connection) throws SQLException {
+        phase("load", loadStarted);
+        try (Statement stmt = connection.createStatement()) {
+            try {
+                swap(stmt);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                logger.warn("Could not swap {} in for people, copying its rows instead", TABLE, e);
+                copyBack(stmt);
+                connection.commit();
+            }
+
+            long start = System.nanoTime();
+            stmt.execute("ANALYZE people");
+            connection.commit();
+            phase("analyze", start);
+        }
+        logger.info("Bulk load phases (ms): {}", phases);
+        return new LinkedHashMap<>(phases);
+    }
+
+    void abort(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(DROP_SQL);
+            connection.commit();
+        }
+    }
+
+    private void swap(Statement stmt) throws SQLException {
+        long start = System.nanoTime();
+        if (deduplicate) {
+            stmt.executeUpdate(DEDUPLICATE_SQL);
+            phase("deduplicate", start);
+        }
+
+        start = System.nanoTime();
+        stmt.execute("LOCK TABLE people IN ACCESS EXCLUSIVE MODE");
+        if (!queryBoolean(stmt, IS_EMPTY_SQL)) {
+            throw new SQLException("Table people was written to during the bulk load");
+        }
+        stmt.execute("DROP TABLE people");
+        stmt.execute("ALTER TABLE " + TABLE + " RENAME TO people");
+        stmt.execute("ALTER SEQUENCE IF EXISTS " + TABLE + "_id_seq RENAME TO people_id_seq");
+        phase("swap", start);
+
+        start = System.nanoTime();
+        stmt.execute("ALTER TABLE people SET LOGGED");
+        phase("log", start);
+
+        start = System.nanoTime();
+        for (String sql : constraints) {
+            stmt.execute(sql);
+        }
+        for (String sql : indexes) {
+            stmt.execute(sql);
+        }
+        phase("index", start);
+    }
+
+    private void copyBack(Statement stmt) throws SQLException {
+        long start = System.nanoTime();
+        phases.keySet().retainAll(List.of("prepare", "load"));
+        stmt.executeUpdate(copyBackSql);
+        stmt.execute(DROP_SQL);
+        phase("copy", start);
+    }
+
+    private void phase(String name, long start) {
+        phases.put(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static boolean queryBoolean(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.ministry.importer.repository;
+
+import com.ministry.importer.enums.Status;
+import com.ministry.importer.model.Person;
+import com.ministry.importer.model.PersonBatch;
+import com.ministry.importer.utility.ContentHash;
+import org.postgresql.copy.CopyIn;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Encodes people in PostgreSQL COPY text format straight into a reusable UTF-8 buffer,
+ * which is pushed to the server each time it fills up.
+ */
+final class CopyEncoder {
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int MIN_BUFFER_SIZE = 64;
+
+    private final CopyIn copyIn;
+    private final byte[] buffer;
+    private final boolean statusCodes;
+    private final boolean contentHash;
+    private int position;
+
+    CopyEncoder(CopyIn copyIn) {
+        this(copyIn, DEFAULT_BUFFER_SIZE);
+    }
+
+    CopyEncoder(CopyIn copyIn, int bufferSize) {
+        this(copyIn, bufferSize, false);
+    }
+
+    /**
+     * @param statusCodes write the code of each status rather than its name
+     */
+    CopyEncoder(CopyIn copyIn, int bufferSize, boolean statusCodes) {
+        this(copyIn, bufferSize, statusCodes, false);
+    }
+
+    /**
+     * @param contentHash end each row with its {@link ContentHash}
+     */
+    CopyEncoder(CopyIn copyIn, int bufferSize, boolean statusCodes, boolean contentHash) {
+        this.copyIn = copyIn;
+        this.buffer = new byte[Math.max(bufferSize, MIN_BUFFER_SIZE)];
+        this.statusCodes = statusCodes;
+        this.contentHash = contentHash;
+    }
+
+    void write(Person person) throws SQLException {
+        writeText(person.getMatricule());
+        writeSeparator('\t');
+        writeText(person.getFirstName());
+        writeSeparator('\t');
+        writeText(person.getLastName());
+        writeSeparator('\t');
+        writeDate(person.getBirthDate());
+        writeSeparator('\t');
+        writeStatus(person.getStatus());
+        if (contentHash) {
+            writeSeparator('\t');
+            writeLong(ContentHash.of(person.getMatricule(), person.getFirstName(), person.getLastName(),
+                    person.getBirthDate(), person.getStatus()));
+        }
+        writeSeparator('\n');
+    }
+
+    /**
+     * Encodes one row of a columnar batch, reading the text fields in place.
+     */
+    void write(PersonBatch batch, int row) throws SQLException {
+        writeText(batch.getText(row, PersonBatch.MATRICULE));
+        writeSeparator('\t');
+        writeText(batch.getText(row, PersonBatch.FIRST_NAME));
+        writeSeparator('\t');
+        writeText(batch.getText(row, PersonBatch.LAST_NAME));
+        writeSeparator('\t');
+        writeDate(batch.getBirthDate(row));
+        writeSeparator('\t');
+        writeStatus(batch.getStatus(row));
+        if (contentHash) {
+            writeSeparator('\t');
+            writeLong(batch.getContentHash(row));
+        }
+        writeSeparator('\n');
+    }
+
+    void flush() throws SQLException {
+        if (position > 0) {
+            copyIn.writeToCopy(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void ensureCapacity(int bytes) throws SQLException {
+        if (buffer.length - position < bytes) {
+            flush();
+        }
+    }
+
+    private void writeSeparator(char separator) throws SQLException {
+        ensureCapacity(1);
+        buffer[position++] = (byte) separator;
+    }
+
+    private void writeNull() throws SQLException {
+        ensureCapacity(2);
+        buffer[position++] = '\\';
+        buffer[position++] = 'N';
+    }
+
+    private void writeStatus(Status status) throws SQLException {
+        if (status == null) {
+            writeNull();
+        } else if (statusCodes) {
+            int code = status.getCode();
+            int width = code < 10 ? 1 : code < 100 ? 2 : code < 1000 ? 3 : code < 10000 ? 4 : 5;
+            ensureCapacity(width);
+            writeDigits(code, width);
+        } else {
+            writeText(status.toString());
+        }
+    }
+
+    private void writeText(CharSequence value) throws SQLException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            ensureCapacity(4);
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                writeAscii(c);
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // A lone surrogate has no UTF-8 form; replaced as String.getBytes does for the INSERT path
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void writeAscii(char c) {
+        switch (c) {
+            case '\\': escape('\\'); break;
+            case '\t': escape('t'); break;
+            case '\n': escape('n'); break;
+            case '\r': escape('r'); break;
+            default: buffer[position++] = (byte) c;
+        }
+    }
+
+    private void escape(char c) {
+        buffer[position++] = '\\';
+        buffer[position++] = (byte) c;
+    }
+
+    private void writeDate(LocalDate date) throws SQLException {
+        if (date == null) {
+            writeNull();
+            return;
+        }
+        // PostgreSQL takes years past 9999 without a sign, and year 0 and before as 1 BC and before
+        int year = date.getYear();
+        boolean beforeChrist = year < 1;
+        int shownYear = beforeChrist ? 1 - year : year;
+        int width = Math.max(4, Integer.toString(shownYear).length());
+        ensureCapacity(width + 9);
+        writeDigits(shownYear, width);
+        buffer[position++] = '-';
+        writeDigits(date.getMonthValue(), 2);
+        buffer[position++] = '-';
+        writeDigits(date.getDayOfMonth(), 2);
+        if (beforeChrist) {
+            buffer[position++] = ' ';
+            buffer[position++] = 'B';
+            buffer[position++] = 'C';
+        }
+    }
+
+    private void writeDigits(int value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += width;
+    }
+
+    void writeLong(long value) throws SQLException {
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+        }
+        // Digits of the negative value, which covers Long.MIN_VALUE
+        long negative = value < 0 ? value : -value;
+        int width = 1;
+        for (long rest = negative / 10; rest != 0; rest /= 10) {
+            width++;
+        }
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' - negative % 10);
+            negative /= 10;
+        }
+        position += width;
+    }
+}
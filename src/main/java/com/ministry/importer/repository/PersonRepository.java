@@ -1,33 +1,150 @@
 package com.ministry.importer.repository;
 
 import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import com.ministry.importer.enums.LoadStrategy;
+import com.ministry.importer.enums.Status;
+import com.ministry.importer.enums.StatusStorage;
+import com.ministry.importer.enums.WriteMode;
+import com.ministry.importer.model.BatchCheckpoint;
 import com.ministry.importer.model.Person;
+import com.ministry.importer.model.PersonBatch;
+import com.ministry.importer.model.RowHash;
+import com.ministry.importer.utility.ConfigLoader;
+import com.ministry.importer.utility.ContentHash;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 
 public class PersonRepository implements AutoCloseable {
     private static final Logger logger = LogManager.getLogger(PersonRepository.class);
-    private static final int BATCH_SIZE = 1000;
+    private static final String COLUMNS = "matricule, first_name, last_name, birth_date, status";
+    private static final String UPSERT_CLAUSE = " ON CONFLICT (matricule) DO UPDATE SET " +
+            "first_name = EXCLUDED.first_name, last_name = EXCLUDED.last_name, " +
+            "birth_date = EXCLUDED.birth_date, status = EXCLUDED.status " +
+            "WHERE (people.first_name, people.last_name, people.birth_date, people.status) " +
+            "IS DISTINCT FROM (EXCLUDED.first_name, EXCLUDED.last_name, EXCLUDED.birth_date, EXCLUDED.status)";
+    private static final String HASHED_UPSERT_CLAUSE = " ON CONFLICT (matricule) DO UPDATE SET " +
+            "first_name = EXCLUDED.first_name, last_name = EXCLUDED.last_name, " +
+            "birth_date = EXCLUDED.birth_date, status = EXCLUDED.status, content_hash = EXCLUDED.content_hash " +
+            "WHERE people.content_hash IS DISTINCT FROM EXCLUDED.content_hash";
+    private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS people (";
+    private static final String CREATE_STAGING_SQL = "CREATE TEMPORARY TABLE IF NOT EXISTS people_staging (" +
+            "seq BIGINT GENERATED ALWAYS AS IDENTITY," +
+            "matricule VARCHAR(100)," +
+            "first_name VARCHAR(100)," +
+            "last_name VARCHAR(100)," +
+            "birth_date DATE," +
+            "status %s%s" +
+            ") ON COMMIT DELETE ROWS";
+    private static final String SELECT_STATUS_TYPE_SQL = "SELECT data_type FROM information_schema.columns " +
+            "WHERE table_schema = current_schema() AND table_name = 'people' AND column_name = 'status'";
+    // The last occurrence of a matricule wins, as it does with one INSERT per row
+    private static final String MERGE_STAGING_SQL = "INSERT INTO people (" + COLUMNS + ") " +
+            "SELECT DISTINCT ON (matricule) " + COLUMNS + " FROM people_staging " +
+            "ORDER BY matricule, seq DESC" + UPSERT_CLAUSE;
+    private static final String HASHED_COLUMNS = COLUMNS + ", content_hash";
+    private static final String SAME_HASH = "EXISTS (SELECT 1 FROM people p " +
+            "WHERE p.matricule = s.matricule AND p.content_hash = s.content_hash)";
+    // Unchanged rows are left out before the INSERT, so they are neither locked nor rewritten.
+    // Returns the rows written, then the rows left out, counted against the table before the merge.
+    private static final String HASHED_MERGE_STAGING_SQL = "WITH latest AS (SELECT DISTINCT ON (matricule) " +
+            HASHED_COLUMNS + " FROM people_staging ORDER BY matricule, seq DESC), " +
+            "merged AS (INSERT INTO people (" + HASHED_COLUMNS + ") SELECT " + HASHED_COLUMNS + " FROM latest s " +
+            "WHERE NOT " + SAME_HASH + HASHED_UPSERT_CLAUSE + " RETURNING 1) " +
+            "SELECT (SELECT count(*) FROM merged), (SELECT count(*) FROM latest s WHERE " + SAME_HASH + ")";
+    private static final String SELECT_HASHES_SQL = "SELECT matricule, content_hash FROM people WHERE matricule = ANY (?)";
+    private static final String CREATE_JOURNAL_SQL = "CREATE TABLE IF NOT EXISTS import_journal (" +
+            "import_id VARCHAR(64) NOT NULL," +
+            "source VARCHAR(100) NOT NULL," +
+            "first_row BIGINT NOT NULL," +
+            "row_count INTEGER NOT NULL," +
+            "committed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "PRIMARY KEY (import_id, source, first_row)" +
+            ")";
+    private static final String INSERT_JOURNAL_SQL =
+            "INSERT INTO import_journal (import_id, source, first_row, row_count) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_JOURNAL_SQL =
+            "SELECT source, first_row, row_count FROM import_journal WHERE import_id = ? ORDER BY source, first_row";
+    private static final String DELETE_JOURNAL_SQL = "DELETE FROM import_journal WHERE import_id = ?";
 
-    private final HikariDataSource dataSource;
+    // Byte order, which the diff engine reproduces; the locale order of the database may not be total
+    private static final String SCAN_SQL = "SELECT " + COLUMNS + " FROM people WHERE matricule IS NOT NULL " +
+            "ORDER BY matricule COLLATE \"C\"";
+    // Only rows written before the hash column existed ship their content
+    private static final String HASHED_SCAN_SQL = "SELECT matricule, content_hash, " +
+            "CASE WHEN content_hash IS NULL THEN first_name END, CASE WHEN content_hash IS NULL THEN last_name END, " +
+            "CASE WHEN content_hash IS NULL THEN birth_date END, CASE WHEN content_hash IS NULL THEN status END " +
+            "FROM people WHERE matricule IS NOT NULL ORDER BY matricule COLLATE \"C\"";
+    private static final int SCAN_FETCH_SIZE = 10_000;
+    private static final String UPDATE_SQL =
+            "UPDATE people SET first_name = ?, last_name = ?, birth_date = ?, status = ? WHERE matricule = ?";
+    private static final String HASHED_UPDATE_SQL = "UPDATE people SET first_name = ?, last_name = ?, " +
+            "birth_date = ?, status = ?, content_hash = ? WHERE matricule = ?";
+    private static final String DELETE_SQL = "DELETE FROM people WHERE matricule = ?";
 
-    public PersonRepository() {
-        this(loadConfiguration());
-    }
+    private final HikariDataSource dataSource;
+    private final LoadStrategy loadStrategy;
+    private final WriteMode writeMode;
+    private final boolean journalEnabled;
+    private final int statementBatchSize;
+    private final int commitInterval;
+    private final boolean bulkLoadEnabled;
+    private final boolean contentHash;
+    // Follows the type of an existing status column, once fromConfig has looked at the table
+    private boolean statusCodes;
+    private volatile BulkLoad bulkLoad;
+    private final LongAdder connectionWaitNanos = new LongAdder();
+    private final LongAdder rowsUnchanged = new LongAdder();
+    private final Queue<WriterSession> idleSessions = new ConcurrentLinkedQueue<>();
 
-    PersonRepository(Properties config) {
-        this.dataSource = createDataSource(config);
-        createTableIfNotExists();
+    /**
+     * A repository connected with the {@code db.*} settings, which creates the people table
+     * if it does not exist yet.
+     */
+    public static PersonRepository fromConfig(Properties config) {
+        RepositorySettings settings = RepositorySettings.fromConfig(config);
+        PersonRepository repository = new PersonRepository(createDataSource(config), settings);
+        repository.statusCodes = repository.createTableIfNotExists(settings);
+        return repository;
     }
 
-    PersonRepository(HikariDataSource dataSource) {
+    PersonRepository(HikariDataSource dataSource, RepositorySettings settings) {
         this.dataSource = dataSource;
+        this.loadStrategy = settings.getLoadStrategy();
+        this.writeMode = settings.getWriteMode();
+        this.journalEnabled = settings.isJournalEnabled();
+        if (settings.getStatementBatchSize() < 1) {
+            throw new IllegalArgumentException("db.statement.batch.size must be positive: "
+                    + settings.getStatementBatchSize());
+        }
+        this.statementBatchSize = settings.getStatementBatchSize();
+        this.commitInterval = settings.getCommitInterval();
+        this.bulkLoadEnabled = settings.isBulkLoadEnabled();
+        this.statusCodes = settings.getStatusStorage() == StatusStorage.CODE;
+        this.contentHash = settings.isContentHash();
     }
 
     private static HikariDataSource createDataSource(Properties config) {
@@ -36,93 +153,778 @@ public class PersonRepository implements AutoCloseable {
         hikariConfig.setUsername(config.getProperty("db.user"));
         hikariConfig.setPassword(config.getProperty("db.password"));
 
-        hikariConfig.setMaximumPoolSize(20);
+        hikariConfig.setMaximumPoolSize(ConfigLoader.getInt(config, "db.pool.size", 20));
         hikariConfig.setMinimumIdle(5);
         hikariConfig.setConnectionTimeout(30000);
         hikariConfig.setAutoCommit(false);
+        if (config.getProperty("db.url", "").startsWith("jdbc:postgresql:")) {
+            // Multi-row INSERTs for JDBC batches, and server-side statements from the first execution
+            hikariConfig.addDataSourceProperty("reWriteBatchedInserts", "true");
+            hikariConfig.addDataSourceProperty("prepareThreshold", "1");
+        }
         return new HikariDataSource(hikariConfig);
     }
 
     public void saveAll(List<Person> people) {
+        saveAll(people, null);
+    }
+
+    /**
+     * Saves the batch and, when a checkpoint is given, records it in the import journal in the
+     * same transaction, so the journal lists exactly the batches that landed.
+     * <p>
+     * The batch is written through an idle {@link WriterSession} when there is one, so the
+     * connection and statements are reused until {@link #releaseSessions()}. A session whose
+     * batch failed is closed rather than reused.
+     */
+    public void saveAll(List<Person> people, BatchCheckpoint checkpoint) {
         if (people == null || people.isEmpty()) {
             logger.info("No people to save");
             return;
         }
-        String sql = "INSERT INTO people (matricule, first_name, last_name, birth_date, status) " +
-                "VALUES (?, ?, ?, ?, ?) ";
+        withSession(session -> session.saveAll(people, checkpoint));
+    }
+
+    /**
+     * Overwrites the names, birth date and status of the rows of each person's matricule.
+     */
+    public void updateAll(List<Person> people) {
+        if (people != null && !people.isEmpty()) {
+            withSession(session -> session.updateAll(people));
+        }
+    }
+
+    public void deleteAll(List<String> matricules) {
+        if (matricules != null && !matricules.isEmpty()) {
+            withSession(session -> session.deleteAll(matricules));
+        }
+    }
+
+    private void withSession(Consumer<WriterSession> write) {
+        WriterSession session = idleSessions.poll();
+        if (session == null) {
+            session = openSession();
+        }
+        try {
+            write.accept(session);
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+        idleSessions.offer(session);
+    }
+
+    /**
+     * Streams the matricule and content hash of every row, ordered by matricule in
+     * {@link ContentHash#MATRICULE_ORDER}. Rows are fetched through a cursor, so the table is
+     * never held in memory; the stream keeps a connection until it is closed.
+     */
+    public Stream<RowHash> scanRowHashes() {
+        Connection connection = null;
+        Statement statement = null;
+        try {
+            connection = this.getConnection();
+            Statement stmt = connection.createStatement();
+            statement = stmt;
+            stmt.setFetchSize(SCAN_FETCH_SIZE);
+            ResultSet rs = stmt.executeQuery(contentHash ? HASHED_SCAN_SQL : SCAN_SQL);
+            Connection scanned = connection;
+            return StreamSupport.stream(new Spliterators.AbstractSpliterator<RowHash>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super RowHash> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        action.accept(rowHash(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new RuntimeException("Database operation failed", e);
+                    }
+                }
+            }, false).onClose(() -> {
+                SQLException failure = null;
+                try {
+                    scanned.rollback();
+                } catch (SQLException e) {
+                    failure = e;
+                }
+                failure = closeAll(failure, rs, stmt, scanned);
+                if (failure != null) {
+                    logger.warn("Failed to close table scan", failure);
+                }
+            });
+        } catch (SQLException e) {
+            closeAll(e, statement, connection);
+            logger.error("Failed to scan people", e);
+            throw new RuntimeException("Database operation failed", e);
+        }
+    }
+
+    private RowHash rowHash(ResultSet rs) throws SQLException {
+        String matricule = rs.getString(1);
+        int column = 2;
+        if (contentHash) {
+            long hash = rs.getLong(column++);
+            if (!rs.wasNull()) {
+                return new RowHash(matricule, hash);
+            }
+        }
+        Date birthDate = rs.getDate(column + 2);
+        Status status;
+        if (statusCodes) {
+            short code = rs.getShort(column + 3);
+            status = rs.wasNull() ? null : storedStatus(code);
+        } else {
+            status = storedStatus(rs.getString(column + 3));
+        }
+        return new RowHash(matricule, ContentHash.of(matricule, rs.getString(column), rs.getString(column + 1),
+                birthDate == null ? null : birthDate.toLocalDate(), status));
+    }
+
+    // The hash written to content_hash, and compared by the diff import
+    private static long contentHash(Person person) {
+        return ContentHash.of(person.getMatricule(), person.getFirstName(), person.getLastName(),
+                person.getBirthDate(), person.getStatus());
+    }
+
+    /**
+     * Statuses are stored by name, or by label when written by other tools. Anything else reads
+     * as null, which no valid row has, so the row counts as changed.
+     */
+    private static Status storedStatus(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Status.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            try {
+                return Status.fromLabel(value);
+            } catch (IllegalArgumentException unknown) {
+                return null;
+            }
+        }
+    }
+
+    private static Status storedStatus(short code) {
+        try {
+            return Status.fromCode(code);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks out a connection for a writer. The caller owns the session and must close it.
+     */
+    public WriterSession openSession() {
+        long requested = System.nanoTime();
+        try {
+            Connection connection = this.getConnection();
+            connectionWaitNanos.add(System.nanoTime() - requested);
+            return new WriterSession(connection);
+        } catch (SQLException e) {
+            logger.error("Failed to open writer session", e);
+            throw new RuntimeException("Database operation failed", e);
+        }
+    }
+
+    /**
+     * Closes the sessions kept by {@link #saveAll}, returning their connections to the pool.
+     * Called once an import has written its last batch.
+     */
+    public void releaseSessions() {
+        WriterSession session;
+        while ((session = idleSessions.poll()) != null) {
+            session.close();
+        }
+    }
+
+    /**
+     * Total time {@link #saveAll} spent waiting for a pooled connection.
+     */
+    public long getConnectionWaitNanos() {
+        return connectionWaitNanos.sum();
+    }
 
+    public int getMaximumPoolSize() {
+        return dataSource.getMaximumPoolSize();
+    }
+
+    public int getActiveConnections() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections();
+    }
+
+    public int getThreadsAwaitingConnection() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getThreadsAwaitingConnection();
+    }
+
+    /**
+     * Rows an upsert left alone since their content hash matched the stored one, since startup.
+     */
+    public long getRowsUnchanged() {
+        return rowsUnchanged.sum();
+    }
+
+    public boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    public boolean isBulkLoadEnabled() {
+        return bulkLoadEnabled;
+    }
+
+    /**
+     * Starts a bulk load if the people table is empty: until {@link #finishBulkLoad()}, batches
+     * go to an unlogged table without indexes, and upserts are resolved once at the end.
+     * Batches are not journaled meanwhile, since the rows only land with the final swap.
+     *
+     * @return false if the table already holds rows, and batches are written as usual
+     */
+    public boolean beginBulkLoad() {
+        releaseSessions();
         try (Connection connection = this.getConnection()) {
-            PreparedStatement stmt = connection.prepareStatement(sql);
-            connection.setAutoCommit(false);
-            int batchCount = 0;
+            bulkLoad = BulkLoad.prepare(connection, contentHash ? HASHED_COLUMNS : COLUMNS,
+                    writeMode == WriteMode.UPSERT ? (contentHash ? HASHED_UPSERT_CLAUSE : UPSERT_CLAUSE) : null);
+            return bulkLoad != null;
+        } catch (SQLException e) {
+            logger.error("Failed to start bulk load", e);
+            throw new RuntimeException("Database operation failed", e);
+        }
+    }
 
-            for (Person person : people) {
-                stmt.setString(1, person.getMatricule());
-                stmt.setString(2, person.getFirstName());
-                stmt.setString(3, person.getLastName());
-                stmt.setDate(4, java.sql.Date.valueOf(person.getBirthDate()));
-                stmt.setString(5, person.getStatus().toString());
-                stmt.addBatch();
+    /**
+     * Swaps the loaded rows into the people table and rebuilds its indexes.
+     *
+     * @return the milliseconds spent in each phase of the bulk load
+     */
+    public Map<String, Long> finishBulkLoad() {
+        releaseSessions();
+        BulkLoad load = bulkLoad;
+        bulkLoad = null;
+        if (load == null) {
+            return Map.of();
+        }
+        try (Connection connection = this.getConnection()) {
+            return load.finish(connection);
+        } catch (SQLException e) {
+            logger.error("Failed to finish bulk load", e);
+            throw new RuntimeException("Database operation failed", e);
+        }
+    }
 
-                if (++batchCount % BATCH_SIZE == 0) {
-                    stmt.executeBatch();
-                    connection.commit();
-                    logger.debug("Executed batch of {} records", BATCH_SIZE);
+    /**
+     * Drops the rows of a bulk load that did not complete; the people table is left empty.
+     */
+    public void abortBulkLoad() {
+        releaseSessions();
+        BulkLoad load = bulkLoad;
+        bulkLoad = null;
+        if (load == null) {
+            return;
+        }
+        try (Connection connection = this.getConnection()) {
+            load.abort(connection);
+        } catch (SQLException e) {
+            logger.warn("Failed to drop bulk load table", e);
+        }
+    }
+
+    /**
+     * Returns the batches already committed for the import, creating the journal table on first use.
+     */
+    public List<BatchCheckpoint> findCheckpoints(String importId) {
+        try (Connection connection = this.getConnection()) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute(CREATE_JOURNAL_SQL);
+            }
+            List<BatchCheckpoint> checkpoints = new ArrayList<>();
+            try (PreparedStatement stmt = connection.prepareStatement(SELECT_JOURNAL_SQL)) {
+                stmt.setString(1, importId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        checkpoints.add(new BatchCheckpoint(importId, rs.getString(1), rs.getLong(2), rs.getInt(3)));
+                    }
                 }
             }
+            connection.commit();
+            return checkpoints;
+        } catch (SQLException e) {
+            logger.error("Failed to read import journal", e);
+            throw new RuntimeException("Database operation failed", e);
+        }
+    }
 
-            int[] remainingResults = stmt.executeBatch();
+    /**
+     * Forgets the batches of an import once it has completed, so that the same file imported
+     * again, for example after the table was emptied, is written in full.
+     */
+    public void clearCheckpoints(String importId) {
+        try (Connection connection = this.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(DELETE_JOURNAL_SQL)) {
+            stmt.setString(1, importId);
+            int deleted = stmt.executeUpdate();
             connection.commit();
-            logger.info("Saved {} people successfully (last batch: {})",
-                    people.size(), remainingResults.length);
+            logger.debug("Cleared {} journal entries of import {}", deleted, importId);
         } catch (SQLException e) {
-            logger.error("Failed to save people", e);
+            logger.error("Failed to clear import journal", e);
             throw new RuntimeException("Database operation failed", e);
         }
     }
 
     @Override
     public void close() {
+        releaseSessions();
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
             logger.info("Database connection pool closed successfully");
         }
     }
 
-    private static Properties loadConfiguration() {
-        Properties props = new Properties();
-        try (var input = PersonRepository.class.getClassLoader()
-                .getResourceAsStream("application.properties")) {
-            if (input == null) {
-                throw new IllegalStateException("application.properties not found in classpath");
+    /**
+     * @return whether statuses are written as codes, which follows the type of the existing
+     * status column rather than the configured storage
+     */
+    private boolean createTableIfNotExists(RepositorySettings settings) {
+        String sql = null;
+
+        try (Connection connection = dataSource.getConnection();
+             Statement stmt = connection.createStatement()) {
+            int partitions = settings.getPartitions();
+            StatusStorage statusStorage = settings.getStatusStorage();
+            boolean partitioned = false;
+            for (String statement : createTableStatements(settings)) {
+                if (statement.contains(" PARTITION OF ") && !partitioned) {
+                    continue;
+                }
+                sql = statement;
+                stmt.execute(sql);
+                if (statement.startsWith(CREATE_TABLE_SQL) && partitions > 0) {
+                    partitioned = isPartitioned(stmt);
+                    if (!partitioned) {
+                        logger.warn("Table people already exists without partitions, db.partitions={} is ignored",
+                                partitions);
+                    }
+                }
+            }
+            sql = SELECT_STATUS_TYPE_SQL;
+            boolean codes;
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                codes = rs.next() && "smallint".equalsIgnoreCase(rs.getString(1));
             }
-            props.load(input);
-            return props;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to load configuration", e);
+            if (codes != (statusStorage == StatusStorage.CODE)) {
+                logger.warn("Column people.status already exists, statuses are stored as {} instead of {}",
+                        codes ? StatusStorage.CODE : StatusStorage.TEXT, statusStorage);
+            }
+            connection.commit();
+            return codes;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to execute SQL: " + sql, e);
         }
     }
 
-    private void createTableIfNotExists() {
-        String sql = "CREATE TABLE IF NOT EXISTS people (" +
-                "id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY," +
+    /**
+     * DDL for the people table. With partitions, the table is hash-partitioned on matricule so
+     * that the writes and the upsert index of each partition are spread over smaller trees;
+     * the primary key then has to include the partition key.
+     * <p>
+     * With {@link StatusStorage#CODE}, statuses are two-byte codes referencing the
+     * {@code person_status} lookup table instead of a name repeated on every row.
+     * <p>
+     * With a content hash, a table created before the column existed gets it, empty; those
+     * rows count as changed until they are written again.
+     */
+    static List<String> createTableStatements(RepositorySettings settings) {
+        int partitions = settings.getPartitions();
+        StatusStorage statusStorage = settings.getStatusStorage();
+        boolean contentHash = settings.isContentHash();
+        List<String> statements = new ArrayList<>();
+        if (statusStorage == StatusStorage.CODE) {
+            statements.add("CREATE TABLE IF NOT EXISTS person_status (" +
+                    "code SMALLINT PRIMARY KEY," +
+                    "label VARCHAR(100) NOT NULL UNIQUE" +
+                    ")");
+            StringBuilder insert = new StringBuilder("INSERT INTO person_status (code, label) VALUES ");
+            for (Status status : Status.values()) {
+                insert.append(status.ordinal() > 0 ? ", " : "")
+                        .append('(').append(status.getCode()).append(", '").append(status.getLabel()).append("')");
+            }
+            statements.add(insert.append(" ON CONFLICT (code) DO NOTHING").toString());
+        }
+        statements.add(CREATE_TABLE_SQL +
+                (partitions > 0 ? "id BIGINT GENERATED ALWAYS AS IDENTITY," : "id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,") +
                 "matricule VARCHAR(100)," +
                 "first_name VARCHAR(100)," +
                 "last_name VARCHAR(100)," +
                 "birth_date DATE," +
-                "status VARCHAR(100)" +
-                ")";
+                (statusStorage == StatusStorage.CODE ? "status SMALLINT REFERENCES person_status (code)" : "status VARCHAR(100)") +
+                (contentHash ? ",content_hash BIGINT" : "") +
+                (partitions > 0 ? ",PRIMARY KEY (id, matricule)) PARTITION BY HASH (matricule)" : ")"));
+        for (int i = 0; i < partitions; i++) {
+            statements.add("CREATE TABLE IF NOT EXISTS people_p" + i + " PARTITION OF people" +
+                    " FOR VALUES WITH (MODULUS " + partitions + ", REMAINDER " + i + ")");
+        }
+        if (contentHash) {
+            statements.add("ALTER TABLE people ADD COLUMN IF NOT EXISTS content_hash BIGINT");
+        }
+        if (settings.getWriteMode() == WriteMode.UPSERT) {
+            // Fails if the table already holds duplicated matricules: they must be cleaned up first
+            statements.add("CREATE UNIQUE INDEX IF NOT EXISTS people_matricule_key ON people (matricule)");
+        }
+        return statements;
+    }
 
-        try (Connection connection = dataSource.getConnection()) {
-            Statement stmt = connection.createStatement();
-            stmt.execute(sql);
-            connection.commit();
-        } catch (SQLException e) {
-            throw new RuntimeException("Failed to execute SQL: " + sql, e);
+    private static boolean isPartitioned(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'people'::regclass")) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * Closes each resource in order, the null ones aside, even when one fails.
+     *
+     * @param failure an earlier failure the close failures are added to, or null
+     * @return the earlier failure, or else the first close failure, with the others suppressed
+     */
+    private static SQLException closeAll(SQLException failure, AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e instanceof SQLException ? (SQLException) e : new SQLException(e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
         }
+        return failure;
     }
 
     protected Connection getConnection() throws SQLException {
         return dataSource.getConnection();
     }
+
+    /**
+     * A connection owned by one writer, with its statements prepared once and reused for every
+     * batch. Each {@link #saveAll} is one transaction; a failed batch is rolled back.
+     */
+    public final class WriterSession implements AutoCloseable {
+        private final Connection connection;
+        private final String table;
+        private final boolean upsert;
+        private PreparedStatement insertStatement;
+        private PreparedStatement journalStatement;
+        private PreparedStatement updateStatement;
+        private PreparedStatement deleteStatement;
+        private PreparedStatement hashesStatement;
+        private final boolean postgres;
+        private boolean stagingCreated;
+
+        private WriterSession(Connection connection) throws SQLException {
+            this.connection = connection;
+            this.postgres = connection.isWrapperFor(PGConnection.class);
+            // Sessions are released when a bulk load begins or ends
+            this.table = bulkLoad != null ? BulkLoad.TABLE : "people";
+            this.upsert = writeMode == WriteMode.UPSERT && bulkLoad == null;
+            connection.setAutoCommit(false);
+        }
+
+        public void saveAll(List<Person> people) {
+            saveAll(people, null);
+        }
+
+        public void saveAll(List<Person> people, BatchCheckpoint checkpoint) {
+            if (people == null || people.isEmpty()) {
+                return;
+            }
+            try {
+                if (loadStrategy == LoadStrategy.COPY && postgres) {
+                    copyAll(people, checkpoint);
+                } else {
+                    insertAll(people, checkpoint);
+                }
+            } catch (SQLException e) {
+                rollback();
+                logger.error("Failed to save people", e);
+                throw new RuntimeException("Database operation failed", e);
+            }
+        }
+
+        private void insertAll(List<Person> people, BatchCheckpoint checkpoint) throws SQLException {
+            if (insertStatement == null) {
+                String sql = contentHash
+                        ? "INSERT INTO " + table + " (" + HASHED_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?) "
+                        : "INSERT INTO " + table + " (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?) ";
+                if (upsert) {
+                    sql += contentHash ? HASHED_UPSERT_CLAUSE : UPSERT_CLAUSE;
+                }
+                insertStatement = connection.prepareStatement(sql);
+            }
+
+            PreparedStatement stmt = insertStatement;
+            PersonBatch columns = people instanceof PersonBatch ? (PersonBatch) people : null;
+            long[] hashes = contentHash ? new long[people.size()] : null;
+            for (int row = 0; hashes != null && row < hashes.length; row++) {
+                hashes[row] = columns != null ? columns.getContentHash(row) : contentHash(people.get(row));
+            }
+            // ANY (array) is PostgreSQL only; elsewhere the upsert clause still leaves unchanged rows as they are
+            Map<String, Long> stored = upsert && contentHash && postgres ? findContentHashes(people, columns) : Map.of();
+            boolean[] superseded = upsert ? superseded(people, columns) : null;
+            int batchCount = 0;
+            int committed = 0;
+            int unchanged = 0;
+
+            for (int row = 0; row < people.size(); row++) {
+                if (superseded != null && superseded[row]) {
+                    continue;
+                }
+                String matricule = columns != null ? columns.getMatricule(row) : people.get(row).getMatricule();
+                if (hashes != null && Long.valueOf(hashes[row]).equals(stored.get(matricule))) {
+                    unchanged++;
+                    continue;
+                }
+                if (columns != null) {
+                    bind(stmt, matricule, columns.getFirstName(row), columns.getLastName(row),
+                            columns.getBirthDate(row), columns.getStatus(row));
+                } else {
+                    Person person = people.get(row);
+                    bind(stmt, matricule, person.getFirstName(), person.getLastName(),
+                            person.getBirthDate(), person.getStatus());
+                }
+                if (hashes != null) {
+                    stmt.setLong(6, hashes[row]);
+                }
+                stmt.addBatch();
+
+                if (++batchCount % statementBatchSize == 0) {
+                    stmt.executeBatch();
+                    // A journaled batch must land as a whole
+                    if (checkpoint == null && commitInterval > 0 && batchCount - committed >= commitInterval) {
+                        connection.commit();
+                        committed = batchCount;
+                    }
+                    logger.debug("Executed batch of {} records", statementBatchSize);
+                }
+            }
+
+            int[] remainingResults = stmt.executeBatch();
+            recordCheckpoint(checkpoint);
+            connection.commit();
+            if (unchanged > 0) {
+                rowsUnchanged.add(unchanged);
+                logger.info("Saved {} people successfully (last batch: {}), {} unchanged",
+                        people.size() - unchanged, remainingResults.length, unchanged);
+            } else {
+                logger.info("Saved {} people successfully (last batch: {})",
+                        people.size(), remainingResults.length);
+            }
+        }
+
+        /**
+         * Marks the rows followed by another row of the same matricule. With reWriteBatchedInserts
+         * the driver sends a JDBC batch as one multi-row INSERT, which PostgreSQL rejects when an
+         * ON CONFLICT DO UPDATE would touch the same row twice, so only the last row of each
+         * matricule is sent; it is the one that would have won with one INSERT per row.
+         */
+        private boolean[] superseded(List<Person> people, PersonBatch columns) {
+            boolean[] superseded = new boolean[people.size()];
+            Set<String> later = new HashSet<>();
+            for (int row = people.size() - 1; row >= 0; row--) {
+                String matricule = columns != null ? columns.getMatricule(row) : people.get(row).getMatricule();
+                superseded[row] = !later.add(matricule);
+            }
+            return superseded;
+        }
+
+        /**
+         * The stored content hash of each matricule of the batch that has one, fetched in one query.
+         */
+        private Map<String, Long> findContentHashes(List<Person> people, PersonBatch columns) throws SQLException {
+            String[] matricules = new String[people.size()];
+            for (int row = 0; row < matricules.length; row++) {
+                matricules[row] = columns != null ? columns.getMatricule(row) : people.get(row).getMatricule();
+            }
+            if (hashesStatement == null) {
+                hashesStatement = connection.prepareStatement(SELECT_HASHES_SQL);
+            }
+            Array array = connection.createArrayOf("varchar", matricules);
+            Map<String, Long> hashes = new HashMap<>();
+            try {
+                hashesStatement.setArray(1, array);
+                try (ResultSet rs = hashesStatement.executeQuery()) {
+                    while (rs.next()) {
+                        long hash = rs.getLong(2);
+                        if (!rs.wasNull()) {
+                            hashes.put(rs.getString(1), hash);
+                        }
+                    }
+                }
+            } finally {
+                array.free();
+            }
+            return hashes;
+        }
+
+        private void bind(PreparedStatement stmt, String matricule, String firstName, String lastName,
+                          LocalDate birthDate, Status status) throws SQLException {
+            stmt.setString(1, matricule);
+            bindContent(stmt, 2, firstName, lastName, birthDate, status);
+        }
+
+        private void bindContent(PreparedStatement stmt, int index, String firstName, String lastName,
+                                 LocalDate birthDate, Status status) throws SQLException {
+            stmt.setString(index, firstName);
+            stmt.setString(index + 1, lastName);
+            if (birthDate == null) {
+                stmt.setNull(index + 2, Types.DATE);
+            } else {
+                stmt.setDate(index + 2, java.sql.Date.valueOf(birthDate));
+            }
+            if (status == null) {
+                stmt.setNull(index + 3, statusCodes ? Types.SMALLINT : Types.VARCHAR);
+            } else if (statusCodes) {
+                stmt.setShort(index + 3, status.getCode());
+            } else {
+                stmt.setString(index + 3, status.toString());
+            }
+        }
+
+        public void updateAll(List<Person> people) {
+            try {
+                if (updateStatement == null) {
+                    updateStatement = connection.prepareStatement(contentHash ? HASHED_UPDATE_SQL : UPDATE_SQL);
+                }
+                for (Person person : people) {
+                    bindContent(updateStatement, 1, person.getFirstName(), person.getLastName(),
+                            person.getBirthDate(), person.getStatus());
+                    if (contentHash) {
+                        updateStatement.setLong(5, contentHash(person));
+                    }
+                    updateStatement.setString(contentHash ? 6 : 5, person.getMatricule());
+                    updateStatement.addBatch();
+                }
+                updateStatement.executeBatch();
+                connection.commit();
+                logger.info("Updated {} people successfully", people.size());
+            } catch (SQLException e) {
+                rollback();
+                logger.error("Failed to update people", e);
+                throw new RuntimeException("Database operation failed", e);
+            }
+        }
+
+        public void deleteAll(List<String> matricules) {
+            try {
+                if (deleteStatement == null) {
+                    deleteStatement = connection.prepareStatement(DELETE_SQL);
+                }
+                for (String matricule : matricules) {
+                    deleteStatement.setString(1, matricule);
+                    deleteStatement.addBatch();
+                }
+                deleteStatement.executeBatch();
+                connection.commit();
+                logger.info("Deleted {} people successfully", matricules.size());
+            } catch (SQLException e) {
+                rollback();
+                logger.error("Failed to delete people", e);
+                throw new RuntimeException("Database operation failed", e);
+            }
+        }
+
+        private void copyAll(List<Person> people, BatchCheckpoint checkpoint) throws SQLException {
+            if (upsert && !stagingCreated) {
+                // ON COMMIT DELETE ROWS: the table lives as long as the session, empty between batches
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute(String.format(CREATE_STAGING_SQL, statusCodes ? "SMALLINT" : "VARCHAR(100)",
+                            contentHash ? ",content_hash BIGINT" : ""));
+                }
+                stagingCreated = true;
+            }
+
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn("COPY " + (upsert ? "people_staging" : table) + " ("
+                            + (contentHash ? HASHED_COLUMNS : COLUMNS) + ") FROM STDIN");
+            try {
+                CopyEncoder encoder = new CopyEncoder(copyIn, CopyEncoder.DEFAULT_BUFFER_SIZE, statusCodes, contentHash);
+                if (people instanceof PersonBatch) {
+                    PersonBatch columns = (PersonBatch) people;
+                    for (int row = 0; row < columns.size(); row++) {
+                        encoder.write(columns, row);
+                    }
+                } else {
+                    for (Person person : people) {
+                        encoder.write(person);
+                    }
+                }
+                encoder.flush();
+                long copied = copyIn.endCopy();
+
+                if (upsert && contentHash) {
+                    try (Statement stmt = connection.createStatement();
+                         ResultSet rs = stmt.executeQuery(HASHED_MERGE_STAGING_SQL)) {
+                        rs.next();
+                        long changed = rs.getLong(1);
+                        long unchanged = rs.getLong(2);
+                        rowsUnchanged.add(unchanged);
+                        logger.info("Merged {} people, {} new or changed, {} unchanged", copied, changed, unchanged);
+                    }
+                } else if (upsert) {
+                    try (Statement stmt = connection.createStatement()) {
+                        int changed = stmt.executeUpdate(MERGE_STAGING_SQL);
+                        logger.info("Merged {} people, {} new or changed", copied, changed);
+                    }
+                } else {
+                    logger.info("Copied {} people successfully", copied);
+                }
+                recordCheckpoint(checkpoint);
+                connection.commit();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        }
+
+        private void recordCheckpoint(BatchCheckpoint checkpoint) throws SQLException {
+            if (checkpoint == null) {
+                return;
+            }
+            if (journalStatement == null) {
+                journalStatement = connection.prepareStatement(INSERT_JOURNAL_SQL);
+            }
+            journalStatement.setString(1, checkpoint.getImportId());
+            journalStatement.setString(2, checkpoint.getSource());
+            journalStatement.setLong(3, checkpoint.getFirstRow());
+            journalStatement.setInt(4, checkpoint.getRowCount());
+            journalStatement.executeUpdate();
+        }
+
+        private void rollback() {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                logger.warn("Failed to roll back batch", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            logger.debug("Closing writer session");
+            SQLException failure = closeAll(null, hashesStatement, deleteStatement, updateStatement,
+                    journalStatement, insertStatement, connection);
+            if (failure != null) {
+                logger.warn("Failed to close writer session", failure);
+            }
+        }
+    }
 }
@@ -0,0 +1,135 @@
+package com.ministry.importer.repository;
+
+import com.ministry.importer.enums.LoadStrategy;
+import com.ministry.importer.enums.StatusStorage;
+import com.ministry.importer.enums.WriteMode;
+import com.ministry.importer.utility.ConfigLoader;
+import com.ministry.importer.utility.ContentHash;
+
+import java.util.Properties;
+
+/**
+ * How a {@link PersonRepository} lays out and writes the people table. Starts from the
+ * defaults, or from the {@code db.*} properties with {@link #fromConfig}; each setter returns
+ * the settings.
+ */
+final class RepositorySettings {
+    private static final int STATEMENT_BATCH_SIZE = 1000;
+
+    private LoadStrategy loadStrategy = LoadStrategy.BATCH_INSERT;
+    private WriteMode writeMode = WriteMode.APPEND;
+    private boolean journalEnabled;
+    private int statementBatchSize = STATEMENT_BATCH_SIZE;
+    private int commitInterval;
+    private int partitions;
+    private boolean bulkLoadEnabled;
+    private StatusStorage statusStorage = StatusStorage.TEXT;
+    private boolean contentHash;
+
+    static RepositorySettings fromConfig(Properties config) {
+        return new RepositorySettings()
+                .loadStrategy(LoadStrategy.fromConfig(config.getProperty("db.load.strategy")))
+                .writeMode(WriteMode.fromConfig(config.getProperty("db.write.mode")))
+                .journalEnabled(Boolean.parseBoolean(config.getProperty("db.import.journal", "false").trim()))
+                .statementBatchSize(ConfigLoader.getInt(config, "db.statement.batch.size", STATEMENT_BATCH_SIZE))
+                .commitInterval(ConfigLoader.getInt(config, "db.commit.interval", 0))
+                .partitions(ConfigLoader.getInt(config, "db.partitions", 0))
+                .bulkLoadEnabled(Boolean.parseBoolean(config.getProperty("db.bulk.load", "false").trim()))
+                .statusStorage(StatusStorage.fromConfig(config.getProperty("db.status.storage")))
+                .contentHash(Boolean.parseBoolean(config.getProperty("db.content.hash", "false").trim()));
+    }
+
+    RepositorySettings loadStrategy(LoadStrategy loadStrategy) {
+        this.loadStrategy = loadStrategy;
+        return this;
+    }
+
+    RepositorySettings writeMode(WriteMode writeMode) {
+        this.writeMode = writeMode;
+        return this;
+    }
+
+    RepositorySettings journalEnabled(boolean journalEnabled) {
+        this.journalEnabled = journalEnabled;
+        return this;
+    }
+
+    /**
+     * Rows sent per JDBC executeBatch call of a batch insert.
+     */
+    RepositorySettings statementBatchSize(int statementBatchSize) {
+        this.statementBatchSize = statementBatchSize;
+        return this;
+    }
+
+    /**
+     * Rows between intermediate commits of a batch insert, or 0 to commit once per batch.
+     */
+    RepositorySettings commitInterval(int commitInterval) {
+        this.commitInterval = commitInterval;
+        return this;
+    }
+
+    /**
+     * Hash partitions of a people table created by the repository, or 0 for a plain table.
+     */
+    RepositorySettings partitions(int partitions) {
+        this.partitions = partitions;
+        return this;
+    }
+
+    RepositorySettings bulkLoadEnabled(boolean bulkLoadEnabled) {
+        this.bulkLoadEnabled = bulkLoadEnabled;
+        return this;
+    }
+
+    RepositorySettings statusStorage(StatusStorage statusStorage) {
+        this.statusStorage = statusStorage;
+        return this;
+    }
+
+    /**
+     * Keep the {@link ContentHash} of each row in {@code content_hash}, and skip the rows of an
+     * upsert whose hash did not change.
+     */
+    RepositorySettings contentHash(boolean contentHash) {
+        this.contentHash = contentHash;
+        return this;
+    }
+
+    LoadStrategy getLoadStrategy() {
+        return loadStrategy;
+    }
+
+    WriteMode getWriteMode() {
+        return writeMode;
+    }
+
+    boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    int getStatementBatchSize() {
+        return statementBatchSize;
+    }
+
+    int getCommitInterval() {
+        return commitInterval;
+    }
+
+    int getPartitions() {
+        return partitions;
+    }
+
+    boolean isBulkLoadEnabled() {
+        return bulkLoadEnabled;
+    }
+
+    StatusStorage getStatusStorage() {
+        return statusStorage;
+    }
+
+    boolean isContentHash() {
+        return contentHash;
+    }
+}
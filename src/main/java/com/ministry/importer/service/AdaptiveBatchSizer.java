@@ -0,0 +1,120 @@
+package com.ministry.importer.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chooses the batch size from observed write throughput. Every few batches written at the
+ * current size, rows per second of write time are compared with the previous size: the size
+ * keeps moving by a factor of 1.5 in the same direction while throughput improves, and turns
+ * back when it drops, so it settles around the best size for the row width and server load.
+ * A failed batch halves the size. With {@code minSize == maxSize} the size never changes.
+ */
+public class AdaptiveBatchSizer {
+    private static final int SAMPLES_PER_STEP = 4;
+    private static final double STEP = 1.5;
+
+    private final int initialSize;
+    private final int minSize;
+    private final int maxSize;
+    private volatile int batchSize;
+    private final List<Integer> history = new ArrayList<>();
+    private int direction;
+    private double previousThroughput;
+    private long windowRows;
+    private long windowNanos;
+    private int windowSamples;
+
+    public AdaptiveBatchSizer(int initialSize, int minSize, int maxSize) {
+        if (minSize < 1 || initialSize < minSize || initialSize > maxSize) {
+            throw new IllegalArgumentException("Batch sizes must satisfy 1 <= min <= initial <= max: "
+                    + minSize + ", " + initialSize + ", " + maxSize);
+        }
+        this.initialSize = initialSize;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        reset();
+    }
+
+    public static AdaptiveBatchSizer fixed(int batchSize) {
+        return new AdaptiveBatchSizer(batchSize, batchSize, batchSize);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public boolean isAdaptive() {
+        return minSize < maxSize;
+    }
+
+    /**
+     * Sizes chosen since the last reset, starting with the initial size.
+     */
+    public synchronized List<Integer> getHistory() {
+        return new ArrayList<>(history);
+    }
+
+    synchronized void reset() {
+        batchSize = initialSize;
+        history.clear();
+        history.add(initialSize);
+        direction = 1;
+        previousThroughput = -1;
+        clearWindow();
+    }
+
+    synchronized void record(int size, long nanos, boolean succeeded) {
+        if (!isAdaptive()) {
+            return;
+        }
+        if (!succeeded) {
+            direction = -1;
+            previousThroughput = -1;
+            resize(Math.max(minSize, batchSize / 2));
+            return;
+        }
+        // Batches cut at the end of a source, or sized before the last change, say nothing about this size
+        if (size != batchSize) {
+            return;
+        }
+
+        windowRows += size;
+        windowNanos += nanos;
+        if (++windowSamples < SAMPLES_PER_STEP) {
+            return;
+        }
+
+        double throughput = windowRows * 1e9 / Math.max(1, windowNanos);
+        if (previousThroughput >= 0 && throughput < previousThroughput) {
+            direction = -direction;
+        }
+        previousThroughput = throughput;
+
+        int next = step(direction);
+        if (next == batchSize) {
+            direction = -direction;
+            next = step(direction);
+        }
+        resize(next);
+    }
+
+    private int step(int towards) {
+        int next = towards > 0 ? (int) Math.ceil(batchSize * STEP) : (int) (batchSize / STEP);
+        return Math.max(minSize, Math.min(maxSize, next));
+    }
+
+    private void resize(int size) {
+        clearWindow();
+        if (size != batchSize) {
+            batchSize = size;
+            history.add(size);
+        }
+    }
+
+    private void clearWindow() {
+        windowRows = 0;
+        windowNanos = 0;
+        windowSamples = 0;
+    }
+}
@@ -0,0 +1,274 @@
+package com.ministry.importer.service;
+
+import com.ministry.importer.model.BatchCheckpoint;
+import com.ministry.importer.model.ImportResult.BatchTiming;
+import com.ministry.importer.model.Person;
+import com.ministry.importer.metrics.ImportMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Write stage of an import. Batches are handed to a fixed number of writer tasks through a
+ * bounded queue, so {@link #submit(List)} blocks the producer as soon as the writers fall behind.
+ * <p>
+ * With a permit count instead, a single dispatcher takes the batches off the queue and writes
+ * each on its own task, at most that many at a time. This suits an executor that starts a
+ * virtual thread per task, where threads are cheap and connections are the real limit.
+ * <p>
+ * Partitioned, each writer has its own queue, or lane, and callers pick the lane of every
+ * batch. Batches of a lane are written one at a time, in the order they were submitted.
+ */
+final class BatchPipeline {
+    private static final Logger logger = LogManager.getLogger(BatchPipeline.class);
+    private static final long OFFER_TIMEOUT_MS = 100;
+    private static final Batch END_OF_INPUT = new Batch(new ArrayList<>(0), null);
+
+    private final List<BlockingQueue<Batch>> queues;
+    private final BiConsumer<List<Person>, BatchCheckpoint> writer;
+    private final ImportMetrics metrics;
+    private final List<Future<Void>> writers;
+    private final AtomicInteger rowsWritten = new AtomicInteger();
+    private final AtomicInteger batchesFailed = new AtomicInteger();
+    private final ConcurrentLinkedQueue<BatchTiming> timings = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private boolean finished;
+
+    BatchPipeline(ExecutorService executor, int writerCount, int queueDepth,
+                  BiConsumer<List<Person>, BatchCheckpoint> writer, ImportMetrics metrics) {
+        this(executor, writerCount, 1, queueDepth, writer, metrics);
+    }
+
+    /**
+     * One queue and one writer per lane; the queue depth is shared between the lanes.
+     */
+    static BatchPipeline partitioned(ExecutorService executor, int laneCount, int queueDepth,
+                                     BiConsumer<List<Person>, BatchCheckpoint> writer, ImportMetrics metrics) {
+        return new BatchPipeline(executor, laneCount, laneCount, Math.max(1, queueDepth / laneCount), writer, metrics);
+    }
+
+    private BatchPipeline(ExecutorService executor, int writerCount, int queueCount, int queueDepth,
+                          BiConsumer<List<Person>, BatchCheckpoint> writer, ImportMetrics metrics) {
+        this.queues = new ArrayList<>(queueCount);
+        for (int i = 0; i < queueCount; i++) {
+            queues.add(new ArrayBlockingQueue<>(queueDepth));
+        }
+        this.writer = writer;
+        this.metrics = metrics;
+        this.writers = new ArrayList<>(writerCount);
+        for (int i = 0; i < writerCount; i++) {
+            BlockingQueue<Batch> queue = queues.get(i % queueCount);
+            writers.add(executor.submit(() -> drain(queue)));
+        }
+    }
+
+    static BatchPipeline perBatch(ExecutorService executor, int maxConcurrentWrites, int queueDepth,
+                                  BiConsumer<List<Person>, BatchCheckpoint> writer, ImportMetrics metrics) {
+        return new BatchPipeline(executor, new Semaphore(maxConcurrentWrites), maxConcurrentWrites,
+                queueDepth, writer, metrics);
+    }
+
+    private BatchPipeline(ExecutorService executor, Semaphore permits, int maxConcurrentWrites, int queueDepth,
+                          BiConsumer<List<Person>, BatchCheckpoint> writer, ImportMetrics metrics) {
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueDepth);
+        this.queues = List.of(queue);
+        this.writer = writer;
+        this.metrics = metrics;
+        this.writers = new ArrayList<>(1);
+        writers.add(executor.submit(() -> dispatch(queue, executor, permits, maxConcurrentWrites)));
+    }
+
+    void submit(List<Person> batch) {
+        submit(batch, null);
+    }
+
+    void submit(List<Person> batch, BatchCheckpoint checkpoint) {
+        submit(0, batch, checkpoint);
+    }
+
+    void submit(int lane, List<Person> batch, BatchCheckpoint checkpoint) {
+        long start = System.nanoTime();
+        boolean queued = enqueue(lane, new Batch(batch, checkpoint));
+        metrics.recordBackpressure(System.nanoTime() - start);
+        if (!queued) {
+            throw new IllegalStateException("All batch writers have stopped", failure.get());
+        }
+    }
+
+    /**
+     * Waits until every queued batch has been written or has failed. Failed batches are
+     * counted, not thrown; only a writer that stopped unexpectedly raises an exception.
+     */
+    void awaitCompletion() {
+        finish();
+    }
+
+    int getLaneCount() {
+        return queues.size();
+    }
+
+    int getQueueDepth() {
+        return queues.stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    int getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    int getBatchesFailed() {
+        return batchesFailed.get();
+    }
+
+    List<BatchTiming> getTimings() {
+        return new ArrayList<>(timings);
+    }
+
+    Throwable getFirstFailure() {
+        return failure.get();
+    }
+
+    /**
+     * Drops the batches still waiting in the queue and stops the writers. A writer failure
+     * met while stopping is added to {@code cause} as suppressed rather than thrown, so the
+     * error that aborted the import is the one reported.
+     */
+    void abort(Throwable cause) {
+        queues.forEach(BlockingQueue::clear);
+        try {
+            finish();
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+
+        for (int i = 0; i < writers.size(); i++) {
+            enqueue(i % queues.size(), END_OF_INPUT);
+        }
+        Throwable writerFailure = null;
+        for (Future<Void> future : writers) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                writerFailure = writerFailure == null ? e.getCause() : writerFailure;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for writers", e);
+            }
+        }
+        if (writerFailure != null) {
+            throw new IllegalStateException("Batch writer stopped unexpectedly", writerFailure);
+        }
+    }
+
+    private boolean enqueue(int lane, Batch batch) {
+        BlockingQueue<Batch> queue = queues.get(lane);
+        try {
+            while (!queue.offer(batch, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                if (writersDone(lane)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing batch", e);
+        }
+    }
+
+    private boolean writersDone(int lane) {
+        for (int i = lane; i < writers.size(); i += queues.size()) {
+            if (!writers.get(i).isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Void drain(BlockingQueue<Batch> queue) throws InterruptedException {
+        while (true) {
+            Batch next = queue.take();
+            if (next == END_OF_INPUT) {
+                return null;
+            }
+            write(next);
+        }
+    }
+
+    private Void dispatch(BlockingQueue<Batch> queue, ExecutorService executor, Semaphore permits,
+                          int maxConcurrentWrites) throws InterruptedException {
+        try {
+            while (true) {
+                Batch next = queue.take();
+                if (next == END_OF_INPUT) {
+                    return null;
+                }
+                permits.acquire();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            write(next);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+        } finally {
+            // Every permit back means every write started here has completed
+            permits.acquire(maxConcurrentWrites);
+        }
+    }
+
+    private void write(Batch next) {
+        List<Person> batch = next.people;
+        long start = System.nanoTime();
+        try {
+            writer.accept(batch, next.checkpoint);
+            long duration = System.nanoTime() - start;
+            rowsWritten.addAndGet(batch.size());
+            timings.add(new BatchTiming(batch.size(), duration, true));
+            metrics.recordBatch(batch.size(), duration, true);
+            logger.debug("Processed batch of {} people", batch.size());
+        } catch (RuntimeException e) {
+            long duration = System.nanoTime() - start;
+            timings.add(new BatchTiming(batch.size(), duration, false));
+            metrics.recordBatch(batch.size(), duration, false);
+            batchesFailed.incrementAndGet();
+            failure.compareAndSet(null, e);
+            logger.error("Failed to save batch of {} people", batch.size(), e);
+        }
+    }
+
+    private static final class Batch {
+        final List<Person> people;
+        final BatchCheckpoint checkpoint;
+
+        Batch(List<Person> people, BatchCheckpoint checkpoint) {
+            this.people = people;
+            this.checkpoint = checkpoint;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.ministry.importer.service;
+
+import com.ministry.importer.model.Person;
+import com.ministry.importer.model.RowHash;
+import com.ministry.importer.repository.PersonRepository;
+import com.ministry.importer.utility.ContentHash;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Compares the input with the people table as a merge join: both sides come sorted by
+ * matricule and are read in step, one row at a time, so neither is held in memory. A matricule
+ * only in the input is inserted, one only in the table is deleted, and one on both sides is
+ * updated when the content hashes differ. Changes are applied through the repository in
+ * batches of {@code batchSize} and, when a changes file is given, listed in it as CSV.
+ * <p>
+ * When the input has several rows for a matricule, the last one wins, as with an upsert.
+ */
+final class DiffEngine implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(DiffEngine.class);
+    private static final Comparator<String> ORDER = ContentHash.MATRICULE_ORDER;
+    private static final String HEADER = "operation,matricule,prenom,nom,naissance,statut";
+
+    private final PersonRepository repository;
+    private final int batchSize;
+    private final Path changesFile;
+    private final List<Person> inserts = new ArrayList<>();
+    private final List<Person> updates = new ArrayList<>();
+    private final List<String> deletes = new ArrayList<>();
+    private BufferedWriter writer;
+    private Person pending;
+    private long rowsRead;
+    private long rowsDuplicated;
+    private long inserted;
+    private long updated;
+    private long deleted;
+    private long unchanged;
+
+    /**
+     * @param changesFile CSV file listing every change, or null
+     */
+    DiffEngine(PersonRepository repository, int batchSize, Path changesFile) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.repository = repository;
+        this.batchSize = batchSize;
+        this.changesFile = changesFile;
+    }
+
+    /**
+     * @param input the people read, sorted by matricule in {@link ContentHash#MATRICULE_ORDER}
+     * @param table the stored rows, in the same order
+     */
+    void run(Iterator<Person> input, Iterator<RowHash> table) {
+        Person person = nextPerson(input);
+        RowHash row = table.hasNext() ? table.next() : null;
+        while (person != null || row != null) {
+            int order = person == null ? 1 : row == null ? -1 : ORDER.compare(person.getMatricule(), row.getMatricule());
+            if (order < 0) {
+                insert(person);
+                person = nextPerson(input);
+            } else if (order > 0) {
+                String matricule = row.getMatricule();
+                row = skipMatricule(table, matricule);
+                delete(matricule);
+            } else {
+                long hash = ContentHash.of(person.getMatricule(), person.getFirstName(), person.getLastName(),
+                        person.getBirthDate(), person.getStatus());
+                // A matricule stored more than once only stays untouched if every copy matches
+                boolean same = true;
+                String matricule = row.getMatricule();
+                do {
+                    same &= row.getContentHash() == hash;
+                    row = table.hasNext() ? table.next() : null;
+                } while (row != null && row.getMatricule().equals(matricule));
+                if (same) {
+                    unchanged++;
+                } else {
+                    update(person);
+                }
+                person = nextPerson(input);
+            }
+        }
+        flush();
+        logger.info("Diff of {} row(s): {} inserted, {} updated, {} deleted, {} unchanged",
+                rowsRead, inserted, updated, deleted, unchanged);
+    }
+
+    long getRowsRead() {
+        return rowsRead;
+    }
+
+    long getRowsDuplicated() {
+        return rowsDuplicated;
+    }
+
+    long getInserted() {
+        return inserted;
+    }
+
+    long getUpdated() {
+        return updated;
+    }
+
+    long getDeleted() {
+        return deleted;
+    }
+
+    long getUnchanged() {
+        return unchanged;
+    }
+
+    @Override
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'écrire le fichier des changements " + changesFile, e);
+        } finally {
+            writer = null;
+        }
+    }
+
+    /**
+     * The next person of the input, the last of its matricule.
+     */
+    private Person nextPerson(Iterator<Person> input) {
+        Person person = pending;
+        pending = null;
+        if (person == null) {
+            if (!input.hasNext()) {
+                return null;
+            }
+            person = input.next();
+            rowsRead++;
+        }
+        while (input.hasNext()) {
+            Person next = input.next();
+            rowsRead++;
+            if (!next.getMatricule().equals(person.getMatricule())) {
+                pending = next;
+                break;
+            }
+            rowsDuplicated++;
+            person = next;
+        }
+        return person;
+    }
+
+    private static RowHash skipMatricule(Iterator<RowHash> table, String matricule) {
+        while (table.hasNext()) {
+            RowHash row = table.next();
+            if (!row.getMatricule().equals(matricule)) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    private void insert(Person person) {
+        inserted++;
+        record("insert", person.getMatricule(), person);
+        inserts.add(person);
+        if (inserts.size() >= batchSize) {
+            repository.saveAll(new ArrayList<>(inserts));
+            inserts.clear();
+        }
+    }
+
+    private void update(Person person) {
+        updated++;
+        record("update", person.getMatricule(), person);
+        updates.add(person);
+        if (updates.size() >= batchSize) {
+            repository.updateAll(new ArrayList<>(updates));
+            updates.clear();
+        }
+    }
+
+    private void delete(String matricule) {
+        deleted++;
+        record("delete", matricule, null);
+        deletes.add(matricule);
+        if (deletes.size() >= batchSize) {
+            repository.deleteAll(new ArrayList<>(deletes));
+            deletes.clear();
+        }
+    }
+
+    private void flush() {
+        if (!inserts.isEmpty()) {
+            repository.saveAll(new ArrayList<>(inserts));
+            inserts.clear();
+        }
+        if (!updates.isEmpty()) {
+            repository.updateAll(new ArrayList<>(updates));
+            updates.clear();
+        }
+        if (!deletes.isEmpty()) {
+            repository.deleteAll(new ArrayList<>(deletes));
+            deletes.clear();
+        }
+    }
+
+    /**
+     * @param person the new content, or null for a deletion
+     */
+    private void record(String operation, String matricule, Person person) {
+        if (changesFile == null) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(changesFile, StandardCharsets.UTF_8);
+                writer.write(HEADER);
+                writer.newLine();
+            }
+            StringBuilder line = new StringBuilder(operation).append(',').append(RejectCollector.quote(matricule));
+            if (person != null) {
+                line.append(',').append(RejectCollector.quote(person.getFirstName()))
+                        .append(',').append(RejectCollector.quote(person.getLastName()))
+                        .append(',').append(person.getBirthDate() == null ? "" : person.getBirthDate().toString())
+                        .append(',').append(person.getStatus() == null ? "" : RejectCollector.quote(person.getStatus().getLabel()));
+            } else {
+                line.append(",,,,");
+            }
+            writer.write(line.toString());
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'écrire le fichier des changements " + changesFile, e);
+        }
+    }
+}
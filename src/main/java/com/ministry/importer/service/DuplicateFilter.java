@@ -0,0 +1,112 @@
+package com.ministry.importer.service;
+
+import com.ministry.importer.enums.DuplicatePolicy;
+import com.ministry.importer.model.Person;
+import com.ministry.importer.model.RejectedRow;
+import com.ministry.importer.utility.MatriculeIndex;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Applies the duplicate policy of one import to the matricules it reads. A row is identified
+ * by its position: the index of its source and its ordinal within it, which is the same on
+ * every read of an unchanged source.
+ * <p>
+ * Keeping the first row of a single source can be decided as rows arrive. The other cases
+ * depend on rows not read yet, or on the order in which concurrent sources are read, so the
+ * input is read once beforehand through {@link #prescan} to find the position that wins for
+ * each matricule.
+ */
+final class DuplicateFilter implements AutoCloseable {
+    private static final long DUPLICATED = Long.MAX_VALUE;
+    private static final int ORDINAL_BITS = 40;
+
+    private final DuplicatePolicy policy;
+    private final MatriculeIndex index;
+    private final boolean prescanned;
+    private final LongAdder duplicates = new LongAdder();
+
+    DuplicateFilter(DuplicatePolicy policy, Path directory, int sourceCount) {
+        if (policy == DuplicatePolicy.KEEP) {
+            throw new IllegalArgumentException("Nothing to filter with policy " + policy);
+        }
+        this.policy = policy;
+        this.index = new MatriculeIndex(directory);
+        this.prescanned = policy != DuplicatePolicy.FIRST_WINS || sourceCount > 1;
+    }
+
+    boolean needsPrescan() {
+        return prescanned;
+    }
+
+    void prescan(int source, long ordinal, String matricule) {
+        long position = position(source, ordinal);
+        switch (policy) {
+            case FIRST_WINS:
+                index.merge(matricule, position, Math::min);
+                break;
+            case LAST_WINS:
+                index.merge(matricule, position, Math::max);
+                break;
+            default:
+                index.merge(matricule, position, (existing, next) -> DUPLICATED);
+                break;
+        }
+    }
+
+    /**
+     * Returns whether the row is to be written. Under {@link DuplicatePolicy#REJECT} every row
+     * of a duplicated matricule is handed to {@code rejects}; otherwise the rows left out are
+     * only counted.
+     */
+    boolean accept(int source, long ordinal, Person person, long sourceRow, String sourceName,
+                   Consumer<RejectedRow> rejects) {
+        long position = position(source, ordinal);
+        if (prescanned) {
+            long winner = index.get(person.getMatricule());
+            if (winner == position || winner == MatriculeIndex.ABSENT) {
+                return true;
+            }
+        } else if (index.putIfAbsent(person.getMatricule(), position) == MatriculeIndex.ABSENT) {
+            return true;
+        }
+
+        if (policy == DuplicatePolicy.REJECT) {
+            rejects.accept(new RejectedRow(sourceName, sourceRow, values(person),
+                    "Matricule en double: " + person.getMatricule()));
+        } else {
+            duplicates.increment();
+        }
+        return false;
+    }
+
+    /**
+     * Rows left out because another row of the same matricule won.
+     */
+    long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    long getDistinctMatricules() {
+        return index.size();
+    }
+
+    @Override
+    public void close() {
+        index.close();
+    }
+
+    static long position(int source, long ordinal) {
+        return ((long) source << ORDINAL_BITS) | ordinal;
+    }
+
+    private static List<String> values(Person person) {
+        return Arrays.asList(person.getMatricule(), person.getFirstName(), person.getLastName(),
+                person.getBirthDate() == null ? null : person.getBirthDate().toString(),
+                person.getStatus() == null ? null : person.getStatus().getLabel());
+    }
+}
@@ -0,0 +1,169 @@
+package com.ministry.importer.service;
+
+import com.ministry.importer.model.BatchCheckpoint;
+import com.ministry.importer.model.Person;
+import com.ministry.importer.model.PersonBatch;
+import com.ministry.importer.repository.PersonRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Batches already committed for one file, read from the import journal. The import id is a
+ * fingerprint of the file's path, size and modification time, so a rerun of the same file
+ * resumes while a modified file is imported from scratch.
+ */
+final class ImportJournal {
+    private final String importId;
+    // Committed row ranges of each source: first row -> end row (exclusive)
+    private final Map<String, NavigableMap<Long, Long>> committed = new HashMap<>();
+
+    private ImportJournal(String importId, List<BatchCheckpoint> checkpoints) {
+        this.importId = importId;
+        for (BatchCheckpoint checkpoint : checkpoints) {
+            committed.computeIfAbsent(checkpoint.getSource(), source -> new TreeMap<>())
+                    .put(checkpoint.getFirstRow(), checkpoint.getEndRow());
+        }
+    }
+
+    static ImportJournal load(PersonRepository repository, String filePath) {
+        String importId = importId(filePath);
+        return new ImportJournal(importId, repository.findCheckpoints(importId));
+    }
+
+    static String importId(String filePath) {
+        Path path = Paths.get(filePath).toAbsolutePath().normalize();
+        try {
+            String identity = path + "\n" + Files.size(path) + "\n" + Files.getLastModifiedTime(path).toMillis();
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(identity.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de lire le fichier " + filePath, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    String getImportId() {
+        return importId;
+    }
+
+    int getCommittedBatchCount() {
+        return committed.values().stream().mapToInt(Map::size).sum();
+    }
+
+    Batcher batcher(String source, IntSupplier batchSize, BiConsumer<List<Person>, BatchCheckpoint> submit) {
+        return new Batcher(source, committed.getOrDefault(source, new TreeMap<>()), batchSize, submit);
+    }
+
+    /**
+     * Groups the people of one source into batches of consecutive rows, each tagged with its
+     * checkpoint, and drops the rows that an earlier run already committed.
+     * <p>
+     * Rows are numbered in the order they are added, unless their position in the source is
+     * given. A batcher that gets only some rows of a source, such as one hash lane, then
+     * records ranges that hold every row it was given between their bounds.
+     */
+    final class Batcher {
+        private final String source;
+        private final NavigableMap<Long, Long> ranges;
+        private final IntSupplier batchSize;
+        private final BiConsumer<List<Person>, BatchCheckpoint> submit;
+        private List<Person> batch;
+        private long batchStart;
+        private long batchEnd;
+        private long nextRow;
+        private int rowsAdded;
+        private int rowsSkipped;
+
+        private Batcher(String source, NavigableMap<Long, Long> ranges, IntSupplier batchSize,
+                        BiConsumer<List<Person>, BatchCheckpoint> submit) {
+            this.source = source;
+            this.ranges = ranges;
+            this.batchSize = batchSize;
+            this.submit = submit;
+            this.batch = new PersonBatch(batchSize.getAsInt());
+        }
+
+        void add(Person person) {
+            add(person, nextRow);
+        }
+
+        void add(Person person, long row) {
+            nextRow = row + 1;
+            if (isCommitted(row)) {
+                // Keep batches contiguous so that each one is described by a single range
+                flush();
+                rowsSkipped++;
+                return;
+            }
+
+            if (batch.isEmpty()) {
+                batchStart = row;
+            }
+            batch.add(person);
+            batchEnd = row + 1;
+            rowsAdded++;
+            if (batch.size() >= batchSize.getAsInt()) {
+                flush();
+            }
+        }
+
+        /**
+         * Counts a row that is deliberately not written, such as a duplicate, so that the
+         * positions of the following rows stay the same. Inside a batch, the row becomes part
+         * of its range and is not read again on resume.
+         */
+        void discard() {
+            discard(nextRow);
+        }
+
+        void discard(long row) {
+            nextRow = row + 1;
+            if (isCommitted(row)) {
+                flush();
+            } else if (!batch.isEmpty()) {
+                batchEnd = row + 1;
+            }
+        }
+
+        private boolean isCommitted(long row) {
+            Map.Entry<Long, Long> range = ranges.floorEntry(row);
+            return range != null && row < range.getValue();
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Person> full = batch;
+            batch = new PersonBatch(batchSize.getAsInt());
+            submit.accept(full, new BatchCheckpoint(importId, source, batchStart, (int) (batchEnd - batchStart)));
+        }
+
+        int getRowsAdded() {
+            return rowsAdded;
+        }
+
+        int getRowsSkipped() {
+            return rowsSkipped;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.ministry.importer.service;
+
+import com.ministry.importer.enums.DuplicatePolicy;
+import com.ministry.importer.enums.WriterThreads;
+import com.ministry.importer.utility.ConfigLoader;
+
+import java.util.Properties;
+
+/**
+ * Settings of a {@link ParallelImportService}. Starts from the defaults, or from the
+ * {@code import.*} properties with {@link #fromConfig}; each setter returns the options so
+ * that only what differs needs to be set.
+ */
+public final class ImportOptions {
+    private static final int BATCH_SIZE = 1000;
+    private static final int QUEUE_DEPTH_PER_WRITER = 2;
+    private static final int MAX_OPEN_FILES = 4;
+    private static final int MAX_REJECTS = 0;
+
+    private int batchSize = BATCH_SIZE;
+    private int minBatchSize = BATCH_SIZE;
+    private int maxBatchSize = BATCH_SIZE;
+    private int writers = Runtime.getRuntime().availableProcessors();
+    private Integer queueDepth;
+    private int maxOpenFiles = MAX_OPEN_FILES;
+    private int maxRejects = MAX_REJECTS;
+    private String rejectsFile;
+    private WriterThreads writerThreads = WriterThreads.PLATFORM;
+    private DuplicatePolicy duplicatePolicy = DuplicatePolicy.KEEP;
+    private String duplicatesDirectory;
+    private boolean hashLanes;
+
+    public static ImportOptions fromConfig(Properties config) {
+        int batchSize = ConfigLoader.getInt(config, "import.batch.size", BATCH_SIZE);
+        ImportOptions options = new ImportOptions()
+                .batchSize(batchSize,
+                        ConfigLoader.getInt(config, "import.batch.min", batchSize),
+                        ConfigLoader.getInt(config, "import.batch.max", batchSize))
+                .maxOpenFiles(ConfigLoader.getInt(config, "import.max.open.files", MAX_OPEN_FILES))
+                .maxRejects(ConfigLoader.getInt(config, "import.max.rejects", MAX_REJECTS))
+                .rejectsFile(config.getProperty("import.rejects.file"))
+                .writerThreads(WriterThreads.fromConfig(config.getProperty("import.writer.threads")))
+                .duplicates(DuplicatePolicy.fromConfig(config.getProperty("import.duplicates")))
+                .duplicatesDirectory(config.getProperty("import.duplicates.dir"))
+                .hashLanes(Boolean.parseBoolean(config.getProperty("import.hash.lanes", "false").trim()));
+        options.writers(ConfigLoader.getInt(config, "import.writers", options.writers));
+        return options.queueDepth(ConfigLoader.getInt(config, "import.queue.depth", options.getQueueDepth()));
+    }
+
+    /**
+     * A fixed batch size.
+     */
+    public ImportOptions batchSize(int batchSize) {
+        return batchSize(batchSize, batchSize, batchSize);
+    }
+
+    /**
+     * A batch size tuned between {@code min} and {@code max} by an {@link AdaptiveBatchSizer}.
+     */
+    public ImportOptions batchSize(int initial, int min, int max) {
+        this.batchSize = initial;
+        this.minBatchSize = min;
+        this.maxBatchSize = max;
+        return this;
+    }
+
+    public ImportOptions writers(int writers) {
+        this.writers = writers;
+        return this;
+    }
+
+    /**
+     * Batches waiting for a writer. Defaults to two per writer.
+     */
+    public ImportOptions queueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+        return this;
+    }
+
+    public ImportOptions maxOpenFiles(int maxOpenFiles) {
+        this.maxOpenFiles = maxOpenFiles;
+        return this;
+    }
+
+    /**
+     * Rows that may be rejected before the import is aborted, or -1 for no limit.
+     */
+    public ImportOptions maxRejects(int maxRejects) {
+        this.maxRejects = maxRejects;
+        return this;
+    }
+
+    /**
+     * CSV file receiving the rejected rows, or null to only count them.
+     */
+    public ImportOptions rejectsFile(String rejectsFile) {
+        this.rejectsFile = rejectsFile;
+        return this;
+    }
+
+    /**
+     * {@link WriterThreads#VIRTUAL} falls back to platform threads before Java 21.
+     */
+    public ImportOptions writerThreads(WriterThreads writerThreads) {
+        this.writerThreads = writerThreads;
+        return this;
+    }
+
+    public ImportOptions duplicates(DuplicatePolicy duplicatePolicy) {
+        this.duplicatePolicy = duplicatePolicy;
+        return this;
+    }
+
+    /**
+     * Where the matricule index is kept, or null for the temporary directory.
+     */
+    public ImportOptions duplicatesDirectory(String duplicatesDirectory) {
+        this.duplicatesDirectory = duplicatesDirectory;
+        return this;
+    }
+
+    /**
+     * Route rows to one lane per writer by a hash of their matricule.
+     */
+    public ImportOptions hashLanes(boolean hashLanes) {
+        this.hashLanes = hashLanes;
+        return this;
+    }
+
+    AdaptiveBatchSizer newBatchSizer() {
+        return new AdaptiveBatchSizer(batchSize, minBatchSize, maxBatchSize);
+    }
+
+    int getWriters() {
+        return writers;
+    }
+
+    int getQueueDepth() {
+        return queueDepth != null ? queueDepth : writers * QUEUE_DEPTH_PER_WRITER;
+    }
+
+    int getMaxOpenFiles() {
+        return maxOpenFiles;
+    }
+
+    int getMaxRejects() {
+        return maxRejects;
+    }
+
+    String getRejectsFile() {
+        return rejectsFile;
+    }
+
+    WriterThreads getWriterThreads() {
+        return writerThreads;
+    }
+
+    DuplicatePolicy getDuplicatePolicy() {
+        return duplicatePolicy;
+    }
+
+    String getDuplicatesDirectory() {
+        return duplicatesDirectory;
+    }
+
+    boolean isHashLanes() {
+        return hashLanes;
+    }
+}
@@ -1,75 +1,575 @@
 package com.ministry.importer.service;
 
+import com.ministry.importer.enums.DuplicatePolicy;
+import com.ministry.importer.enums.WriterThreads;
+import com.ministry.importer.metrics.ImportMetrics;
+import com.ministry.importer.model.BatchCheckpoint;
+import com.ministry.importer.model.DiffResult;
+import com.ministry.importer.model.ImportResult;
 import com.ministry.importer.model.Person;
+import com.ministry.importer.model.PersonBatch;
+import com.ministry.importer.model.RejectedRow;
+import com.ministry.importer.model.RowHash;
+import com.ministry.importer.model.ValidationReport;
+import com.ministry.importer.parser.CsvStreamParser;
 import com.ministry.importer.parser.ExcelStreamParser;
+import com.ministry.importer.parser.RowListener;
 import com.ministry.importer.repository.PersonRepository;
 import com.ministry.importer.utility.BatchProcessor;
+import com.ministry.importer.utility.ConcurrentBatchProcessor;
+import com.ministry.importer.utility.ConfigLoader;
 
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
+/**
+ * Imports a file as a pipeline: the parser reads rows on its own thread, the calling thread
+ * maps them to {@link Person} and groups them into batches, and a pool of writers saves the
+ * batches. Stages are connected by bounded queues, so a slow database throttles the parser
+ * instead of piling batches up in memory.
+ * <p>
+ * Several files or sheets are read concurrently, at most {@code maxOpenFiles} at a time,
+ * and feed the same writer pool. CSV and TSV files are split into that many chunks instead.
+ * <p>
+ * Rows that cannot be mapped are written to the rejects file, when one is configured, and
+ * skipped. The import only fails once more than {@code maxRejects} rows have been rejected.
+ * <p>
+ * When the repository keeps an import journal, every batch is recorded with the data it
+ * carries, and a rerun of an unchanged file skips the rows that already landed. CSV rows are
+ * recorded by their row number in the file, so a rerun resumes however the file is split.
+ * <p>
+ * Rows sharing a matricule within the import are kept, or resolved by a {@link DuplicatePolicy}
+ * backed by an index held off the heap.
+ * <p>
+ * The batch size comes from an {@link AdaptiveBatchSizer}, which tunes it from the write
+ * time of each batch when given a range rather than a fixed size.
+ * <p>
+ * Writers are platform threads by default. On Java 21, {@link WriterThreads#VIRTUAL} writes
+ * each batch on its own virtual thread instead, as many at once as the connection pool allows.
+ * <p>
+ * When the repository does bulk loads and the people table is empty, the import goes through
+ * its bulk load, which defers indexes and constraints to the end.
+ * <p>
+ * With hash lanes, each writer gets its own lane and rows are routed by a hash of their
+ * matricule, so that all the writes of a matricule go through the same writer, in order.
+ * The journal then records the batches per lane: the writer count must stay the same for a
+ * rerun to resume.
+ * <p>
+ * {@link #diffFiles} writes only what differs from the people table, deleting the people
+ * missing from the input. {@link #validateFiles} only reads and checks the input. A service built with
+ * {@link #forValidation} does not connect to the database at all.
+ */
 public class ParallelImportService implements AutoCloseable {
     private static final Logger logger = LogManager.getLogger(ParallelImportService.class);
-    private static final int BATCH_SIZE = 1000;
     private static final int THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    // Every chunk of a CSV file journals its rows by their line in the file, under one key
+    private static final String CSV_ROWS_KEY = "rows";
 
     private final ExcelStreamParser excelParser;
+    private final CsvStreamParser csvParser = new CsvStreamParser();
     private final PersonRepository personRepository;
     private final ExecutorService executor;
-    private final BatchProcessor<Person> batchProcessor;
+    private final boolean virtualWriters;
+    private final AdaptiveBatchSizer batchSizer;
+    private final int writerCount;
+    private final int queueDepth;
+    private final int maxOpenFiles;
+    private final int maxRejects;
+    private final Path rejectsFile;
+    private final DuplicatePolicy duplicatePolicy;
+    private final Path duplicatesDirectory;
+    private final boolean hashLanes;
+    private final ImportMetrics metrics;
+
+    /**
+     * A service reading its {@link ImportOptions} and database settings from the configuration.
+     */
+    public static ParallelImportService fromConfig(Properties config) {
+        return new ParallelImportService(config);
+    }
+
+    /**
+     * A service that can only {@link #validateFiles validate} files: it has no repository and
+     * never connects to the database.
+     */
+    public static ParallelImportService forValidation(Properties config) {
+        return new ParallelImportService(new ExcelStreamParser(), null, ImportOptions.fromConfig(config));
+    }
 
     public ParallelImportService() {
-        this(new ExcelStreamParser(), new PersonRepository(), BATCH_SIZE, THREAD_POOL_SIZE);
+        this(ConfigLoader.load());
+    }
+
+    private ParallelImportService(Properties config) {
+        this(new ExcelStreamParser(), PersonRepository.fromConfig(config), ImportOptions.fromConfig(config));
     }
 
     public ParallelImportService(ExcelStreamParser excelParser, PersonRepository personRepository, int batchSize, int threadPoolSize) {
+        this(excelParser, personRepository, new ImportOptions().batchSize(batchSize).writers(threadPoolSize));
+    }
+
+    /**
+     * Batch sizes are checked by the {@link AdaptiveBatchSizer} the options create.
+     */
+    public ParallelImportService(ExcelStreamParser excelParser, PersonRepository personRepository, ImportOptions options) {
+        if (options.getWriters() < 1 || options.getQueueDepth() < 1 || options.getMaxOpenFiles() < 1) {
+            throw new IllegalArgumentException("Writer count, queue depth and open files must be positive");
+        }
+        this.batchSizer = options.newBatchSizer();
         this.excelParser = excelParser;
         this.personRepository = personRepository;
-        this.executor = Executors.newFixedThreadPool(threadPoolSize);
-        this.batchProcessor = new BatchProcessor<>(batchSize, this::processBatch);
+        ExecutorService virtualExecutor = options.getWriterThreads() == WriterThreads.VIRTUAL
+                ? newVirtualThreadExecutor() : null;
+        this.virtualWriters = virtualExecutor != null;
+        this.executor = virtualWriters ? virtualExecutor : Executors.newFixedThreadPool(options.getWriters());
+        this.writerCount = options.getWriters();
+        this.queueDepth = options.getQueueDepth();
+        this.maxOpenFiles = options.getMaxOpenFiles();
+        this.maxRejects = options.getMaxRejects();
+        this.rejectsFile = toPath(options.getRejectsFile());
+        this.duplicatePolicy = options.getDuplicatePolicy();
+        this.duplicatesDirectory = toPath(options.getDuplicatesDirectory());
+        this.hashLanes = options.isHashLanes();
+        this.metrics = new ImportMetrics(personRepository);
+    }
+
+    private static Path toPath(String value) {
+        return value == null || value.trim().isEmpty() ? null : Paths.get(value.trim());
+    }
+
+    /**
+     * Looked up reflectively so that the sources still compile for Java 11.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Virtual threads need Java 21, running {} on platform threads instead",
+                    System.getProperty("java.version"));
+            return null;
+        }
     }
 
+    /**
+     * Imports the file and returns the number of people written, once every batch has been saved.
+     * Fails if any batch could not be written.
+     */
     public int importFromFile(String filePath) {
-        AtomicInteger totalImported = new AtomicInteger(0);
-
-        try (Stream<Person> personStream = excelParser.parseAsStream(filePath)) {
-            personStream
-                .parallel()
-                .forEach(person -> {
-                    batchProcessor.add(person);
-                    totalImported.incrementAndGet();
-                });
+        ImportResult result = importFile(filePath);
+        if (result.getBatchesFailed() > 0) {
+            throw new RuntimeException("Failed to import data",
+                    new IllegalStateException(result.getBatchesFailed() + " batch(es) could not be saved"));
+        }
+        return result.getRowsWritten();
+    }
 
-            batchProcessor.flush();
+    /**
+     * Imports the file and waits for every batch write to complete. Batches that fail are
+     * reported in the result rather than aborting the import.
+     */
+    public ImportResult importFile(String filePath) {
+        if (CsvStreamParser.supports(filePath)) {
+            try {
+                return importSources(csvSources(filePath, maxOpenFiles), filePath);
+            } catch (UncheckedIOException e) {
+                logger.error("Error during import", e);
+                throw new RuntimeException("Failed to import data", e);
+            }
+        }
+        return importSources(List.of(new ImportSource(filePath, sheetKey(0), filePath, false,
+                rejects -> excelParser.parseAsStream(filePath, rejects))), filePath);
+    }
 
-            return totalImported.get();
+    /**
+     * Imports several workbooks, and every sheet of each when {@code allSheets} is set. Sheets
+     * are read concurrently, at most {@code maxOpenFiles} at once, into a shared writer pool.
+     */
+    public ImportResult importFiles(List<String> filePaths, boolean allSheets) {
+        List<ImportSource> sources;
+        try {
+            sources = sources(filePaths, allSheets, maxOpenFiles);
         } catch (Exception e) {
             logger.error("Error during import", e);
             throw new RuntimeException("Failed to import data", e);
         }
+
+        logger.info("Importing {} sheet(s) or chunk(s) from {} file(s)", sources.size(), filePaths.size());
+        return importSources(sources, filePaths.size() + " file(s)");
     }
 
-    private void processBatch(List<Person> batch) {
-        if (batch.isEmpty()) {
-            return;
+    /**
+     * Reads the files as {@link #importFiles} would and reports what an import would make of
+     * them, without writing anything. Sources are read on every core, CSV files being split in
+     * as many chunks, and the rows are only mapped, validated and checked for duplicated
+     * matricules. Rejected rows still go to the rejects file, with no budget.
+     */
+    public ValidationReport validateFiles(List<String> filePaths, boolean allSheets) {
+        long startTime = System.nanoTime();
+        int parallelism = Math.max(maxOpenFiles, THREAD_POOL_SIZE);
+        try (RejectCollector collector = new RejectCollector(-1, rejectsFile);
+             ValidationCollector validation = new ValidationCollector(duplicatesDirectory)) {
+            List<ImportSource> sources = sources(filePaths, allSheets, parallelism);
+            logger.info("Validating {} sheet(s) or chunk(s) from {} file(s)", sources.size(), filePaths.size());
+            Consumer<RejectedRow> rejects = validation.andThen(collector);
+            readSources(sources, parallelism, source -> {
+                ValidationCollector.Source rows = validation.source();
+                try (Stream<Person> personStream = source.open.apply(rows.listener(rejects))) {
+                    personStream.forEach(rows);
+                }
+                rows.flush();
+            });
+            return validation.report(sources.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        } catch (Exception e) {
+            logger.error("Error during validation", e);
+            throw new RuntimeException("Failed to validate data", e);
+        }
+    }
+
+    /**
+     * Brings the people table in line with the files: people not in the table are inserted,
+     * people whose content changed are updated and people no longer in the files are deleted.
+     * The input is sorted by matricule on disk, then merged with a sorted scan of the table by
+     * a {@link DiffEngine}, so only the changes are written.
+     *
+     * @param changesFile CSV file listing the changes applied, or null
+     */
+    public DiffResult diffFiles(List<String> filePaths, boolean allSheets, String changesFile) {
+        requireRepository();
+        long startTime = System.nanoTime();
+        try (RejectCollector collector = new RejectCollector(maxRejects, rejectsFile);
+             PersonSorter sorter = new PersonSorter(duplicatesDirectory);
+             DiffEngine diff = new DiffEngine(personRepository, batchSizer.getBatchSize(), toPath(changesFile))) {
+            List<ImportSource> sources = sources(filePaths, allSheets, maxOpenFiles);
+            logger.info("Comparing {} sheet(s) or chunk(s) from {} file(s) with the people table",
+                    sources.size(), filePaths.size());
+            readSources(sources, source -> {
+                int sourceIndex = sources.indexOf(source);
+                long[] ordinal = new long[1];
+                read(source, collector, person -> sorter.add(person, DuplicateFilter.position(sourceIndex, ordinal[0]++)));
+            });
+            logger.info("Sorted the input in {} run(s) in {} ms", Math.max(1, sorter.getRunCount()),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            try (Stream<RowHash> table = personRepository.scanRowHashes()) {
+                diff.run(sorter.sorted(), table.iterator());
+            }
+            return new DiffResult(diff.getRowsRead(), collector.getCount(), diff.getRowsDuplicated(),
+                    diff.getInserted(), diff.getUpdated(), diff.getDeleted(), diff.getUnchanged(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        } catch (Exception e) {
+            logger.error("Error during diff", e);
+            throw new RuntimeException("Failed to import data", e);
+        } finally {
+            personRepository.releaseSessions();
+        }
+    }
+
+    private void requireRepository() {
+        if (personRepository == null) {
+            throw new IllegalStateException("This service only validates files, it has no repository");
+        }
+    }
+
+    private List<ImportSource> sources(List<String> filePaths, boolean allSheets, int chunks) {
+        List<ImportSource> sources = new ArrayList<>();
+        for (String filePath : filePaths) {
+            if (CsvStreamParser.supports(filePath)) {
+                sources.addAll(csvSources(filePath, chunks));
+                continue;
+            }
+            int sheetCount = allSheets ? excelParser.getSheetCount(filePath) : 1;
+            for (int sheet = 0; sheet < sheetCount; sheet++) {
+                int sheetIndex = sheet;
+                sources.add(new ImportSource(filePath, sheetKey(sheetIndex),
+                        ExcelStreamParser.sourceName(filePath, sheetIndex), false,
+                        rejects -> excelParser.parseSheet(filePath, sheetIndex, rejects)));
+            }
+        }
+        return sources;
+    }
+
+    private List<ImportSource> csvSources(String filePath, int chunks) {
+        List<ImportSource> sources = new ArrayList<>();
+        for (CsvStreamParser.Chunk chunk : csvParser.split(filePath, chunks)) {
+            sources.add(new ImportSource(filePath, CSV_ROWS_KEY, filePath, true,
+                    rejects -> csvParser.parseChunk(chunk, rejects)));
+        }
+        return sources;
+    }
+
+    private static String sheetKey(int sheetIndex) {
+        return "sheet-" + sheetIndex;
+    }
+
+    private ImportResult importSources(List<ImportSource> sources, String description) {
+        requireRepository();
+        long startTime = System.nanoTime();
+        AtomicInteger rowsParsed = new AtomicInteger();
+        AtomicInteger rowsSkipped = new AtomicInteger();
+        long rowsDuplicated = 0;
+        BatchPipeline pipeline = newPipeline();
+        batchSizer.reset();
+        metrics.start(pipeline::getQueueDepth);
+        int rowsRejected;
+        boolean bulkLoad = false;
+
+        try (RejectCollector collector = new RejectCollector(maxRejects, rejectsFile);
+             DuplicateFilter duplicates = duplicatePolicy == DuplicatePolicy.KEEP
+                     ? null : new DuplicateFilter(duplicatePolicy, duplicatesDirectory, sources.size())) {
+            Consumer<RejectedRow> rejects = row -> {
+                metrics.recordRowRejected();
+                collector.accept(row);
+            };
+            if (duplicates != null && duplicates.needsPrescan()) {
+                prescan(sources, duplicates);
+            }
+            bulkLoad = personRepository.isBulkLoadEnabled() && personRepository.beginBulkLoad();
+            // A bulk load only lands with its final swap, there is nothing to resume
+            Map<String, ImportJournal> journals = bulkLoad ? Map.of() : loadJournals(sources);
+            int lanes = pipeline.getLaneCount();
+            List<BatchProcessor<Person>> batchProcessors = new ArrayList<>(lanes);
+            for (int lane = 0; lane < lanes; lane++) {
+                int target = lane;
+                batchProcessors.add(new ConcurrentBatchProcessor<>(batchSizer::getBatchSize, PersonBatch::new,
+                        batch -> pipeline.submit(target, batch, null)));
+            }
+            readSources(sources, source -> {
+                int sourceIndex = sources.indexOf(source);
+                long[] ordinal = new long[1];
+                SourceRows rows = new SourceRows(rejects);
+                Predicate<Person> unique = duplicates == null ? person -> true
+                        : person -> duplicates.accept(sourceIndex, ordinal[0]++, person, rows.lastRow, source.name,
+                                rejects);
+                ImportJournal journal = journals.get(source.filePath);
+                if (journal == null) {
+                    read(source, rows, person -> {
+                        if (unique.test(person)) {
+                            batchProcessors.get(laneOf(person, lanes)).add(person);
+                            rowsParsed.incrementAndGet();
+                            metrics.recordRowParsed();
+                        }
+                    });
+                    return;
+                }
+                // Journaled sources are batched on their own so that each batch is one row range
+                List<ImportJournal.Batcher> batchers = new ArrayList<>(lanes);
+                for (int lane = 0; lane < lanes; lane++) {
+                    int target = lane;
+                    batchers.add(journal.batcher(lanes == 1 ? source.key : source.key + "/lane-" + lane,
+                            batchSizer::getBatchSize, (batch, checkpoint) -> pipeline.submit(target, batch, checkpoint)));
+                }
+                long[] position = new long[1];
+                read(source, rows, person -> {
+                    ImportJournal.Batcher batcher = batchers.get(laneOf(person, lanes));
+                    long row = source.fileRows ? rows.lastRow : position[0]++;
+                    if (unique.test(person)) {
+                        batcher.add(person, row);
+                        metrics.recordRowParsed();
+                    } else {
+                        batcher.discard(row);
+                    }
+                });
+                for (ImportJournal.Batcher batcher : batchers) {
+                    batcher.flush();
+                    rowsParsed.addAndGet(batcher.getRowsAdded());
+                    rowsSkipped.addAndGet(batcher.getRowsSkipped());
+                    metrics.recordRowsSkipped(batcher.getRowsSkipped());
+                }
+            });
+            batchProcessors.forEach(BatchProcessor::close);
+            pipeline.awaitCompletion();
+            if (bulkLoad) {
+                personRepository.finishBulkLoad();
+            }
+            if (pipeline.getBatchesFailed() == 0) {
+                clearJournals(journals.values());
+            }
+            rowsRejected = collector.getCount();
+            if (duplicates != null) {
+                rowsDuplicated = duplicates.getDuplicates();
+                logger.info("{} distinct matricule(s) in {}", duplicates.getDistinctMatricules(), description);
+            }
+        } catch (Exception e) {
+            pipeline.abort(e);
+            if (bulkLoad) {
+                personRepository.abortBulkLoad();
+            }
+            logger.error("Error during import", e);
+            throw new RuntimeException("Failed to import data", e);
+        } finally {
+            // Writers keep their connection and statements for the whole import
+            personRepository.releaseSessions();
+            metrics.finish();
         }
 
-        executor.submit(() -> {
+        if (rowsSkipped.get() > 0) {
+            logger.info("Skipped {} row(s) of {} already imported by a previous run", rowsSkipped.get(), description);
+        }
+        if (rowsDuplicated > 0) {
+            logger.warn("{} row(s) of {} left out as duplicated matricules ({})", rowsDuplicated, description,
+                    duplicatePolicy);
+        }
+        if (rowsRejected > 0) {
+            logger.warn("{} row(s) rejected while importing {}{}", rowsRejected, description,
+                    rejectsFile != null ? ", see " + rejectsFile : "");
+        }
+
+        if (batchSizer.isAdaptive()) {
+            logger.info("Batch sizes chosen while importing {}: {}", description, batchSizer.getHistory());
+        }
+        if (pipeline.getBatchesFailed() > 0) {
+            logger.error("{} batch(es) failed while importing {}", pipeline.getBatchesFailed(), description,
+                    pipeline.getFirstFailure());
+        }
+        return new ImportResult(rowsParsed.get(), pipeline.getRowsWritten(), rowsRejected, rowsSkipped.get(),
+                (int) rowsDuplicated, pipeline.getBatchesFailed(), pipeline.getTimings(), batchSizer.getHistory(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    private BatchPipeline newPipeline() {
+        if (hashLanes) {
+            return BatchPipeline.partitioned(executor, writerCount, queueDepth, this::save, metrics);
+        }
+        if (!virtualWriters) {
+            return new BatchPipeline(executor, writerCount, queueDepth, this::save, metrics);
+        }
+        // Any more concurrent writes would only queue up inside the connection pool
+        int poolSize = personRepository.getMaximumPoolSize();
+        return BatchPipeline.perBatch(executor, poolSize > 0 ? poolSize : writerCount, queueDepth, this::save, metrics);
+    }
+
+    static int laneOf(Person person, int lanes) {
+        String matricule = person.getMatricule();
+        return lanes == 1 || matricule == null ? 0 : Math.floorMod(matricule.hashCode(), lanes);
+    }
+
+    /**
+     * Reads the whole input once to find, for each matricule, the row the policy keeps.
+     * Invalid rows are left out silently; they are reported by the import pass.
+     */
+    private void prescan(List<ImportSource> sources, DuplicateFilter duplicates) throws Exception {
+        long start = System.nanoTime();
+        readSources(sources, source -> {
+            int sourceIndex = sources.indexOf(source);
+            long[] ordinal = new long[1];
+            try (Stream<Person> personStream = source.open.apply(row -> { })) {
+                personStream.forEach(person -> duplicates.prescan(sourceIndex, ordinal[0]++, person.getMatricule()));
+            }
+        });
+        logger.info("Scanned {} source(s) for duplicated matricules in {} ms", sources.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Once every batch landed there is nothing left to resume. A journal that cannot be cleared
+     * only means a later import of the unchanged file skips its rows, so it does not fail the import.
+     */
+    private void clearJournals(Collection<ImportJournal> journals) {
+        for (ImportJournal journal : journals) {
             try {
+                personRepository.clearCheckpoints(journal.getImportId());
+            } catch (RuntimeException e) {
+                logger.warn("Failed to clear the import journal of {}", journal.getImportId(), e);
+            }
+        }
+    }
+
+    private Map<String, ImportJournal> loadJournals(List<ImportSource> sources) {
+        Map<String, ImportJournal> journals = new HashMap<>();
+        if (!personRepository.isJournalEnabled()) {
+            return journals;
+        }
+        for (ImportSource source : sources) {
+            journals.computeIfAbsent(source.filePath, filePath -> {
+                ImportJournal journal = ImportJournal.load(personRepository, filePath);
+                if (journal.getCommittedBatchCount() > 0) {
+                    logger.info("Resuming import of {}: {} batch(es) already committed",
+                            filePath, journal.getCommittedBatchCount());
+                }
+                return journal;
+            });
+        }
+        return journals;
+    }
+
+    private void save(List<Person> batch, BatchCheckpoint checkpoint) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            if (checkpoint == null) {
                 personRepository.saveAll(batch);
-                logger.debug("Processed batch of {} people", batch.size());
-            } catch (Exception e) {
-                logger.error("Failed to save batch", e);
-                throw new RuntimeException(e);
+            } else {
+                personRepository.saveAll(batch, checkpoint);
             }
-        });
+            succeeded = true;
+        } finally {
+            batchSizer.record(batch.size(), System.nanoTime() - start, succeeded);
+        }
     }
-    
+
+    private void readSources(List<ImportSource> sources, Consumer<ImportSource> task) throws Exception {
+        readSources(sources, maxOpenFiles, task);
+    }
+
+    private void readSources(List<ImportSource> sources, int parallelism, Consumer<ImportSource> task)
+            throws Exception {
+        if (sources.size() == 1) {
+            task.accept(sources.get(0));
+            return;
+        }
+
+        ExecutorService readers = Executors.newFixedThreadPool(Math.min(parallelism, sources.size()));
+        try {
+            List<Future<?>> futures = new ArrayList<>(sources.size());
+            for (ImportSource source : sources) {
+                futures.add(readers.submit(() -> task.accept(source)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+                }
+            }
+        } finally {
+            readers.shutdownNow();
+            readers.awaitTermination(60, TimeUnit.SECONDS);
+        }
+    }
+
+    private void read(ImportSource source, Consumer<RejectedRow> rejects, Consumer<Person> sink) {
+        long start = System.nanoTime();
+        try (Stream<Person> personStream = source.open.apply(rejects)) {
+            personStream.forEach(sink);
+        } finally {
+            metrics.recordRead(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Metrics of the running import, or of the last one once it has finished.
+     */
+    public ImportMetrics getMetrics() {
+        return metrics;
+    }
+
     public void shutdown() {
         executor.shutdown();
         try {
@@ -80,14 +580,15 @@ public class ParallelImportService implements AutoCloseable {
             executor.shutdownNow();
             Thread.currentThread().interrupt();
         }
-        personRepository.close();
+        if (personRepository != null) {
+            personRepository.close();
+        }
     }
 
 
     @Override
     public void close() {
         try {
-            batchProcessor.close();
             executor.shutdown();
 
             if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
@@ -98,4 +599,52 @@ public class ParallelImportService implements AutoCloseable {
             Thread.currentThread().interrupt();
         }
     }
+
+    /**
+     * Reject handler of one source that remembers the row its last person was read from.
+     */
+    private static final class SourceRows implements RowListener {
+        private final Consumer<RejectedRow> rejects;
+        long lastRow;
+
+        SourceRows(Consumer<RejectedRow> rejects) {
+            this.rejects = rejects;
+        }
+
+        @Override
+        public void accept(RejectedRow row) {
+            rejects.accept(row);
+        }
+
+        @Override
+        public void accepted(long rowNumber, String birthDateFormat) {
+            lastRow = rowNumber;
+        }
+    }
+
+    /**
+     * A sheet or CSV chunk to read. The key identifies it within its file in the import journal.
+     */
+    private static final class ImportSource {
+        final String filePath;
+        final String key;
+        final String name;
+        final boolean fileRows;
+        final Function<Consumer<RejectedRow>, Stream<Person>> open;
+
+        /**
+         * @param name     how rejected rows refer to the source, as the parsers do
+         * @param fileRows whether rows are journaled by their row number in the file, which does
+         *                 not depend on how the file is split, rather than by their position in
+         *                 the source
+         */
+        ImportSource(String filePath, String key, String name, boolean fileRows,
+                     Function<Consumer<RejectedRow>, Stream<Person>> open) {
+            this.filePath = filePath;
+            this.key = key;
+            this.name = name;
+            this.fileRows = fileRows;
+            this.open = open;
+        }
+    }
 }
@@ -0,0 +1,230 @@
+package com.ministry.importer.service;
+
+import com.ministry.importer.enums.Status;
+import com.ministry.importer.model.Person;
+import com.ministry.importer.utility.ContentHash;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts the people of an import by matricule, in {@link ContentHash#MATRICULE_ORDER}, with a
+ * bounded heap. People are kept in memory {@code runSize} at a time; each full run is sorted
+ * and written to a temporary file, and the runs are merged when the sorted people are read.
+ * <p>
+ * People sharing a matricule come out in the order of their position, as given by the caller,
+ * so the result does not depend on the order in which concurrent sources were read.
+ */
+final class PersonSorter implements AutoCloseable {
+    static final int DEFAULT_RUN_SIZE = 200_000;
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparing((Entry entry) -> entry.person.getMatricule(), ContentHash.MATRICULE_ORDER)
+            .thenComparingLong(entry -> entry.position);
+
+    private final Path directory;
+    private final int runSize;
+    private final List<Path> runs = new ArrayList<>();
+    private final List<RunReader> readers = new ArrayList<>();
+    private Entry[] entries;
+    private int count;
+
+    /**
+     * @param directory where the runs are written, or null for the temporary directory
+     */
+    PersonSorter(Path directory) {
+        this(directory, DEFAULT_RUN_SIZE);
+    }
+
+    PersonSorter(Path directory, int runSize) {
+        this.directory = directory != null ? directory : Paths.get(System.getProperty("java.io.tmpdir"));
+        this.runSize = runSize;
+        this.entries = new Entry[Math.min(runSize, 1024)];
+    }
+
+    synchronized void add(Person person, long position) {
+        if (count == entries.length) {
+            if (count == runSize) {
+                spill();
+            } else {
+                entries = Arrays.copyOf(entries, Math.min(runSize, count * 2));
+            }
+        }
+        entries[count++] = new Entry(person, position);
+    }
+
+    int getRunCount() {
+        return runs.size();
+    }
+
+    /**
+     * The people added so far, in order. Nothing may be added once they are read.
+     */
+    synchronized Iterator<Person> sorted() {
+        if (runs.isEmpty()) {
+            Arrays.sort(entries, 0, count, ORDER);
+            return Arrays.stream(entries, 0, count).map(entry -> entry.person).iterator();
+        }
+        if (count > 0) {
+            spill();
+        }
+        entries = null;
+        PriorityQueue<RunReader> heads = new PriorityQueue<>((a, b) -> ORDER.compare(a.head, b.head));
+        for (Path run : runs) {
+            RunReader reader = new RunReader(run);
+            readers.add(reader);
+            if (reader.advance()) {
+                heads.add(reader);
+            }
+        }
+        return new Iterator<Person>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Person next() {
+                RunReader reader = heads.poll();
+                if (reader == null) {
+                    throw new NoSuchElementException();
+                }
+                Person person = reader.head.person;
+                if (reader.advance()) {
+                    heads.add(reader);
+                }
+                return person;
+            }
+        };
+    }
+
+    @Override
+    public synchronized void close() {
+        for (RunReader reader : readers) {
+            reader.close();
+        }
+        readers.clear();
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException e) {
+                // Left in the temporary directory
+            }
+        }
+        runs.clear();
+        entries = null;
+    }
+
+    private void spill() {
+        Arrays.sort(entries, 0, count, ORDER);
+        try {
+            Path run = Files.createTempFile(directory, "people-sort-", ".run");
+            runs.add(run);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+                for (int i = 0; i < count; i++) {
+                    write(out, entries[i]);
+                    entries[i] = null;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'écrire le fichier de tri dans " + directory, e);
+        }
+        count = 0;
+    }
+
+    private static void write(DataOutputStream out, Entry entry) throws IOException {
+        Person person = entry.person;
+        out.writeLong(entry.position);
+        writeText(out, person.getMatricule());
+        writeText(out, person.getFirstName());
+        writeText(out, person.getLastName());
+        out.writeLong(person.getBirthDate() == null ? Long.MIN_VALUE : person.getBirthDate().toEpochDay());
+        out.writeShort(person.getStatus() == null ? 0 : person.getStatus().getCode());
+    }
+
+    private static Entry read(DataInputStream in) throws IOException {
+        long position;
+        try {
+            position = in.readLong();
+        } catch (EOFException e) {
+            return null;
+        }
+        String matricule = readText(in);
+        String firstName = readText(in);
+        String lastName = readText(in);
+        long birthDate = in.readLong();
+        short status = in.readShort();
+        Person person = new Person(matricule, firstName, lastName,
+                birthDate == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(birthDate),
+                status == 0 ? null : Status.fromCode(status));
+        return new Entry(person, position);
+    }
+
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static final class Entry {
+        final Person person;
+        final long position;
+
+        Entry(Person person, long position) {
+            this.person = person;
+            this.position = position;
+        }
+    }
+
+    private static final class RunReader {
+        private final Path run;
+        private final DataInputStream in;
+        Entry head;
+
+        RunReader(Path run) {
+            this.run = run;
+            try {
+                this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Impossible de lire le fichier de tri " + run, e);
+            }
+        }
+
+        boolean advance() {
+            try {
+                head = read(in);
+                return head != null;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Impossible de lire le fichier de tri " + run, e);
+            }
+        }
+
+        void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Deleted with the run
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.ministry.importer.service;
+
+import com.ministry.importer.model.RejectedRow;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Collects the rows rejected during one import. Each row is appended to the rejects file
+ * (a CSV with the source, row number, reason and raw values), which is only created once a
+ * row is rejected. The import is aborted as soon as more than {@code maxRejects} rows have
+ * been rejected; a negative budget means no limit.
+ */
+final class RejectCollector implements Consumer<RejectedRow>, AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(RejectCollector.class);
+    private static final String HEADER = "source,row,reason,matricule,prenom,nom,naissance,statut";
+
+    private final int maxRejects;
+    private final Path rejectsFile;
+    private BufferedWriter writer;
+    private int count;
+
+    RejectCollector(int maxRejects, Path rejectsFile) {
+        this.maxRejects = maxRejects;
+        this.rejectsFile = rejectsFile;
+    }
+
+    @Override
+    public synchronized void accept(RejectedRow row) {
+        count++;
+        logger.debug("Rejected row {} of {}: {}", row.getRowNumber(), row.getSource(), row.getReason());
+        if (rejectsFile != null) {
+            write(row);
+        }
+        if (maxRejects >= 0 && count > maxRejects) {
+            throw new IllegalStateException("Error budget exceeded: more than " + maxRejects
+                    + " rejected row(s), last at row " + row.getRowNumber() + " of " + row.getSource()
+                    + ": " + row.getReason());
+        }
+    }
+
+    synchronized int getCount() {
+        return count;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'écrire le fichier des rejets " + rejectsFile, e);
+        } finally {
+            writer = null;
+        }
+    }
+
+    private void write(RejectedRow row) {
+        try {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8);
+                writer.write(HEADER);
+                writer.newLine();
+            }
+            StringBuilder line = new StringBuilder();
+            line.append(quote(row.getSource())).append(',')
+                    .append(row.getRowNumber()).append(',')
+                    .append(quote(row.getReason()));
+            for (String value : row.getValues()) {
+                line.append(',').append(quote(value));
+            }
+            writer.write(line.toString());
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'écrire le fichier des rejets " + rejectsFile, e);
+        }
+    }
+
+    static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
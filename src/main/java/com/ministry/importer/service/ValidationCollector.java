@@ -0,0 +1,147 @@
+package com.ministry.importer.service;
+
+import com.ministry.importer.model.Person;
+import com.ministry.importer.model.RejectedRow;
+import com.ministry.importer.model.ValidationReport;
+import com.ministry.importer.parser.RowListener;
+import com.ministry.importer.utility.MatriculeIndex;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Gathers what a validate-only run finds. Each source counts its rows in a {@link Source} of
+ * its own, merged once the source is read, so concurrent sources only share the matricule
+ * index, which counts the rows of each matricule off the heap.
+ */
+final class ValidationCollector implements Consumer<RejectedRow>, AutoCloseable {
+    private static final int DUPLICATE_SAMPLE_SIZE = 10;
+
+    private final MatriculeIndex matricules;
+    private final LongAdder rowsValid = new LongAdder();
+    private final LongAdder rowsRejected = new LongAdder();
+    private final LongAdder duplicatedMatricules = new LongAdder();
+    private final LongAdder duplicateRows = new LongAdder();
+    private final Map<String, LongAdder> rejectReasons = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> dateFormats = new ConcurrentHashMap<>();
+    private final TreeSet<String> duplicateSample = new TreeSet<>();
+
+    /**
+     * @param directory where the matricule index is kept, or null for the temporary directory
+     */
+    ValidationCollector(Path directory) {
+        this.matricules = new MatriculeIndex(directory);
+    }
+
+    /**
+     * Counts the row under its reason, without the value that follows a colon, so that
+     * {@code Statut non valide: Inconnu} and {@code Statut non valide: Retraité} add up.
+     */
+    @Override
+    public void accept(RejectedRow row) {
+        rowsRejected.increment();
+        String reason = row.getReason();
+        int colon = reason.indexOf(':');
+        rejectReasons.computeIfAbsent(colon > 0 ? reason.substring(0, colon) : reason, key -> new LongAdder())
+                .increment();
+    }
+
+    Source source() {
+        return new Source();
+    }
+
+    ValidationReport report(int sourceCount, long durationMillis) {
+        List<String> sample;
+        synchronized (duplicateSample) {
+            sample = new ArrayList<>(duplicateSample);
+        }
+        return new ValidationReport(sourceCount, rowsValid.sum(), rowsRejected.sum(), sorted(rejectReasons),
+                sorted(dateFormats), matricules.size(), duplicatedMatricules.sum(), duplicateRows.sum(), sample,
+                durationMillis);
+    }
+
+    @Override
+    public void close() {
+        matricules.close();
+    }
+
+    private void sample(String matricule) {
+        synchronized (duplicateSample) {
+            duplicateSample.add(matricule);
+            if (duplicateSample.size() > DUPLICATE_SAMPLE_SIZE) {
+                duplicateSample.pollLast();
+            }
+        }
+    }
+
+    private static Map<String, Long> sorted(Map<String, LongAdder> counts) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<String, LongAdder> entry) -> entry.getValue().sum()).reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue().sum()));
+        return sorted;
+    }
+
+    /**
+     * The rows of one source, read on one thread.
+     */
+    final class Source implements Consumer<Person> {
+        private final Map<String, long[]> formats = new HashMap<>();
+        private long rows;
+        private long duplicates;
+
+        private Source() {
+        }
+
+        /**
+         * Wraps the reject handler given to this source's parser so it also counts birth date formats.
+         */
+        RowListener listener(Consumer<RejectedRow> rejects) {
+            return new RowListener() {
+                @Override
+                public void accept(RejectedRow row) {
+                    rejects.accept(row);
+                }
+
+                @Override
+                public void accepted(long rowNumber, String birthDateFormat) {
+                    if (birthDateFormat != null) {
+                        formats.computeIfAbsent(birthDateFormat, key -> new long[1])[0]++;
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void accept(Person person) {
+            rows++;
+            long previous = matricules.merge(person.getMatricule(), 1, (count, one) -> count + one);
+            if (previous != MatriculeIndex.ABSENT) {
+                duplicates++;
+                if (previous == 1) {
+                    duplicatedMatricules.increment();
+                    sample(person.getMatricule());
+                }
+            }
+        }
+
+        void flush() {
+            rowsValid.add(rows);
+            duplicateRows.add(duplicates);
+            formats.forEach((format, count) -> dateFormats.computeIfAbsent(format, key -> new LongAdder()).add(count[0]));
+            rows = 0;
+            duplicates = 0;
+            formats.clear();
+        }
+    }
+}
@@ -3,21 +3,39 @@ package com.ministry.importer.utility;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
 
 public class BatchProcessor<T> implements AutoCloseable {
-    private final int batchSize;
-    private final Consumer<List<T>> batchConsumer;
+    protected final IntSupplier batchSize;
+    protected final IntFunction<List<T>> newBatch;
+    protected final Consumer<List<T>> batchConsumer;
     private List<T> currentBatch;
     
     public BatchProcessor(int batchSize, Consumer<List<T>> batchConsumer) {
+        this(() -> batchSize, batchConsumer);
+    }
+
+    /**
+     * The size is read again for every item, so it may change while batches are being filled.
+     */
+    public BatchProcessor(IntSupplier batchSize, Consumer<List<T>> batchConsumer) {
+        this(batchSize, ArrayList::new, batchConsumer);
+    }
+
+    /**
+     * @param newBatch creates an empty batch for the given capacity, such as a columnar list
+     */
+    public BatchProcessor(IntSupplier batchSize, IntFunction<List<T>> newBatch, Consumer<List<T>> batchConsumer) {
         this.batchSize = batchSize;
+        this.newBatch = newBatch;
         this.batchConsumer = batchConsumer;
-        this.currentBatch = new ArrayList<>(batchSize);
+        this.currentBatch = newBatch.apply(batchSize.getAsInt());
     }
     
     public synchronized void add(T item) {
         currentBatch.add(item);
-        if (currentBatch.size() >= batchSize) {
+        if (currentBatch.size() >= batchSize.getAsInt()) {
             flush();
         }
     }
@@ -25,7 +43,7 @@ public class BatchProcessor<T> implements AutoCloseable {
     public synchronized void flush() {
         if (!currentBatch.isEmpty()) {
             batchConsumer.accept(currentBatch);
-            currentBatch = new ArrayList<>(batchSize);
+            currentBatch = newBatch.apply(batchSize.getAsInt());
         }
     }
     
@@ -0,0 +1,129 @@
+package com.ministry.importer.utility;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+/**
+ * {@link BatchProcessor} for many producer threads. Each thread fills its own buffer, so
+ * producers never share a lock, and a full buffer is handed to the consumer outside any lock.
+ * {@link #flush()} drains the partial buffers of every thread.
+ * <p>
+ * {@link #close()} also retires the buffers. A thread's local entry can only be removed by that
+ * thread, so the closing thread removes its own, and a pooled thread still holding a retired,
+ * empty buffer removes its entry the next time it adds an item.
+ */
+public class ConcurrentBatchProcessor<T> extends BatchProcessor<T> {
+    private final Queue<Buffer<T>> buffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Buffer<T>> localBuffer = ThreadLocal.withInitial(this::registerBuffer);
+
+    public ConcurrentBatchProcessor(int batchSize, Consumer<List<T>> batchConsumer) {
+        super(batchSize, batchConsumer);
+    }
+
+    public ConcurrentBatchProcessor(IntSupplier batchSize, Consumer<List<T>> batchConsumer) {
+        super(batchSize, batchConsumer);
+    }
+
+    public ConcurrentBatchProcessor(IntSupplier batchSize, IntFunction<List<T>> newBatch, Consumer<List<T>> batchConsumer) {
+        super(batchSize, newBatch, batchConsumer);
+    }
+
+    @Override
+    public void add(T item) {
+        List<T> fullBatch;
+        while ((fullBatch = localBuffer.get().add(item)) == Buffer.RETIRED) {
+            localBuffer.remove();
+        }
+        if (fullBatch != null) {
+            batchConsumer.accept(fullBatch);
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (Buffer<T> buffer : buffers) {
+            List<T> pending = buffer.drain();
+            if (pending != null) {
+                batchConsumer.accept(pending);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        Buffer<T> buffer;
+        while ((buffer = buffers.poll()) != null) {
+            List<T> pending = buffer.retire();
+            if (pending != null) {
+                batchConsumer.accept(pending);
+            }
+        }
+        localBuffer.remove();
+    }
+
+    int getBufferCount() {
+        return buffers.size();
+    }
+
+    private Buffer<T> registerBuffer() {
+        Buffer<T> buffer = new Buffer<>(batchSize, newBatch);
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * Per-thread buffer. Its monitor is only contended while {@link #flush()} drains it.
+     */
+    private static final class Buffer<T> {
+        static final List<?> RETIRED = List.of();
+
+        private final IntSupplier batchSize;
+        private final IntFunction<List<T>> newBatch;
+        private List<T> items;
+
+        Buffer(IntSupplier batchSize, IntFunction<List<T>> newBatch) {
+            this.batchSize = batchSize;
+            this.newBatch = newBatch;
+            this.items = newBatch.apply(batchSize.getAsInt());
+        }
+
+        /**
+         * @return the batch if it is now full, null otherwise, or {@link #RETIRED} without adding the item
+         */
+        @SuppressWarnings("unchecked")
+        synchronized List<T> add(T item) {
+            if (items == null) {
+                return (List<T>) RETIRED;
+            }
+            items.add(item);
+            if (items.size() < batchSize.getAsInt()) {
+                return null;
+            }
+            List<T> full = items;
+            items = newBatch.apply(batchSize.getAsInt());
+            return full;
+        }
+
+        synchronized List<T> drain() {
+            if (items == null || items.isEmpty()) {
+                return null;
+            }
+            List<T> pending = items;
+            items = newBatch.apply(batchSize.getAsInt());
+            return pending;
+        }
+
+        /**
+         * @return the items left, or null if there were none; the buffer holds nothing afterwards
+         */
+        synchronized List<T> retire() {
+            List<T> pending = items == null || items.isEmpty() ? null : items;
+            items = null;
+            return pending;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.ministry.importer.utility;
+
+import java.util.Properties;
+
+public final class ConfigLoader {
+
+    private ConfigLoader() {
+    }
+
+    public static Properties load() {
+        Properties props = new Properties();
+        try (var input = ConfigLoader.class.getClassLoader()
+                .getResourceAsStream("application.properties")) {
+            if (input == null) {
+                throw new IllegalStateException("application.properties not found in classpath");
+            }
+            props.load(input);
+            return props;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load configuration", e);
+        }
+    }
+
+    public static int getInt(Properties config, String key, int defaultValue) {
+        String value = config.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valeur entière attendue pour " + key + ": " + value, e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ministry.importer.utility;
+
+import com.ministry.importer.enums.Status;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+
+/**
+ * 64-bit hash of the content of a person row, used to tell whether a stored row differs from
+ * the one read from a file without comparing every column. Fields are hashed with their
+ * length, and null apart from empty, so that moving text from one field to the next changes
+ * the hash.
+ */
+public final class ContentHash {
+    /**
+     * Code point order, which is the byte order of UTF-8 and the order of {@code COLLATE "C"}
+     * in PostgreSQL. {@link String#compareTo} differs for characters outside the BMP.
+     */
+    public static final Comparator<String> MATRICULE_ORDER = ContentHash::compareMatricules;
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long PRIME = 0x100000001B3L;
+    private static final long NULL = 0xA0761D6478BD642FL;
+
+    private ContentHash() {
+    }
+
+    public static long of(CharSequence matricule, CharSequence firstName, CharSequence lastName,
+                          LocalDate birthDate, Status status) {
+        long h = SEED;
+        h = text(h, matricule);
+        h = text(h, firstName);
+        h = text(h, lastName);
+        h = value(h, birthDate == null ? NULL : birthDate.toEpochDay());
+        h = value(h, status == null ? NULL : status.getCode());
+        return mix(h);
+    }
+
+    private static long text(long h, CharSequence value) {
+        if (value == null) {
+            return value(h, NULL);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * PRIME;
+            h = Long.rotateLeft(h, 29);
+        }
+        return value(h, value.length());
+    }
+
+    private static long value(long h, long value) {
+        return Long.rotateLeft((h ^ mix(value)) * SEED, 31);
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static int compareMatricules(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x != y) {
+                // Surrogates encode code points above every other char
+                boolean xSurrogate = Character.isSurrogate(x);
+                if (xSurrogate != Character.isSurrogate(y)) {
+                    return xSurrogate ? 1 : -1;
+                }
+                return x - y;
+            }
+        }
+        return a.length() - b.length();
+    }
+}
@@ -6,7 +6,15 @@ import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.DateTimeParseException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Parses birth dates in the formats found in ministry exports.
+ * <p>
+ * The common shapes ({@code dd?dd?dddd} and {@code dddd?dd?dd} with {@code /} or {@code -}) are
+ * read digit by digit without exceptions; anything else goes through the formatters. An instance
+ * remembers the format detected for its column and tries it first on the following rows.
+ */
 public class DateParser {
     private static final List<DateTimeFormatter> FORMATTERS = Arrays.asList(
         DateTimeFormatter.ofPattern("MM/dd/yyyy"),
@@ -22,13 +30,103 @@ public class DateParser {
             .toFormatter()
     );
 
+    // Same precedence as FORMATTERS, so both paths agree on ambiguous values
+    private static final Format[] FORMATS = {
+        Format.MONTH_DAY_YEAR_SLASH,
+        Format.DAY_MONTH_YEAR_SLASH,
+        Format.YEAR_MONTH_DAY_DASH,
+        Format.DAY_MONTH_YEAR_DASH,
+        Format.MONTH_DAY_YEAR_DASH,
+        Format.YEAR_MONTH_DAY_SLASH
+    };
+
+    /** Pattern reported for values only the formatters could read. */
+    public static final String OTHER_PATTERN = "other";
+
+    private final AtomicReference<Format> detectedFormat;
+    private String lastPattern;
+
+    public DateParser() {
+        this.detectedFormat = new AtomicReference<>();
+    }
+
+    /**
+     * A parser for another part of the same column, such as a chunk of the same file read on
+     * another thread: the detected format is shared with {@code column}, while the pattern of
+     * the last value is kept apart.
+     */
+    public DateParser(DateParser column) {
+        this.detectedFormat = column.detectedFormat;
+    }
+
     public static LocalDate parseDate(String dateString) {
         if (dateString == null || dateString.trim().isEmpty()) {
             return null;
         }
 
         String trimmedDate = dateString.trim();
-        
+
+        for (Format format : FORMATS) {
+            LocalDate date = format.parse(trimmedDate);
+            if (date != null) {
+                return date;
+            }
+        }
+        return parseWithFormatters(dateString, trimmedDate);
+    }
+
+    /**
+     * Parses a value of the column this instance is bound to. The detected format is only
+     * remembered from values that cannot be read another way (e.g. {@code 25/12/2023}), so
+     * ambiguous values such as {@code 05/06/2020} follow the format of the column.
+     */
+    public LocalDate parse(String dateString) {
+        lastPattern = null;
+        if (dateString == null || dateString.trim().isEmpty()) {
+            return null;
+        }
+
+        String trimmedDate = dateString.trim();
+
+        Format known = detectedFormat.get();
+        if (known != null) {
+            LocalDate date = known.parse(trimmedDate);
+            if (date != null) {
+                lastPattern = known.pattern;
+                return date;
+            }
+        }
+
+        for (Format format : FORMATS) {
+            LocalDate date = format.parse(trimmedDate);
+            if (date != null) {
+                Format alternative = format.alternative();
+                if (alternative == null || alternative.parse(trimmedDate) == null) {
+                    detectedFormat.set(format);
+                }
+                lastPattern = format.pattern;
+                return date;
+            }
+        }
+        LocalDate date = parseWithFormatters(dateString, trimmedDate);
+        lastPattern = OTHER_PATTERN;
+        return date;
+    }
+
+    public String getDetectedPattern() {
+        Format known = detectedFormat.get();
+        return known == null ? null : known.pattern;
+    }
+
+    /**
+     * Pattern the last value given to {@link #parse} was read with, {@link #OTHER_PATTERN}, or
+     * null when it was empty or invalid.
+     */
+    public String getLastPattern() {
+        return lastPattern;
+    }
+
+    static LocalDate parseWithFormatters(String dateString, String trimmedDate) {
         for (DateTimeFormatter formatter : FORMATTERS) {
             try {
                 return LocalDate.parse(trimmedDate, formatter);
@@ -37,7 +135,105 @@ public class DateParser {
             }
         }
 
-        throw new IllegalArgumentException("Impossible de parser la date: " + dateString + 
+        throw new IllegalArgumentException("Impossible de parser la date: " + dateString +
                ". Formats supportés: MM/dd/yyyy, dd/MM/yyyy, yyyy-MM-dd, etc.");
     }
+
+    private enum Format {
+        MONTH_DAY_YEAR_SLASH("MM/dd/yyyy", '/', false, false),
+        DAY_MONTH_YEAR_SLASH("dd/MM/yyyy", '/', false, true),
+        YEAR_MONTH_DAY_SLASH("yyyy/MM/dd", '/', true, false),
+        YEAR_MONTH_DAY_DASH("yyyy-MM-dd", '-', true, false),
+        DAY_MONTH_YEAR_DASH("dd-MM-yyyy", '-', false, true),
+        MONTH_DAY_YEAR_DASH("MM-dd-yyyy", '-', false, false);
+
+        private static final int LENGTH = 10;
+
+        private final String pattern;
+        private final char separator;
+        private final boolean yearFirst;
+        private final boolean dayFirst;
+
+        Format(String pattern, char separator, boolean yearFirst, boolean dayFirst) {
+            this.pattern = pattern;
+            this.separator = separator;
+            this.yearFirst = yearFirst;
+            this.dayFirst = dayFirst;
+        }
+
+        Format alternative() {
+            switch (this) {
+                case MONTH_DAY_YEAR_SLASH: return DAY_MONTH_YEAR_SLASH;
+                case DAY_MONTH_YEAR_SLASH: return MONTH_DAY_YEAR_SLASH;
+                case DAY_MONTH_YEAR_DASH: return MONTH_DAY_YEAR_DASH;
+                case MONTH_DAY_YEAR_DASH: return DAY_MONTH_YEAR_DASH;
+                default: return null;
+            }
+        }
+
+        /**
+         * Returns the date, or null when the value does not have this exact shape or does not
+         * describe a valid date; the caller then tries the next format.
+         */
+        LocalDate parse(String value) {
+            if (value.length() != LENGTH) {
+                return null;
+            }
+
+            int year;
+            int first;
+            int second;
+            if (yearFirst) {
+                if (value.charAt(4) != separator || value.charAt(7) != separator) {
+                    return null;
+                }
+                year = digits(value, 0, 4);
+                first = digits(value, 5, 7);
+                second = digits(value, 8, 10);
+            } else {
+                if (value.charAt(2) != separator || value.charAt(5) != separator) {
+                    return null;
+                }
+                first = digits(value, 0, 2);
+                second = digits(value, 3, 5);
+                year = digits(value, 6, 10);
+            }
+
+            int month = dayFirst ? second : first;
+            int day = dayFirst ? first : second;
+            // Year 0 is only accepted by ISO_LOCAL_DATE; leave it to the formatters
+            if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31) {
+                return null;
+            }
+            return LocalDate.of(year, month, Math.min(day, monthLength(year, month)));
+        }
+
+        // Mirrors ResolverStyle.SMART, which clamps the 29th-31st to the end of the month
+        private static int monthLength(int year, int month) {
+            switch (month) {
+                case 2: return isLeapYear(year) ? 29 : 28;
+                case 4:
+                case 6:
+                case 9:
+                case 11: return 30;
+                default: return 31;
+            }
+        }
+
+        private static boolean isLeapYear(int year) {
+            return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+        }
+
+        private static int digits(String value, int start, int end) {
+            int result = 0;
+            for (int i = start; i < end; i++) {
+                int digit = value.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return -1;
+                }
+                result = result * 10 + digit;
+            }
+            return result;
+        }
+    }
 }
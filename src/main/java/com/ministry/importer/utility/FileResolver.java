@@ -0,0 +1,97 @@
+package com.ministry.importer.utility;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Expands the inputs given on the command line into file paths. An input is a file,
+ * a directory (every {@code .xlsx}, {@code .csv} and {@code .tsv} directly inside it) or a glob such as {@code data/*.xlsx}
+ * or {@code "regions/**&#47;*.xlsx"} when the shell did not expand it.
+ * <p>
+ * Files come in the order of the inputs, and those of one directory or glob in name order. A
+ * file named twice, even spelled differently such as {@code ./a.xlsx} and {@code a.xlsx}, is
+ * kept once, as first given.
+ */
+public final class FileResolver {
+    private static final List<String> EXTENSIONS = List.of(".xlsx", ".csv", ".tsv");
+
+    private FileResolver() {
+    }
+
+    public static List<String> resolve(List<String> inputs) {
+        Set<Path> seen = new HashSet<>();
+        List<String> files = new ArrayList<>();
+        for (String input : inputs) {
+            for (String file : resolve(input)) {
+                if (seen.add(Paths.get(file).toAbsolutePath().normalize())) {
+                    files.add(file);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static List<String> resolve(String input) {
+        if (isGlob(input)) {
+            return expandGlob(input);
+        }
+
+        Path path = Paths.get(input);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> entries = Files.list(path)) {
+                return sorted(entries.filter(FileResolver::isImportable));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Impossible de lister le répertoire " + input, e);
+            }
+        }
+        return List.of(input);
+    }
+
+    private static List<String> expandGlob(String glob) {
+        Path pattern = Paths.get(glob).toAbsolutePath().normalize();
+        Path base = pattern.getRoot();
+        for (Path segment : pattern) {
+            if (isGlob(segment.toString())) {
+                break;
+            }
+            base = base.resolve(segment);
+        }
+
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        if (!Files.isDirectory(base)) {
+            return List.of();
+        }
+        try (Stream<Path> entries = Files.walk(base)) {
+            return sorted(entries.filter(path -> Files.isRegularFile(path) && matcher.matches(path)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de parcourir " + base, e);
+        }
+    }
+
+    private static boolean isImportable(Path path) {
+        String name = path.getFileName().toString();
+        String lowerName = name.toLowerCase();
+        return Files.isRegularFile(path) && !name.startsWith(".") && !name.startsWith("~$")
+                && EXTENSIONS.stream().anyMatch(lowerName::endsWith);
+    }
+
+    private static boolean isGlob(String input) {
+        return input.indexOf('*') >= 0 || input.indexOf('?') >= 0
+                || input.indexOf('[') >= 0 || input.indexOf('{') >= 0;
+    }
+
+    private static List<String> sorted(Stream<Path> paths) {
+        return paths.map(Path::toString).sorted().collect(Collectors.toList());
+    }
+}
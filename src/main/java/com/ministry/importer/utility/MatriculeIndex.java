@@ -0,0 +1,216 @@
+package com.ministry.importer.utility;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Maps matricules to a {@code long} outside the Java heap, so an import can track tens of
+ * millions of keys with a flat heap. Keys are stored as 128-bit fingerprints in open-addressing
+ * tables held in memory-mapped temporary files: the operating system keeps the hot pages in
+ * memory and writes the rest to disk. A 50 million key index takes about 2 GB of file and page
+ * cache, and no heap.
+ * <p>
+ * The table is split in segments, each with its own lock and grown on its own, so concurrent
+ * readers rarely contend. Values must not be negative; {@link #ABSENT} stands for no entry.
+ */
+public final class MatriculeIndex implements AutoCloseable {
+    public static final long ABSENT = -1;
+    private static final int SEGMENT_BITS = 6;
+    private static final int INITIAL_SLOTS = 1 << 12;
+    private static final int SLOT_BYTES = 24;
+    private static final int MAX_SLOTS = Integer.MAX_VALUE / SLOT_BYTES;
+    private static final double MAX_LOAD = 0.7;
+
+    private final Path directory;
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+    private final AtomicLong size = new AtomicLong();
+
+    public MatriculeIndex() {
+        this(null);
+    }
+
+    /**
+     * @param directory where the table files are created, or null for the default temporary directory
+     */
+    public MatriculeIndex(Path directory) {
+        this.directory = directory != null ? directory : Paths.get(System.getProperty("java.io.tmpdir"));
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    public long get(CharSequence key) {
+        long h1 = hash(key, 0x9E3779B97F4A7C15L);
+        long h2 = nonZero(hash(key, 0xC2B2AE3D27D4EB4FL));
+        return segment(h1).get(h1, h2);
+    }
+
+    /**
+     * Stores the value unless the key is present, and returns the previous value or {@link #ABSENT}.
+     */
+    public long putIfAbsent(CharSequence key, long value) {
+        return merge(key, value, (existing, ignored) -> existing);
+    }
+
+    /**
+     * Stores the value if the key is absent, or {@code merge(existing, value)} otherwise, and
+     * returns the previous value or {@link #ABSENT}. The merge runs under the segment lock.
+     */
+    public long merge(CharSequence key, long value, LongBinaryOperator merge) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+        long h1 = hash(key, 0x9E3779B97F4A7C15L);
+        long h2 = nonZero(hash(key, 0xC2B2AE3D27D4EB4FL));
+        return segment(h1).merge(h1, h2, value, merge);
+    }
+
+    public long size() {
+        return size.get();
+    }
+
+    @Override
+    public void close() {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        size.set(0);
+    }
+
+    private Segment segment(long h1) {
+        return segments[(int) (h1 >>> (64 - SEGMENT_BITS))];
+    }
+
+    private static long hash(CharSequence key, long seed) {
+        long h = seed ^ key.length();
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+            h = Long.rotateLeft(h, 29) * seed;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    // Zero marks an empty slot
+    private static long nonZero(long h2) {
+        return h2 == 0 ? 1 : h2;
+    }
+
+    private final class Segment {
+        private ByteBuffer table;
+        private int slots;
+        private int count;
+
+        synchronized long get(long h1, long h2) {
+            if (table == null) {
+                return ABSENT;
+            }
+            int slot = find(h1, h2);
+            return table.getLong(slot * SLOT_BYTES + 8) == 0 ? ABSENT : table.getLong(slot * SLOT_BYTES + 16);
+        }
+
+        synchronized long merge(long h1, long h2, long value, LongBinaryOperator merge) {
+            if (table == null) {
+                table = allocate(INITIAL_SLOTS);
+                slots = INITIAL_SLOTS;
+            }
+            int offset = find(h1, h2) * SLOT_BYTES;
+            if (table.getLong(offset + 8) != 0) {
+                long existing = table.getLong(offset + 16);
+                table.putLong(offset + 16, merge.applyAsLong(existing, value));
+                return existing;
+            }
+
+            table.putLong(offset, h1);
+            table.putLong(offset + 8, h2);
+            table.putLong(offset + 16, value);
+            count++;
+            size.incrementAndGet();
+            if (count > slots * MAX_LOAD) {
+                grow();
+            }
+            return ABSENT;
+        }
+
+        private int find(long h1, long h2) {
+            int mask = slots - 1;
+            int slot = (int) h1 & mask;
+            while (true) {
+                int offset = slot * SLOT_BYTES;
+                long stored = table.getLong(offset + 8);
+                if (stored == 0 || (stored == h2 && table.getLong(offset) == h1)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private void grow() {
+            if (slots * 2 > MAX_SLOTS) {
+                throw new IllegalStateException("Matricule index segment is full: " + count + " keys");
+            }
+            ByteBuffer old = table;
+            int oldSlots = slots;
+            table = allocate(slots * 2);
+            slots *= 2;
+            for (int slot = 0; slot < oldSlots; slot++) {
+                int offset = slot * SLOT_BYTES;
+                long h2 = old.getLong(offset + 8);
+                if (h2 != 0) {
+                    long h1 = old.getLong(offset);
+                    int target = find(h1, h2) * SLOT_BYTES;
+                    table.putLong(target, h1);
+                    table.putLong(target + 8, h2);
+                    table.putLong(target + 16, old.getLong(offset + 16));
+                }
+            }
+        }
+
+        private ByteBuffer allocate(int slotCount) {
+            try {
+                Files.createDirectories(directory);
+                Path file = Files.createTempFile(directory, "matricules-", ".idx");
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    // A fresh file reads as zeros, which is an empty table
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) slotCount * SLOT_BYTES);
+                    deleteWhenUnmapped(file);
+                    return buffer;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Impossible de créer l'index des matricules dans " + directory, e);
+            }
+        }
+
+        synchronized void close() {
+            table = null;
+            slots = 0;
+            count = 0;
+        }
+    }
+
+    /**
+     * The mapping stays valid once the file is unlinked on POSIX systems, so the file goes
+     * away even if the import crashes; elsewhere it is removed when the JVM exits.
+     */
+    private static void deleteWhenUnmapped(Path file) {
+        try {
+            Files.delete(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+}
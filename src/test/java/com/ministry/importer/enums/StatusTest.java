@@ -0,0 +1,31 @@
+package com.ministry.importer.enums;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatusTest {
+
+    @Test
+    void shouldFindStatusByLabelIgnoringCase() {
+        assertEquals(Status.ACTIF, Status.fromLabel("Actif"));
+        assertEquals(Status.EN_ATTENTE, Status.fromLabel("EN ATTENTE"));
+        assertEquals(Status.SUSPENDU, Status.fromLabel("suSPendu"));
+    }
+
+    @Test
+    void shouldRejectUnknownLabels() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> Status.fromLabel("Retraité"));
+        assertEquals("Statut non valide: Retraité", error.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> Status.fromLabel(null));
+        assertThrows(IllegalArgumentException.class, () -> Status.fromLabel("EN_ATTENTE"));
+    }
+
+    @Test
+    void shouldMapCodesBothWays() {
+        for (Status status : Status.values()) {
+            assertEquals(status, Status.fromCode(status.getCode()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> Status.fromCode(0));
+    }
+}
@@ -0,0 +1,75 @@
+package com.ministry.importer.metrics;
+
+import com.ministry.importer.repository.PersonRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ImportMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldComputeLatencyPercentilesAndTimes() {
+        PersonRepository repository = mock(PersonRepository.class);
+        when(repository.getConnectionWaitNanos()).thenReturn(TimeUnit.MILLISECONDS.toNanos(5), TimeUnit.MILLISECONDS.toNanos(12));
+        ImportMetrics metrics = new ImportMetrics(repository);
+
+        metrics.start(() -> 3);
+        for (int i = 1; i <= 100; i++) {
+            metrics.recordBatch(10, TimeUnit.MILLISECONDS.toNanos(i), i != 100);
+        }
+        metrics.recordRead(TimeUnit.MILLISECONDS.toNanos(900));
+        metrics.recordBackpressure(TimeUnit.MILLISECONDS.toNanos(300));
+        metrics.recordRowRejected();
+
+        assertEquals(990, metrics.getRowsWritten());
+        assertEquals(99, metrics.getBatchesWritten());
+        assertEquals(1, metrics.getBatchesFailed());
+        assertEquals(1, metrics.getRowsRejected());
+        assertEquals(50.0, metrics.getBatchLatencyP50Millis());
+        assertEquals(99.0, metrics.getBatchLatencyP99Millis());
+        assertEquals(100.0, metrics.getBatchLatencyMaxMillis());
+        assertEquals(600, metrics.getParseMillis());
+        assertEquals(5050, metrics.getWriteMillis());
+        assertEquals(3, metrics.getQueueDepth());
+        assertEquals(7, metrics.getConnectionWaitMillis());
+
+        metrics.finish();
+        metrics.start(() -> 0);
+        assertEquals(0, metrics.getRowsWritten());
+        assertEquals(0.0, metrics.getBatchLatencyP99Millis());
+    }
+
+    @Test
+    void shouldPublishThroughJmxAndJsonSnapshot() throws Exception {
+        ImportMetrics metrics = new ImportMetrics(mock(PersonRepository.class));
+        metrics.start(() -> 0);
+        metrics.recordRowParsed();
+        Path snapshot = tempDir.resolve("metrics.json");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(ImportMetrics.OBJECT_NAME);
+
+        try (MetricsReporter reporter = new MetricsReporter(metrics, 0, snapshot)) {
+            assertEquals(1L, server.getAttribute(name, "RowsParsed"));
+            reporter.report();
+            assertTrue(Files.readString(snapshot).contains("\"rowsParsed\":1,"));
+        }
+
+        assertFalse(server.isRegistered(name));
+        String json = Files.readString(snapshot);
+        assertTrue(json.startsWith("{\"elapsedMillis\":"));
+        assertTrue(json.endsWith("\"connectionWaitMillis\":0}"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.ministry.importer.model;
+
+import com.ministry.importer.enums.Status;
+import com.ministry.importer.utility.ContentHash;
+import org.junit.jupiter.api.Test;
+
+import java.nio.CharBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersonBatchTest {
+
+    @Test
+    void shouldStoreRowsInColumnsAndRebuildPeople() {
+        PersonBatch batch = new PersonBatch(1);
+        Person jean = new Person("EMP001", "Jean", "Dupont", LocalDate.of(1980, 5, 15), Status.INACTIF);
+        Person nulls = new Person("EMP002", null, "", (LocalDate) null, null);
+
+        batch.add(jean);
+        batch.add(nulls);
+
+        assertEquals(2, batch.size());
+        assertEquals("Dupont", batch.getLastName(0));
+        assertEquals(LocalDate.of(1980, 5, 15), batch.getBirthDate(0));
+        assertEquals(Status.INACTIF, batch.getStatus(0));
+        assertNull(batch.getFirstName(1));
+        assertNull(batch.getText(1, PersonBatch.FIRST_NAME));
+        assertEquals("", batch.getLastName(1));
+        assertNull(batch.getBirthDate(1));
+        assertNull(batch.getStatus(1));
+        assertEquals(List.of(jean, nulls), batch);
+    }
+
+    @Test
+    void shouldGrowPastInitialCapacity() {
+        PersonBatch batch = new PersonBatch(4);
+        List<Person> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Person person = new Person("EMP" + i, "Prénom très long numéro " + i, "Nom" + i,
+                    LocalDate.of(1950, 1, 1).plusDays(i * 17L), Status.values()[i % Status.values().length]);
+            expected.add(person);
+            batch.add(person);
+        }
+
+        assertEquals(expected, batch);
+        assertEquals("Prénom très long numéro 999", batch.getText(999, PersonBatch.FIRST_NAME).toString());
+    }
+
+    @Test
+    void shouldStoreEachDistinctFirstNameOnce() {
+        PersonBatch batch = new PersonBatch(4);
+        batch.add("EMP001", "Jean", "Dupont", null, Status.ACTIF);
+        batch.add("EMP002", "Marie", "Jean", null, Status.ACTIF);
+        batch.add("EMP003", new String("Jean"), "Martin", null, Status.ACTIF);
+
+        assertEquals(start(batch, 0, PersonBatch.FIRST_NAME), start(batch, 2, PersonBatch.FIRST_NAME));
+        assertNotEquals(start(batch, 0, PersonBatch.FIRST_NAME), start(batch, 1, PersonBatch.LAST_NAME));
+        assertEquals("Jean", batch.getFirstName(2));
+
+        batch.clear();
+        batch.add("EMP004", "Paul", "Durand", null, Status.ACTIF);
+        batch.add("EMP005", "Jean", "Petit", null, Status.ACTIF);
+        assertEquals("Jean", batch.getFirstName(1));
+        assertEquals("Petit", batch.getLastName(1));
+    }
+
+    private static int start(PersonBatch batch, int row, int field) {
+        return ((CharBuffer) batch.getText(row, field)).position();
+    }
+
+    @Test
+    void shouldHashRowsLikeThePeopleTheyHold() {
+        PersonBatch batch = new PersonBatch(2);
+        batch.add("EMP001", "Hélène", null, LocalDate.of(1975, 3, 8), Status.EN_ATTENTE);
+        batch.add("EMP002", "", "Dupont", null, null);
+
+        for (int row = 0; row < batch.size(); row++) {
+            Person person = batch.get(row);
+            assertEquals(ContentHash.of(person.getMatricule(), person.getFirstName(), person.getLastName(),
+                    person.getBirthDate(), person.getStatus()), batch.getContentHash(row));
+        }
+        assertNotEquals(batch.getContentHash(0), batch.getContentHash(1));
+    }
+
+    @Test
+    void shouldRejectRowsOutOfRange() {
+        PersonBatch batch = new PersonBatch();
+        batch.add("EMP001", "Jean", "Dupont", null, Status.ACTIF);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.get(1));
+        batch.clear();
+        assertTrue(batch.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.getMatricule(0));
+    }
+}
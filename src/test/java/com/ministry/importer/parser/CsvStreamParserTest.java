@@ -0,0 +1,230 @@
+package com.ministry.importer.parser;
+
+import com.ministry.importer.enums.Status;
+import com.ministry.importer.model.Person;
+import com.ministry.importer.model.RejectedRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvStreamParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final CsvStreamParser parser = new CsvStreamParser();
+
+    @Test
+    void shouldParseCommaSeparatedFile() throws Exception {
+        Path file = write("people.csv", "matricule,prenom,nom,naissance,statut\n"
+                + "EMP001,Jean,Dupont,05/15/1980,Inactif\n"
+                + "EMP002,Marie,Martin,1985-09-23,Actif\n");
+
+        List<Person> people = parse(file);
+
+        assertEquals(2, people.size());
+        Person first = people.get(0);
+        assertEquals("EMP001", first.getMatricule());
+        assertEquals("Jean", first.getFirstName());
+        assertEquals("Dupont", first.getLastName());
+        assertEquals(LocalDate.of(1980, 5, 15), first.getBirthDate());
+        assertEquals(Status.INACTIF, first.getStatus());
+        assertEquals(LocalDate.of(1985, 9, 23), people.get(1).getBirthDate());
+    }
+
+    @Test
+    void shouldHandleQuotedFields() throws Exception {
+        Path file = write("people.csv", "matricule,prenom,nom,naissance,statut\n"
+                + "\"EMP001\",\"Jean, dit \"\"Jeannot\"\"\",\"Du\npont\",,Actif\n");
+
+        Person person = parse(file).get(0);
+
+        assertEquals("Jean, dit \"Jeannot\"", person.getFirstName());
+        assertEquals("Du\npont", person.getLastName());
+        assertNull(person.getBirthDate());
+    }
+
+    @Test
+    void shouldDetectSemicolonAndTabDelimiters() throws Exception {
+        Path semicolons = write("export.csv", "matricule;prenom;nom;naissance;statut\n"
+                + "EMP001;Jean;Dupont, Jr;15/05/1980;Actif\n");
+        Path tabs = write("export.tsv", "matricule\tprenom\tnom\tnaissance\tstatut\n"
+                + "EMP002\tMarie\tMartin\t23/09/1985\tActif\n");
+
+        assertEquals("Dupont, Jr", parse(semicolons).get(0).getLastName());
+        assertEquals("Martin", parse(tabs).get(0).getLastName());
+    }
+
+    @Test
+    void shouldHandleBomCrlfUtf8AndBlankLines() throws Exception {
+        Path file = tempDir.resolve("windows.csv");
+        byte[] content = ("﻿matricule,prenom,nom,naissance,statut\r\n"
+                + "EMP001,Hélène,Lefèvre,15/05/1980,Actif\r\n"
+                + "\r\n"
+                + "EMP002,Zoë,Müller,23/09/1985,Actif").getBytes(StandardCharsets.UTF_8);
+        Files.write(file, content);
+
+        List<Person> people = parse(file);
+
+        assertEquals(2, people.size());
+        assertEquals("Hélène", people.get(0).getFirstName());
+        assertEquals("Lefèvre", people.get(0).getLastName());
+        assertEquals("Müller", people.get(1).getLastName());
+        assertEquals(Status.ACTIF, people.get(1).getStatus());
+    }
+
+    @Test
+    void shouldSplitOnRecordBoundariesOnly() throws Exception {
+        Path file = tempDir.resolve("large.csv");
+        List<String> expected = new ArrayList<>();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("matricule,prenom,nom,naissance,statut\n");
+            for (int i = 0; i < 60_000; i++) {
+                String matricule = "EMP" + i;
+                expected.add(matricule);
+                // Quoted line breaks must never be taken as a chunk boundary
+                writer.write(matricule + ",\"Prénom\nsur deux lignes\",Nom,15/05/1980,Actif\n");
+            }
+        }
+
+        List<CsvStreamParser.Chunk> chunks = parser.split(file.toString(), 3);
+        List<String> matricules = new ArrayList<>();
+        for (CsvStreamParser.Chunk chunk : chunks) {
+            try (Stream<Person> stream = parser.parseChunk(chunk)) {
+                stream.forEach(person -> {
+                    assertEquals("Prénom\nsur deux lignes", person.getFirstName());
+                    matricules.add(person.getMatricule());
+                });
+            }
+        }
+
+        assertEquals(3, chunks.size());
+        assertEquals(Files.size(file), chunks.get(2).getEnd());
+        assertEquals(expected, matricules);
+    }
+
+    @Test
+    void shouldReportRejectedRowNumbersAcrossChunks() throws Exception {
+        Path file = tempDir.resolve("rejects.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("matricule,prenom,nom,naissance,statut\n");
+            for (int i = 1; i <= 60_000; i++) {
+                String status = i % 20_000 == 0 ? "Inconnu" : "Actif";
+                writer.write("EMP" + i + ",\"Prénom\nNom\",Nom,15/05/1980," + status + "\n");
+            }
+        }
+
+        List<RejectedRow> rejects = new ArrayList<>();
+        long parsed = 0;
+        for (CsvStreamParser.Chunk chunk : parser.split(file.toString(), 3)) {
+            try (Stream<Person> stream = parser.parseChunk(chunk, rejects::add)) {
+                parsed += stream.count();
+            }
+        }
+
+        assertEquals(59_997, parsed);
+        assertEquals(List.of(20_001L, 40_001L, 60_001L),
+                rejects.stream().map(RejectedRow::getRowNumber).sorted().collect(Collectors.toList()));
+        assertEquals("Statut non valide: Inconnu", rejects.get(0).getReason());
+        assertEquals("EMP20000", rejects.get(0).getValues().get(0));
+    }
+
+    @Test
+    void shouldShareDetectedDateFormatAcrossChunks() throws Exception {
+        Path file = tempDir.resolve("dates.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("matricule,prenom,nom,naissance,statut\n");
+            // Only the first row tells dd/MM from MM/dd
+            writer.write("EMP0,\"Prénom\nNom\",Nom,25/12/1980,Actif\n");
+            for (int i = 1; i < 60_000; i++) {
+                writer.write("EMP" + i + ",\"Prénom\nNom\",Nom,05/06/1980,Actif\n");
+            }
+        }
+
+        List<CsvStreamParser.Chunk> chunks = parser.split(file.toString(), 3);
+        List<LocalDate> ambiguous = new ArrayList<>();
+        for (CsvStreamParser.Chunk chunk : chunks) {
+            try (Stream<Person> stream = parser.parseChunk(chunk)) {
+                stream.filter(person -> !person.getMatricule().equals("EMP0"))
+                        .forEach(person -> ambiguous.add(person.getBirthDate()));
+            }
+        }
+
+        assertEquals(3, chunks.size());
+        assertEquals(59_999, ambiguous.size());
+        assertTrue(ambiguous.stream().allMatch(LocalDate.of(1980, 6, 5)::equals));
+    }
+
+    @Test
+    void shouldReportRowAndDateFormatOfEachPersonToRowListener() throws Exception {
+        Path file = write("people.csv", "matricule,prenom,nom,naissance,statut\n"
+                + "EMP001,Jean,Dupont,1980-05-15,Actif\n"
+                + "EMP002,Marie,Martin,15/05/1980,Statut inconnu\n"
+                + "EMP003,Paul,Durand,,Actif\n");
+        List<String> accepted = new ArrayList<>();
+        RowListener listener = new RowListener() {
+            @Override
+            public void accept(RejectedRow row) {
+            }
+
+            @Override
+            public void accepted(long rowNumber, String birthDateFormat) {
+                accepted.add(rowNumber + " " + birthDateFormat);
+            }
+        };
+
+        CsvStreamParser.Chunk chunk = parser.split(file.toString(), 1).get(0);
+        try (Stream<Person> stream = parser.parseChunk(chunk, listener)) {
+            assertEquals(2, stream.count());
+        }
+
+        assertEquals(List.of("2 yyyy-MM-dd", "4 null"), accepted);
+    }
+
+    @Test
+    void shouldRejectMissingMatriculeOnlyWithRejectHandler() throws Exception {
+        Path file = write("people.csv", "matricule,prenom,nom,naissance,statut\n"
+                + ",Jean,Dupont,15/05/1980,Actif\n");
+        List<RejectedRow> rejects = new ArrayList<>();
+
+        List<Person> lenient = parse(file);
+        List<Person> checked;
+        CsvStreamParser.Chunk chunk = parser.split(file.toString(), 1).get(0);
+        try (Stream<Person> stream = parser.parseChunk(chunk, rejects::add)) {
+            checked = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(1, lenient.size());
+        assertEquals("Dupont", lenient.get(0).getLastName());
+        assertTrue(checked.isEmpty());
+        assertEquals("Matricule manquant", rejects.get(0).getReason());
+    }
+
+    @Test
+    void shouldRecognizeDelimitedFiles() {
+        assertTrue(CsvStreamParser.supports("data/people.CSV"));
+        assertTrue(CsvStreamParser.supports("people.tsv"));
+        assertFalse(CsvStreamParser.supports("people.xlsx"));
+    }
+
+    private List<Person> parse(Path file) {
+        try (Stream<Person> stream = parser.parseAsStream(file.toString())) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+
+    private Path write(String name, String content) throws Exception {
+        return Files.write(tempDir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
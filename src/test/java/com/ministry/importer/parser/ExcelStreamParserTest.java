@@ -1,16 +1,25 @@
 package com.ministry.importer.parser;
 
+import com.ministry.importer.enums.ParseMode;
 import com.ministry.importer.enums.Status;
 import com.ministry.importer.model.Person;
+import com.ministry.importer.model.RejectedRow;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class ExcelStreamParserTest {
@@ -137,4 +146,196 @@ public class ExcelStreamParserTest {
 
         return tempFile;
     }
+
+    @Test
+    void shouldProduceSameRecordsInEventAndWorkbookModes() throws Exception {
+        File largeFile = createLargeTestExcelFile();
+
+        try (Stream<Person> events = new ExcelStreamParser(ParseMode.EVENT).parseAsStream(largeFile.getAbsolutePath());
+             Stream<Person> workbook = new ExcelStreamParser(ParseMode.WORKBOOK).parseAsStream(largeFile.getAbsolutePath())) {
+            assertEquals(workbook.collect(Collectors.toList()), events.collect(Collectors.toList()));
+        } finally {
+            largeFile.delete();
+        }
+    }
+
+    @Test
+    void shouldReadInlineStringsInEventMode() throws Exception {
+        File tempFile = File.createTempFile("inline", ".xlsx");
+
+        // SXSSF writes cells as inline strings instead of shared strings
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook();
+             FileOutputStream out = new FileOutputStream(tempFile)) {
+            var sheet = workbook.createSheet("Employees");
+            sheet.createRow(0).createCell(0).setCellValue("matricule");
+
+            var dataRow = sheet.createRow(1);
+            dataRow.createCell(0).setCellValue("EMP010");
+            dataRow.createCell(1).setCellValue("Paul");
+            dataRow.createCell(2).setCellValue("Martin");
+            dataRow.createCell(3).setCellValue("1975-03-02");
+            dataRow.createCell(4).setCellValue("Suspendu");
+
+            workbook.write(out);
+            workbook.dispose();
+        }
+
+        try (Stream<Person> stream = new ExcelStreamParser(ParseMode.EVENT).parseAsStream(tempFile.getAbsolutePath())) {
+            List<Person> people = stream.collect(Collectors.toList());
+
+            assertEquals(1, people.size());
+            assertEquals("EMP010", people.get(0).getMatricule());
+            assertEquals(LocalDate.of(1975, 3, 2), people.get(0).getBirthDate());
+            assertEquals(Status.SUSPENDU, people.get(0).getStatus());
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    @Test
+    void shouldStopReaderThreadWhenStreamClosedEarly() throws Exception {
+        File largeFile = createLargeTestExcelFile();
+        ExcelStreamParser parser = new ExcelStreamParser(ParseMode.EVENT);
+
+        try (Stream<Person> stream = parser.parseAsStream(largeFile.getAbsolutePath())) {
+            assertEquals("EMP1", stream.findFirst().orElseThrow().getMatricule());
+        } finally {
+            largeFile.delete();
+        }
+
+        await().untilAsserted(() -> assertFalse(Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> thread.getName().equals("xlsx-event-reader"))));
+    }
+
+    @Test
+    void shouldResolveColumnIndexFromCellReference() {
+        assertEquals(0, EventSheetReader.columnIndex("A1"));
+        assertEquals(4, EventSheetReader.columnIndex("E12"));
+        assertEquals(27, EventSheetReader.columnIndex("AB3"));
+    }
+
+    @Test
+    void shouldReadEverySheetInBothModes() throws Exception {
+        File tempFile = File.createTempFile("departments", ".xlsx");
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             FileOutputStream out = new FileOutputStream(tempFile)) {
+            for (String department : List.of("RH", "Finances")) {
+                var sheet = workbook.createSheet(department);
+                sheet.createRow(0).createCell(0).setCellValue("matricule");
+                for (int i = 1; i <= 3; i++) {
+                    var dataRow = sheet.createRow(i);
+                    dataRow.createCell(0).setCellValue(department + i);
+                    dataRow.createCell(1).setCellValue("Prénom");
+                    dataRow.createCell(2).setCellValue("Nom");
+                    dataRow.createCell(3).setCellValue("2000-01-01");
+                    dataRow.createCell(4).setCellValue("Actif");
+                }
+            }
+            workbook.write(out);
+        }
+
+        try {
+            for (ParseMode mode : ParseMode.values()) {
+                ExcelStreamParser parser = new ExcelStreamParser(mode);
+                assertEquals(2, parser.getSheetCount(tempFile.getAbsolutePath()));
+
+                try (Stream<Person> stream = parser.parseSheet(tempFile.getAbsolutePath(), 1)) {
+                    assertEquals(List.of("Finances1", "Finances2", "Finances3"),
+                            stream.map(Person::getMatricule).collect(Collectors.toList()));
+                }
+            }
+            assertThrows(RuntimeException.class,
+                    () -> new ExcelStreamParser(ParseMode.EVENT).parseSheet(tempFile.getAbsolutePath(), 2));
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    @Test
+    void shouldReadNumericMatriculesAndDateCellsNatively() throws Exception {
+        for (boolean date1904 : new boolean[]{false, true}) {
+            File tempFile = File.createTempFile("numeric", ".xlsx");
+            try (XSSFWorkbook workbook = new XSSFWorkbook();
+                 FileOutputStream out = new FileOutputStream(tempFile)) {
+                if (date1904) {
+                    var workbookProperties = workbook.getCTWorkbook();
+                    (workbookProperties.isSetWorkbookPr() ? workbookProperties.getWorkbookPr()
+                            : workbookProperties.addNewWorkbookPr()).setDate1904(true);
+                }
+                var sheet = workbook.createSheet("Employees");
+                sheet.createRow(0).createCell(0).setCellValue("matricule");
+                var dataRow = sheet.createRow(1);
+                dataRow.createCell(0).setCellValue(12345);
+                dataRow.createCell(1).setCellValue("Jean");
+                dataRow.createCell(2).setCellValue(1.5e3);
+                dataRow.createCell(3).setCellValue(LocalDate.of(1980, 5, 15));
+                dataRow.createCell(4).setCellValue("Actif");
+                workbook.write(out);
+            }
+
+            try {
+                for (ParseMode mode : ParseMode.values()) {
+                    try (Stream<Person> stream = new ExcelStreamParser(mode).parseAsStream(tempFile.getAbsolutePath())) {
+                        Person person = stream.findFirst().orElseThrow();
+
+                        assertEquals("12345", person.getMatricule(), mode.name());
+                        assertEquals("1500", person.getLastName(), mode.name());
+                        assertEquals(LocalDate.of(1980, 5, 15), person.getBirthDate(), mode + " 1904=" + date1904);
+                    }
+                }
+            } finally {
+                tempFile.delete();
+            }
+        }
+    }
+
+    @Test
+    void shouldQuarantineInvalidRowsInBothModes() throws Exception {
+        File tempFile = File.createTempFile("rejects", ".xlsx");
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             FileOutputStream out = new FileOutputStream(tempFile)) {
+            var sheet = workbook.createSheet("Employees");
+            sheet.createRow(0).createCell(0).setCellValue("matricule");
+            String[][] rows = {
+                    {"EMP001", "Jean", "Dupont", "15/05/1980", "Actif"},
+                    {"EMP002", "Marie", "Curie", "31/31/1867", "Actif"},
+                    {"EMP003", "Paul", "Martin", "1975-03-02", "Retraité"},
+                    {null, "Anne", "Petit", "1990-01-01", "Actif"},
+                    {"EMP005", "Luc", "Blanc", "2001-12-24", "Inactif"}};
+            for (int i = 0; i < rows.length; i++) {
+                var dataRow = sheet.createRow(i + 1);
+                for (int column = 0; column < rows[i].length; column++) {
+                    if (rows[i][column] != null) {
+                        dataRow.createCell(column).setCellValue(rows[i][column]);
+                    }
+                }
+            }
+            workbook.write(out);
+        }
+
+        try {
+            for (ParseMode mode : ParseMode.values()) {
+                List<RejectedRow> rejects = new ArrayList<>();
+                try (Stream<Person> stream = new ExcelStreamParser(mode).parseSheet(tempFile.getAbsolutePath(), 0, rejects::add)) {
+                    assertEquals(List.of("EMP001", "EMP005"),
+                            stream.map(Person::getMatricule).collect(Collectors.toList()));
+                }
+
+                assertEquals(3, rejects.size());
+                assertEquals(3, rejects.get(0).getRowNumber());
+                assertEquals(Arrays.asList("EMP002", "Marie", "Curie", "31/31/1867", "Actif"), rejects.get(0).getValues());
+                assertEquals("Statut non valide: Retraité", rejects.get(1).getReason());
+                assertEquals(5, rejects.get(2).getRowNumber());
+                assertEquals(tempFile.getAbsolutePath(), rejects.get(2).getSource());
+            }
+
+            try (Stream<Person> stream = new ExcelStreamParser().parseAsStream(tempFile.getAbsolutePath())) {
+                assertThrows(IllegalArgumentException.class, () -> stream.forEach(person -> { }));
+            }
+        } finally {
+            tempFile.delete();
+        }
+    }
 }
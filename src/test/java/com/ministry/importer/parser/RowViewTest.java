@@ -0,0 +1,40 @@
+package com.ministry.importer.parser;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RowViewTest {
+
+    @Test
+    void shouldRenderNumbersWithoutExponentNorTrailingZeros() {
+        RowView row = new RowView(5);
+        row.clear(2);
+        row.setNumber(0, 12345, "12345");
+        row.setNumber(1, 1.2345E10, "1.2345E10");
+        row.setNumber(2, 12.50, "12.50");
+        row.setNumber(3, 98765.0, null);
+        row.setNumber(4, 0.1, null);
+
+        assertArrayEquals(new String[]{"12345", "12345000000", "12.5", "98765", "0.1"}, row.toValues());
+        assertEquals(2, row.getRowNumber());
+    }
+
+    @Test
+    void shouldForgetCellsOfThePreviousRow() {
+        RowView row = new RowView(3);
+        row.clear(2);
+        row.setText(0, "EMP001");
+        row.setNumber(1, 3, "3");
+        row.setText(7, "ignored");
+
+        row.clear(3);
+        row.setText(2, "");
+
+        assertTrue(row.isEmpty(0));
+        assertFalse(row.isNumber(1));
+        assertNull(row.getText(1));
+        assertEquals("", row.getText(2));
+        assertEquals(3, row.getRowNumber());
+    }
+}
@@ -0,0 +1,100 @@
+package com.ministry.importer.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+public class BulkLoadTest {
+    private static final String COLUMNS = "matricule, first_name";
+
+    private Connection connection;
+    private Statement statement;
+
+    @BeforeEach
+    void setup() throws Exception {
+        connection = mock(Connection.class);
+        statement = mock(Statement.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenAnswer(invocation -> resultSet());
+    }
+
+    @Test
+    void shouldLoadRowByRowWhenTableIsNotEmpty() throws Exception {
+        when(statement.executeQuery(startsWith("SELECT NOT EXISTS"))).thenAnswer(invocation -> resultSet(false));
+
+        assertNull(BulkLoad.prepare(connection, COLUMNS, null));
+
+        verify(statement, never()).execute(anyString());
+        verify(connection).commit();
+    }
+
+    @Test
+    void shouldRebuildConstraintsAndIndexesAfterSwappingLoadTableIn() throws Exception {
+        when(statement.executeQuery(startsWith("SELECT NOT EXISTS"))).thenAnswer(invocation -> resultSet(true));
+        when(statement.executeQuery(startsWith("SELECT EXISTS"))).thenAnswer(invocation -> resultSet(false));
+        when(statement.executeQuery(contains("FROM pg_constraint WHERE")))
+                .thenAnswer(invocation -> resultSet("people_pkey", "PRIMARY KEY (id)"));
+        when(statement.executeQuery(startsWith("SELECT pg_get_indexdef")))
+                .thenAnswer(invocation -> resultSet("CREATE UNIQUE INDEX people_matricule_key ON public.people USING btree (matricule)"));
+
+        BulkLoad bulkLoad = BulkLoad.prepare(connection, COLUMNS, " ON CONFLICT (matricule) DO NOTHING");
+        Map<String, Long> phases = bulkLoad.finish(connection);
+
+        InOrder inOrder = inOrder(statement, connection);
+        inOrder.verify(statement).execute("CREATE UNLOGGED TABLE people_load (LIKE people INCLUDING DEFAULTS INCLUDING IDENTITY)");
+        inOrder.verify(connection).commit();
+        inOrder.verify(statement).executeUpdate(startsWith("DELETE FROM people_load"));
+        inOrder.verify(statement).execute("DROP TABLE people");
+        inOrder.verify(statement).execute("ALTER TABLE people_load RENAME TO people");
+        inOrder.verify(statement).execute("ALTER TABLE people SET LOGGED");
+        inOrder.verify(statement).execute("ALTER TABLE people ADD CONSTRAINT people_pkey PRIMARY KEY (id)");
+        inOrder.verify(statement).execute(startsWith("CREATE UNIQUE INDEX people_matricule_key"));
+        inOrder.verify(connection).commit();
+        inOrder.verify(statement).execute("ANALYZE people");
+        assertEquals(List.of("prepare", "load", "deduplicate", "swap", "log", "index", "analyze"),
+                List.copyOf(phases.keySet()));
+        verify(connection, never()).rollback();
+    }
+
+    @Test
+    void shouldCopyRowsIntoPeopleWhenSwapFails() throws Exception {
+        when(statement.executeQuery(startsWith("SELECT NOT EXISTS"))).thenAnswer(invocation -> resultSet(true));
+        when(statement.executeQuery(startsWith("SELECT EXISTS"))).thenAnswer(invocation -> resultSet(false));
+        when(statement.execute("DROP TABLE people")).thenThrow(new SQLException("view depends on table people"));
+
+        BulkLoad bulkLoad = BulkLoad.prepare(connection, COLUMNS, null);
+        Map<String, Long> phases = bulkLoad.finish(connection);
+
+        verify(connection).rollback();
+        verify(statement).executeUpdate(
+                "INSERT INTO people (matricule, first_name) SELECT matricule, first_name FROM people_load ORDER BY id");
+        verify(statement, times(2)).execute("DROP TABLE IF EXISTS people_load");
+        assertEquals(List.of("prepare", "load", "copy", "analyze"), List.copyOf(phases.keySet()));
+    }
+
+    private static ResultSet resultSet(Object... row) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(row.length > 0, false);
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] instanceof Boolean) {
+                when(rs.getBoolean(i + 1)).thenReturn((Boolean) row[i]);
+            } else {
+                when(rs.getString(i + 1)).thenReturn((String) row[i]);
+            }
+        }
+        return rs;
+    }
+}
@@ -0,0 +1,190 @@
+package com.ministry.importer.repository;
+
+import com.ministry.importer.enums.Status;
+import com.ministry.importer.model.Person;
+import com.ministry.importer.model.PersonBatch;
+import com.ministry.importer.utility.ContentHash;
+import org.junit.jupiter.api.Test;
+import org.postgresql.copy.CopyIn;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class CopyEncoderTest {
+
+    @Test
+    void shouldEncodeRowInTextFormat() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CopyEncoder encoder = new CopyEncoder(capturing(out));
+
+        encoder.write(person("EMP001", "Jean", "Dupont", LocalDate.of(1980, 5, 15), Status.ACTIF));
+        encoder.flush();
+
+        assertEquals("EMP001\tJean\tDupont\t1980-05-15\tACTIF\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldEscapeSpecialCharactersAndNulls() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CopyEncoder encoder = new CopyEncoder(capturing(out));
+
+        encoder.write(person("A\\B", "Tab\there", "Line\nbreak", null, null));
+        encoder.flush();
+
+        assertEquals("A\\\\B\tTab\\there\tLine\\nbreak\t\\N\t\\N\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldEncodeNonAsciiAsUtf8() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CopyEncoder encoder = new CopyEncoder(capturing(out));
+
+        encoder.write(person("EMP002", "Hélène", "Œuvre😀", LocalDate.of(2001, 1, 2), Status.EN_ATTENTE));
+        encoder.flush();
+
+        assertEquals("EMP002\tHélène\tŒuvre😀\t2001-01-02\tEN_ATTENTE\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldEncodeColumnarRowsLikePeople() throws Exception {
+        PersonBatch batch = new PersonBatch(2);
+        batch.add(person("A\\B", "Hélène", "Œuvre😀", LocalDate.of(2001, 1, 2), Status.EN_ATTENTE));
+        batch.add(person("EMP003", null, "Line\nbreak", null, Status.ACTIF));
+
+        ByteArrayOutputStream fromPeople = new ByteArrayOutputStream();
+        CopyEncoder peopleEncoder = new CopyEncoder(capturing(fromPeople));
+        ByteArrayOutputStream fromColumns = new ByteArrayOutputStream();
+        CopyEncoder columnEncoder = new CopyEncoder(capturing(fromColumns));
+        for (int row = 0; row < batch.size(); row++) {
+            peopleEncoder.write(batch.get(row));
+            columnEncoder.write(batch, row);
+        }
+        peopleEncoder.flush();
+        columnEncoder.flush();
+
+        assertEquals(fromPeople.toString(StandardCharsets.UTF_8), fromColumns.toString(StandardCharsets.UTF_8));
+        assertEquals("EMP003\t\\N\tLine\\nbreak\t\\N\tACTIF\n",
+                fromColumns.toString(StandardCharsets.UTF_8).split("(?<=\n)")[1]);
+    }
+
+    @Test
+    void shouldWriteStatusCodesWhenStatusesAreDictionaryEncoded() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CopyEncoder encoder = new CopyEncoder(capturing(out), CopyEncoder.DEFAULT_BUFFER_SIZE, true);
+
+        encoder.write(person("EMP001", "Jean", "Dupont", null, Status.EN_ATTENTE));
+        encoder.write(person("EMP002", "Marie", "Curie", null, null));
+        encoder.flush();
+
+        assertEquals("EMP001\tJean\tDupont\t\\N\t4\nEMP002\tMarie\tCurie\t\\N\t\\N\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldAppendContentHashColumnWhenEnabled() throws Exception {
+        PersonBatch batch = new PersonBatch(1);
+        batch.add(person("EMP002", "Marie", "Curie", null, null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CopyEncoder encoder = new CopyEncoder(capturing(out), CopyEncoder.DEFAULT_BUFFER_SIZE, false, true);
+
+        encoder.write(person("EMP001", "Jean", "Dupont", LocalDate.of(1980, 5, 15), Status.ACTIF));
+        encoder.write(batch, 0);
+        encoder.flush();
+
+        long first = ContentHash.of("EMP001", "Jean", "Dupont", LocalDate.of(1980, 5, 15), Status.ACTIF);
+        long second = ContentHash.of("EMP002", "Marie", "Curie", null, null);
+        assertEquals("EMP001\tJean\tDupont\t1980-05-15\tACTIF\t" + first + "\n" +
+                        "EMP002\tMarie\tCurie\t\\N\t\\N\t" + second + "\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldWriteLongsOfEitherSign() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CopyEncoder encoder = new CopyEncoder(capturing(out), 64, false, true);
+        long[] values = {0, 7, -1, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE};
+        StringBuilder expected = new StringBuilder();
+
+        for (long value : values) {
+            encoder.writeLong(value);
+            expected.append(value);
+        }
+        encoder.flush();
+
+        assertEquals(expected.toString(), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldWriteYearsOutsideFourDigitsAsPostgresReadsThem() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CopyEncoder encoder = new CopyEncoder(capturing(out));
+
+        encoder.write(person("EMP001", null, null, LocalDate.of(10000, 1, 2), null));
+        encoder.write(person("EMP002", null, null, LocalDate.of(0, 12, 31), null));
+        encoder.write(person("EMP003", null, null, LocalDate.of(-43, 3, 15), null));
+        encoder.flush();
+
+        assertEquals("EMP001\t\\N\t\\N\t10000-01-02\t\\N\n" +
+                        "EMP002\t\\N\t\\N\t0001-12-31 BC\t\\N\n" +
+                        "EMP003\t\\N\t\\N\t0044-03-15 BC\t\\N\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldReplaceLoneSurrogatesLikeTheDriver() throws Exception {
+        String text = "a\uD800b\uDC00c😀";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CopyEncoder encoder = new CopyEncoder(capturing(out));
+
+        encoder.write(person(text, null, null, null, null));
+        encoder.flush();
+
+        byte[] expected = (text + "\t\\N\t\\N\t\\N\t\\N\n").getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(expected, out.toByteArray());
+        assertEquals("a?b?c😀", out.toString(StandardCharsets.UTF_8).split("\t")[0]);
+    }
+
+    @Test
+    void shouldFlushWhenBufferIsFull() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CopyIn copyIn = capturing(out);
+        CopyEncoder encoder = new CopyEncoder(copyIn, 64);
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            encoder.write(person("EMP" + i, "Prénom" + i, "Nom" + i, LocalDate.of(1990, 1, 1), Status.ACTIF));
+            expected.append("EMP").append(i).append("\tPrénom").append(i).append("\tNom").append(i)
+                    .append("\t1990-01-01\tACTIF\n");
+        }
+        encoder.flush();
+
+        assertEquals(expected.toString(), out.toString(StandardCharsets.UTF_8));
+        verify(copyIn, atLeast(10)).writeToCopy(any(byte[].class), anyInt(), anyInt());
+    }
+
+    private CopyIn capturing(ByteArrayOutputStream out) throws Exception {
+        CopyIn copyIn = mock(CopyIn.class);
+        doAnswer(invocation -> {
+            out.write(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        return copyIn;
+    }
+
+    private Person person(String matricule, String firstName, String lastName, LocalDate birthDate, Status status) {
+        Person person = new Person();
+        person.setMatricule(matricule);
+        person.setFirstName(firstName);
+        person.setLastName(lastName);
+        person.setBirthDate(birthDate);
+        person.setStatus(status);
+        return person;
+    }
+}
@@ -1,20 +1,45 @@
 package com.ministry.importer.repository;
 
+import com.ministry.importer.enums.LoadStrategy;
 import com.ministry.importer.enums.Status;
+import com.ministry.importer.enums.StatusStorage;
+import com.ministry.importer.enums.WriteMode;
+import com.ministry.importer.model.BatchCheckpoint;
 import com.ministry.importer.model.Person;
+import com.ministry.importer.model.PersonBatch;
+import com.ministry.importer.model.RowHash;
+import com.ministry.importer.utility.ContentHash;
 import com.zaxxer.hikari.HikariDataSource;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.mockito.InOrder;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.*;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -22,18 +47,19 @@ public class PersonRepositoryTest {
     private PersonRepository repository;
     private Connection mockConnection;
     private PreparedStatement mockStatement;
+    private HikariDataSource mockDataSource;
 
     @BeforeEach
     void setup() throws Exception {
         mockConnection = mock(Connection.class);
         mockStatement = mock(PreparedStatement.class);
-        HikariDataSource mockDataSource = mock(HikariDataSource.class);
+        mockDataSource = mock(HikariDataSource.class);
 
         when(mockStatement.executeBatch()).thenReturn(new int[]{1, 1});
         when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
         when(mockDataSource.getConnection()).thenReturn(mockConnection);
 
-        repository = new PersonRepository(mockDataSource);
+        repository = new PersonRepository(mockDataSource, new RepositorySettings().commitInterval(1000));
 
     }
 
@@ -121,6 +147,34 @@ public class PersonRepositoryTest {
         verify(mockConnection, times(2)).commit();
     }
 
+    @Test
+    void shouldSplitBatchInsertsIntoConfiguredStatementBatches() throws Exception {
+        repository = new PersonRepository(mockDataSource, new RepositorySettings().statementBatchSize(400));
+        List<Person> largeBatch = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            largeBatch.add(new Person("ID" + i, "FirstName" + i, "LastName" + i, "1990-01-01", "Actif"));
+        }
+
+        repository.saveAll(largeBatch);
+
+        verify(mockStatement, times(3)).executeBatch(); // 400, 400, then the remaining 200
+        verify(mockConnection, times(1)).commit();
+    }
+
+    @Test
+    void shouldCommitOncePerBatchWithoutCommitInterval() throws Exception {
+        repository = new PersonRepository(mockDataSource, new RepositorySettings());
+        List<Person> largeBatch = new ArrayList<>();
+        for (int i = 1; i <= 2500; i++) {
+            largeBatch.add(new Person("ID" + i, "FirstName" + i, "LastName" + i, "1990-01-01", "Actif"));
+        }
+
+        repository.saveAll(largeBatch);
+
+        verify(mockStatement, times(3)).executeBatch();
+        verify(mockConnection, times(1)).commit();
+    }
+
     @Test
     void shouldLogDatabaseOperationError() throws Exception {
         when(mockStatement.executeBatch()).thenThrow(new SQLException("Batch operation failed"));
@@ -137,4 +191,431 @@ public class PersonRepositoryTest {
         verify(mockStatement, times(1)).executeBatch();
         verify(mockConnection, times(0)).commit();
     }
+
+    @Test
+    void shouldReuseConnectionAndStatementAcrossBatches() throws Exception {
+        repository.saveAll(List.of(new Person("TEST1", "Alice", "Smith", "1990-01-01", "Actif")));
+        repository.saveAll(List.of(new Person("TEST2", "Bob", "Jones", "1985-02-02", "Actif")));
+
+        verify(mockDataSource, times(1)).getConnection();
+        verify(mockConnection, times(1)).prepareStatement(anyString());
+        verify(mockConnection, times(2)).commit();
+        verify(mockConnection, never()).close();
+
+        repository.releaseSessions();
+
+        verify(mockStatement, times(1)).close();
+        verify(mockConnection, times(1)).close();
+    }
+
+    @Test
+    void shouldRollBackAndDiscardSessionWhenBatchFails() throws Exception {
+        when(mockStatement.executeBatch()).thenThrow(new SQLException("Database error")).thenReturn(new int[]{1});
+        List<Person> persons = List.of(new Person("TEST1", "Alice", "Smith", "1990-01-01", "Actif"));
+
+        Assertions.assertThrows(RuntimeException.class, () -> repository.saveAll(persons));
+        verify(mockConnection, times(1)).rollback();
+        verify(mockConnection, times(1)).close();
+
+        repository.saveAll(persons);
+        verify(mockDataSource, times(2)).getConnection();
+        verify(mockConnection, times(1)).commit();
+    }
+
+    @Test
+    void shouldBindColumnarBatchWithoutPeople() throws Exception {
+        PersonBatch batch = new PersonBatch(2);
+        batch.add("TEST1", "Alice", "Smith", java.time.LocalDate.of(1990, 1, 1), Status.ACTIF);
+        batch.add("TEST2", "Bob", null, null, Status.SUSPENDU);
+
+        repository.saveAll(batch);
+
+        verify(mockStatement).setString(1, "TEST1");
+        verify(mockStatement).setDate(4, java.sql.Date.valueOf("1990-01-01"));
+        verify(mockStatement).setString(3, null);
+        verify(mockStatement).setNull(4, java.sql.Types.DATE);
+        verify(mockStatement).setString(5, Status.SUSPENDU.toString());
+        verify(mockStatement, times(2)).addBatch();
+        verify(mockConnection, times(1)).commit();
+    }
+
+    @Test
+    void shouldFallBackToInsertWhenCopyIsNotSupported() throws Exception {
+        PersonRepository copyRepository = new PersonRepository(mockDataSource,
+                new RepositorySettings().loadStrategy(LoadStrategy.COPY));
+
+        copyRepository.saveAll(List.of(new Person("TEST3", "Eve", "Adams", "1991-03-03", "Actif")));
+
+        verify(mockConnection, times(1)).prepareStatement(anyString());
+        verify(mockStatement, times(1)).executeBatch();
+        verify(mockConnection, times(1)).commit();
+    }
+
+    @Test
+    void shouldCopyPeopleOnPostgres() throws Exception {
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        CopyIn copyIn = mock(CopyIn.class);
+        when(mockConnection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(mockConnection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString())).thenReturn(copyIn);
+        when(copyIn.endCopy()).thenReturn(2L);
+
+        PersonRepository copyRepository = new PersonRepository(mockDataSource,
+                new RepositorySettings().loadStrategy(LoadStrategy.COPY));
+        copyRepository.saveAll(List.of(
+                new Person("TEST4", "Ada", "Byron", "1990-12-10", "Actif"),
+                new Person("TEST5", "Alan", "Turing", "1990-06-23", "Suspendu")));
+
+        verify(copyManager, times(1)).copyIn(
+                "COPY people (matricule, first_name, last_name, birth_date, status) FROM STDIN");
+        verify(copyIn, times(1)).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        verify(copyIn, times(1)).endCopy();
+        verify(mockConnection, times(0)).prepareStatement(anyString());
+        verify(mockConnection, times(1)).commit();
+    }
+
+    @Test
+    void shouldUpsertOnMatriculeWhenConfigured() throws Exception {
+        PersonRepository upsertRepository = new PersonRepository(mockDataSource,
+                new RepositorySettings().writeMode(WriteMode.UPSERT));
+
+        upsertRepository.saveAll(List.of(new Person("TEST6", "Grace", "Hopper", "1906-12-09", "Actif")));
+
+        verify(mockConnection, times(1)).prepareStatement(contains("ON CONFLICT (matricule) DO UPDATE"));
+        verify(mockStatement, times(1)).addBatch();
+        verify(mockConnection, times(1)).commit();
+    }
+
+    @Test
+    void shouldSendOnlyLastRowOfRepeatedMatriculeInUpsertBatch() throws Exception {
+        PersonRepository upsertRepository = new PersonRepository(mockDataSource,
+                new RepositorySettings().writeMode(WriteMode.UPSERT));
+        PersonBatch batch = new PersonBatch(3);
+        batch.add(new Person("TEST6", "Grace", "Murray", "1906-12-09", "Actif"));
+        batch.add(new Person("TEST7", "Ada", "Lovelace", "1815-12-10", "Actif"));
+        batch.add(new Person("TEST6", "Grace", "Hopper", "1906-12-09", "Inactif"));
+
+        upsertRepository.saveAll(batch);
+
+        verify(mockStatement, never()).setString(3, "Murray");
+        verify(mockStatement).setString(3, "Hopper");
+        verify(mockStatement, times(2)).addBatch();
+        verify(mockConnection, times(1)).commit();
+    }
+
+    @Test
+    void shouldKeepRepeatedMatriculesInAppendBatch() throws Exception {
+        repository.saveAll(List.of(new Person("TEST6", "Grace", "Murray", "1906-12-09", "Actif"),
+                new Person("TEST6", "Grace", "Hopper", "1906-12-09", "Actif")));
+
+        verify(mockStatement, times(2)).addBatch();
+    }
+
+    @Test
+    void shouldHashPartitionPeopleTableOnMatricule() {
+        List<String> statements = PersonRepository.createTableStatements(
+                new RepositorySettings().writeMode(WriteMode.UPSERT).partitions(4));
+
+        assertEquals(6, statements.size());
+        assertTrue(statements.get(0).endsWith("PRIMARY KEY (id, matricule)) PARTITION BY HASH (matricule)"));
+        assertEquals("CREATE TABLE IF NOT EXISTS people_p3 PARTITION OF people FOR VALUES WITH (MODULUS 4, REMAINDER 3)",
+                statements.get(4));
+        assertTrue(statements.get(5).startsWith("CREATE UNIQUE INDEX"));
+        assertEquals(1, PersonRepository.createTableStatements(new RepositorySettings()).size());
+    }
+
+    @Test
+    void shouldWriteToLoadTableWithoutUpsertDuringBulkLoad() throws Exception {
+        Statement statement = mock(Statement.class);
+        ResultSet empty = mock(ResultSet.class);
+        when(empty.next()).thenReturn(true);
+        when(empty.getBoolean(1)).thenReturn(true);
+        when(mockConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(empty, mock(ResultSet.class));
+        PersonRepository upsertRepository = new PersonRepository(mockDataSource,
+                new RepositorySettings().writeMode(WriteMode.UPSERT).bulkLoadEnabled(true));
+
+        assertTrue(upsertRepository.beginBulkLoad());
+        upsertRepository.saveAll(List.of(new Person("TEST6", "Grace", "Hopper", "1906-12-09", "Actif")));
+        upsertRepository.abortBulkLoad();
+        upsertRepository.saveAll(List.of(new Person("TEST6", "Grace", "Hopper", "1906-12-09", "Actif")));
+
+        InOrder inOrder = inOrder(mockConnection, statement);
+        inOrder.verify(mockConnection).prepareStatement("INSERT INTO people_load (matricule, first_name, last_name, birth_date, status) VALUES (?, ?, ?, ?, ?) ");
+        inOrder.verify(statement).execute("DROP TABLE IF EXISTS people_load");
+        inOrder.verify(mockConnection).prepareStatement(startsWith("INSERT INTO people ("));
+        verify(mockConnection, times(1)).prepareStatement(contains("ON CONFLICT"));
+    }
+
+    @Test
+    void shouldStoreStatusCodesReferencingLookupTable() throws Exception {
+        PersonRepository codeRepository = new PersonRepository(mockDataSource,
+                new RepositorySettings().statusStorage(StatusStorage.CODE));
+
+        codeRepository.saveAll(List.of(new Person("TEST8", "Ada", "Lovelace", "1815-12-10", "Suspendu")));
+
+        verify(mockStatement).setShort(5, (short) 3);
+        verify(mockStatement, never()).setString(eq(5), anyString());
+        List<String> statements = PersonRepository.createTableStatements(
+                new RepositorySettings().statusStorage(StatusStorage.CODE));
+        assertTrue(statements.get(0).startsWith("CREATE TABLE IF NOT EXISTS person_status"));
+        assertTrue(statements.get(1).contains("(3, 'Suspendu'), (4, 'En attente') ON CONFLICT (code) DO NOTHING"));
+        assertTrue(statements.get(2).contains("status SMALLINT REFERENCES person_status (code)"));
+    }
+
+    @Test
+    void shouldNotUpsertInAppendMode() throws Exception {
+        repository.saveAll(List.of(new Person("TEST7", "Linus", "Torvalds", "1969-12-28", "Actif")));
+
+        verify(mockConnection, never()).prepareStatement(contains("ON CONFLICT"));
+    }
+
+    @Test
+    void shouldMergeThroughStagingTableWhenCopying() throws Exception {
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        CopyIn copyIn = mock(CopyIn.class);
+        Statement statement = mock(Statement.class);
+        when(mockConnection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(mockConnection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(mockConnection.createStatement()).thenReturn(statement);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString())).thenReturn(copyIn);
+        when(copyIn.endCopy()).thenReturn(1L);
+
+        PersonRepository upsertRepository = new PersonRepository(mockDataSource,
+                new RepositorySettings().loadStrategy(LoadStrategy.COPY).writeMode(WriteMode.UPSERT));
+        upsertRepository.saveAll(List.of(new Person("TEST8", "Ken", "Thompson", "1943-02-04", "Actif")));
+
+        verify(statement, times(1)).execute(startsWith("CREATE TEMPORARY TABLE IF NOT EXISTS people_staging"));
+        verify(copyManager, times(1)).copyIn(startsWith("COPY people_staging"));
+        verify(statement, times(1)).executeUpdate(contains("ON CONFLICT (matricule) DO UPDATE"));
+        verify(mockConnection, times(1)).commit();
+    }
+
+    @Test
+    void shouldRecordCheckpointInSameTransactionAsBatch() throws Exception {
+        PreparedStatement journalStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement(startsWith("INSERT INTO import_journal"))).thenReturn(journalStatement);
+        PersonRepository journaledRepository = new PersonRepository(mockDataSource,
+                new RepositorySettings().journalEnabled(true));
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            people.add(new Person("TEST" + i, "Name", "LastName", "1990-01-01", "Actif"));
+        }
+
+        journaledRepository.saveAll(people, new BatchCheckpoint("abc", "sheet-0", 3000, 1500));
+
+        InOrder inOrder = inOrder(mockStatement, journalStatement, mockConnection);
+        inOrder.verify(mockStatement, times(2)).executeBatch();
+        inOrder.verify(journalStatement).setString(1, "abc");
+        inOrder.verify(journalStatement).setLong(3, 3000);
+        inOrder.verify(journalStatement).executeUpdate();
+        inOrder.verify(mockConnection).commit();
+        verify(mockConnection, times(1)).commit();
+    }
+
+    @Test
+    void shouldReadCheckpointsOfImport() throws Exception {
+        Statement statement = mock(Statement.class);
+        PreparedStatement query = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(mockConnection.createStatement()).thenReturn(statement);
+        when(mockConnection.prepareStatement(startsWith("SELECT source, first_row"))).thenReturn(query);
+        when(query.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString(1)).thenReturn("sheet-1");
+        when(resultSet.getLong(2)).thenReturn(2000L);
+        when(resultSet.getInt(3)).thenReturn(1000);
+
+        List<BatchCheckpoint> checkpoints = repository.findCheckpoints("abc");
+
+        verify(statement).execute(startsWith("CREATE TABLE IF NOT EXISTS import_journal"));
+        verify(query).setString(1, "abc");
+        Assertions.assertEquals(1, checkpoints.size());
+        Assertions.assertEquals("sheet-1", checkpoints.get(0).getSource());
+        Assertions.assertEquals(3000L, checkpoints.get(0).getEndRow());
+    }
+
+    @Test
+    void shouldDeleteCheckpointsOfCompletedImport() throws Exception {
+        PreparedStatement delete = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement(startsWith("DELETE FROM import_journal"))).thenReturn(delete);
+
+        repository.clearCheckpoints("abc");
+
+        verify(delete).setString(1, "abc");
+        verify(delete).executeUpdate();
+        verify(mockConnection).commit();
+        verify(delete).close();
+    }
+
+    @Test
+    void shouldScanContentHashesInByteOrderThroughCursor() throws Exception {
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(mockConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getString(1)).thenReturn("TEST1", "TEST2");
+        when(resultSet.getString(2)).thenReturn("Alice", "Bob");
+        when(resultSet.getString(3)).thenReturn("Smith", "Jones");
+        when(resultSet.getDate(4)).thenReturn(java.sql.Date.valueOf("1990-01-01"), (java.sql.Date) null);
+        when(resultSet.getString(5)).thenReturn("INACTIF", "En attente");
+
+        List<RowHash> rows;
+        try (Stream<RowHash> scan = repository.scanRowHashes()) {
+            rows = scan.collect(Collectors.toList());
+        }
+
+        verify(statement).setFetchSize(anyInt());
+        verify(statement).executeQuery(endsWith("ORDER BY matricule COLLATE \"C\""));
+        assertEquals(List.of("TEST1", "TEST2"), rows.stream().map(RowHash::getMatricule).collect(Collectors.toList()));
+        assertEquals(ContentHash.of("TEST1", "Alice", "Smith", LocalDate.of(1990, 1, 1), Status.INACTIF),
+                rows.get(0).getContentHash());
+        assertEquals(ContentHash.of("TEST2", "Bob", "Jones", null, Status.EN_ATTENTE), rows.get(1).getContentHash());
+        verify(mockConnection).close();
+    }
+
+    @Test
+    void shouldUpdateAndDeleteByMatricule() throws Exception {
+        PreparedStatement update = mock(PreparedStatement.class);
+        PreparedStatement delete = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement(startsWith("UPDATE people SET"))).thenReturn(update);
+        when(mockConnection.prepareStatement(startsWith("DELETE FROM people"))).thenReturn(delete);
+
+        repository.updateAll(List.of(new Person("TEST1", "Alice", "Smith", "1990-01-01", "Actif")));
+        repository.deleteAll(List.of("TEST2", "TEST3"));
+
+        verify(update).setString(1, "Alice");
+        verify(update).setString(4, Status.ACTIF.toString());
+        verify(update).setString(5, "TEST1");
+        verify(update).executeBatch();
+        verify(delete).setString(1, "TEST3");
+        verify(delete, times(2)).addBatch();
+        verify(delete).executeBatch();
+        verify(mockConnection, times(2)).commit();
+        verify(mockDataSource, times(1)).getConnection();
+    }
+
+    @Test
+    void shouldAddContentHashColumnToExistingTable() {
+        List<String> statements = PersonRepository.createTableStatements(
+                new RepositorySettings().writeMode(WriteMode.UPSERT).contentHash(true));
+
+        assertTrue(statements.get(0).contains("content_hash BIGINT"));
+        assertTrue(statements.contains("ALTER TABLE people ADD COLUMN IF NOT EXISTS content_hash BIGINT"));
+        assertEquals(PersonRepository.createTableStatements(
+                new RepositorySettings().writeMode(WriteMode.UPSERT)).size() + 1,
+                statements.size());
+    }
+
+    @Test
+    void shouldSkipRowsWhoseStoredHashMatches() throws Exception {
+        PreparedStatement hashes = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        java.sql.Array array = mock(java.sql.Array.class);
+        when(mockConnection.prepareStatement(startsWith("SELECT matricule, content_hash"))).thenReturn(hashes);
+        when(mockConnection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(mockConnection.createArrayOf(eq("varchar"), any())).thenReturn(array);
+        when(hashes.executeQuery()).thenReturn(resultSet);
+        Person unchanged = new Person("TEST1", "Alice", "Smith", "1990-01-01", "Actif");
+        Person changed = new Person("TEST2", "Bob", "Jones", "1985-06-30", "Inactif");
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getString(1)).thenReturn("TEST1", "TEST2");
+        when(resultSet.getLong(2)).thenReturn(hash(unchanged), hash(changed) + 1);
+        PersonRepository hashedRepository = new PersonRepository(mockDataSource,
+                new RepositorySettings().writeMode(WriteMode.UPSERT).contentHash(true));
+
+        hashedRepository.saveAll(List.of(unchanged, changed,
+                new Person("TEST3", "Carol", "White", "1970-02-02", "Actif")));
+
+        verify(mockConnection).prepareStatement(contains("WHERE people.content_hash IS DISTINCT FROM EXCLUDED.content_hash"));
+        verify(mockConnection).createArrayOf("varchar", new String[]{"TEST1", "TEST2", "TEST3"});
+        verify(mockStatement, never()).setString(1, "TEST1");
+        verify(mockStatement).setLong(6, hash(changed));
+        verify(mockStatement, times(2)).addBatch();
+        verify(array).free();
+        verify(mockConnection, times(1)).commit();
+        assertEquals(1, hashedRepository.getRowsUnchanged());
+    }
+
+    @Test
+    void shouldLeaveUnchangedRowsOutOfStagingMerge() throws Exception {
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        CopyIn copyIn = mock(CopyIn.class);
+        Statement statement = mock(Statement.class);
+        when(mockConnection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(mockConnection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(mockConnection.createStatement()).thenReturn(statement);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString())).thenReturn(copyIn);
+        when(copyIn.endCopy()).thenReturn(3L);
+        ResultSet counts = mock(ResultSet.class);
+        when(statement.executeQuery(anyString())).thenReturn(counts);
+        when(counts.next()).thenReturn(true);
+        when(counts.getLong(1)).thenReturn(1L);
+        when(counts.getLong(2)).thenReturn(1L);
+
+        PersonRepository hashedRepository = new PersonRepository(mockDataSource,
+                new RepositorySettings().loadStrategy(LoadStrategy.COPY).writeMode(WriteMode.UPSERT).contentHash(true));
+        // The first row is superseded by the second, not unchanged
+        hashedRepository.saveAll(List.of(new Person("TEST8", "Ken", "Thomson", "1943-02-04", "Actif"),
+                new Person("TEST8", "Ken", "Thompson", "1943-02-04", "Actif"),
+                new Person("TEST9", "Dennis", "Ritchie", "1941-09-09", "Actif")));
+
+        verify(statement).execute(contains(",content_hash BIGINT"));
+        verify(copyManager).copyIn(contains("status, content_hash) FROM STDIN"));
+        verify(statement).executeQuery(contains("WHERE NOT EXISTS (SELECT 1 FROM people p " +
+                "WHERE p.matricule = s.matricule AND p.content_hash = s.content_hash)"));
+        verify(statement, never()).executeUpdate(anyString());
+        assertEquals(1, hashedRepository.getRowsUnchanged());
+    }
+
+    @Test
+    void shouldScanStoredHashesAndHashOnlyRowsWithoutOne() throws Exception {
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(mockConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getString(1)).thenReturn("TEST1", "TEST2");
+        when(resultSet.getLong(2)).thenReturn(42L, 0L);
+        when(resultSet.wasNull()).thenReturn(false, true);
+        when(resultSet.getString(3)).thenReturn("Bob");
+        when(resultSet.getString(4)).thenReturn("Jones");
+        when(resultSet.getString(6)).thenReturn("ACTIF");
+        PersonRepository hashedRepository = new PersonRepository(mockDataSource,
+                new RepositorySettings().writeMode(WriteMode.UPSERT).contentHash(true));
+
+        List<RowHash> rows;
+        try (Stream<RowHash> scan = hashedRepository.scanRowHashes()) {
+            rows = scan.collect(Collectors.toList());
+        }
+
+        verify(statement).executeQuery(startsWith("SELECT matricule, content_hash, CASE WHEN content_hash IS NULL"));
+        assertEquals(42L, rows.get(0).getContentHash());
+        assertEquals(ContentHash.of("TEST2", "Bob", "Jones", null, Status.ACTIF), rows.get(1).getContentHash());
+    }
+
+    @Test
+    void shouldNotPrefetchHashesWithoutPostgres() throws Exception {
+        PersonRepository hashedRepository = new PersonRepository(mockDataSource,
+                new RepositorySettings().writeMode(WriteMode.UPSERT).contentHash(true));
+
+        hashedRepository.saveAll(List.of(new Person("TEST1", "Alice", "Smith", "1990-01-01", "Actif")));
+
+        verify(mockConnection, never()).createArrayOf(anyString(), any());
+        verify(mockConnection, never()).prepareStatement(startsWith("SELECT matricule, content_hash"));
+        verify(mockStatement).addBatch();
+        verify(mockConnection).commit();
+    }
+
+    private static long hash(Person person) {
+        return ContentHash.of(person.getMatricule(), person.getFirstName(), person.getLastName(),
+                person.getBirthDate(), person.getStatus());
+    }
 }
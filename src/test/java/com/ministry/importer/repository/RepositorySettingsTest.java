@@ -0,0 +1,36 @@
+package com.ministry.importer.repository;
+
+import com.ministry.importer.enums.LoadStrategy;
+import com.ministry.importer.enums.StatusStorage;
+import com.ministry.importer.enums.WriteMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepositorySettingsTest {
+
+    @Test
+    void shouldReadDatabaseProperties() {
+        Properties config = new Properties();
+        config.setProperty("db.load.strategy", "copy");
+        config.setProperty("db.write.mode", "upsert");
+        config.setProperty("db.partitions", "8");
+        config.setProperty("db.statement.batch.size", "250");
+        config.setProperty("db.bulk.load", "true");
+        config.setProperty("db.status.storage", "code");
+
+        RepositorySettings settings = RepositorySettings.fromConfig(config);
+
+        assertEquals(LoadStrategy.COPY, settings.getLoadStrategy());
+        assertEquals(WriteMode.UPSERT, settings.getWriteMode());
+        assertEquals(8, settings.getPartitions());
+        assertTrue(settings.isBulkLoadEnabled());
+        assertEquals(StatusStorage.CODE, settings.getStatusStorage());
+        assertEquals(250, settings.getStatementBatchSize());
+        assertEquals(0, settings.getCommitInterval());
+        assertFalse(settings.isJournalEnabled());
+        assertFalse(settings.isContentHash());
+    }
+}
@@ -0,0 +1,79 @@
+package com.ministry.importer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveBatchSizerTest {
+
+    @Test
+    void shouldGrowWhileThroughputImprovesAndTurnBackWhenItDrops() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(1000, 100, 10_000);
+
+        // Fixed cost of 10 ms per batch plus 10 µs per row: larger batches are faster
+        write(sizer, size -> 10_000_000L + size * 10_000L);
+        assertEquals(1500, sizer.getBatchSize());
+        write(sizer, size -> 10_000_000L + size * 10_000L);
+        assertEquals(2250, sizer.getBatchSize());
+
+        // Past this size the server slows down
+        write(sizer, size -> size * 50_000L);
+        assertEquals(1500, sizer.getBatchSize());
+        assertEquals(List.of(1000, 1500, 2250, 1500), sizer.getHistory());
+    }
+
+    @Test
+    void shouldStayWithinBounds() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(800, 500, 1000);
+
+        for (int i = 0; i < 10; i++) {
+            write(sizer, size -> 10_000_000L);
+            assertTrue(sizer.getBatchSize() >= 500 && sizer.getBatchSize() <= 1000, "size " + sizer.getBatchSize());
+        }
+        assertEquals(1000, sizer.getHistory().get(1));
+    }
+
+    @Test
+    void shouldHalveOnFailureAndResetBetweenImports() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(1000, 300, 5000);
+
+        sizer.record(1000, 1_000_000L, false);
+        assertEquals(500, sizer.getBatchSize());
+        sizer.record(500, 1_000_000L, false);
+        assertEquals(300, sizer.getBatchSize());
+
+        sizer.reset();
+        assertEquals(1000, sizer.getBatchSize());
+        assertEquals(List.of(1000), sizer.getHistory());
+    }
+
+    @Test
+    void shouldIgnorePartialBatchesAndNeverChangeFixedSize() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(1000, 100, 10_000);
+        for (int i = 0; i < 10; i++) {
+            sizer.record(42, 1_000L, true);
+        }
+        assertEquals(1000, sizer.getBatchSize());
+
+        AdaptiveBatchSizer fixed = AdaptiveBatchSizer.fixed(1000);
+        write(fixed, size -> 1_000L);
+        fixed.record(1000, 1_000L, false);
+        assertFalse(fixed.isAdaptive());
+        assertEquals(List.of(1000), fixed.getHistory());
+    }
+
+    @Test
+    void shouldRejectInconsistentBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBatchSizer(100, 500, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBatchSizer(0, 0, 1000));
+    }
+
+    private static void write(AdaptiveBatchSizer sizer, java.util.function.IntToLongFunction nanos) {
+        int size = sizer.getBatchSize();
+        for (int i = 0; i < 4; i++) {
+            sizer.record(size, nanos.applyAsLong(size), true);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.ministry.importer.service;
+
+import com.ministry.importer.metrics.ImportMetrics;
+import com.ministry.importer.model.Person;
+import com.ministry.importer.repository.PersonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class BatchPipelineTest {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ImportMetrics metrics = new ImportMetrics(mock(PersonRepository.class));
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldBoundConcurrentWritesWhenWritingEachBatchOnItsOwnTask() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        BatchPipeline pipeline = BatchPipeline.perBatch(executor, 3, 4, (batch, checkpoint) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+        }, metrics);
+
+        for (int i = 0; i < 20; i++) {
+            pipeline.submit(batch(10));
+        }
+        pipeline.awaitCompletion();
+
+        assertEquals(200, pipeline.getRowsWritten());
+        assertEquals(20, pipeline.getTimings().size());
+        assertTrue(maxRunning.get() <= 3, "max concurrent writes " + maxRunning.get());
+        assertTrue(maxRunning.get() > 1, "writes never overlapped");
+    }
+
+    @Test
+    void shouldCountFailedBatchesWhenWritingEachBatchOnItsOwnTask() {
+        AtomicInteger calls = new AtomicInteger();
+        BatchPipeline pipeline = BatchPipeline.perBatch(executor, 2, 2, (batch, checkpoint) -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new RuntimeException("Database operation failed");
+            }
+        }, metrics);
+
+        for (int i = 0; i < 5; i++) {
+            pipeline.submit(batch(3));
+        }
+        pipeline.awaitCompletion();
+
+        assertEquals(12, pipeline.getRowsWritten());
+        assertEquals(1, pipeline.getBatchesFailed());
+        assertEquals("Database operation failed", pipeline.getFirstFailure().getMessage());
+    }
+
+    @Test
+    void shouldWriteBatchesOfEachLaneInOrderOnOneWriter() {
+        List<List<String>> writtenByLane = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        List<Set<String>> threadsByLane = List.of(ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet(),
+                ConcurrentHashMap.newKeySet());
+        BatchPipeline pipeline = BatchPipeline.partitioned(executor, 3, 6, (batch, checkpoint) -> {
+            int lane = Integer.parseInt(batch.get(0).getFirstName());
+            threadsByLane.get(lane).add(Thread.currentThread().getName());
+            batch.forEach(person -> writtenByLane.get(lane).add(person.getMatricule()));
+        }, metrics);
+
+        List<List<String>> expected = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        for (int i = 0; i < 30; i++) {
+            int lane = i % 3;
+            Person person = new Person("EMP" + i, String.valueOf(lane), "Dupont", "1980-05-15", "Actif");
+            expected.get(lane).add(person.getMatricule());
+            pipeline.submit(lane, List.of(person), null);
+        }
+        pipeline.awaitCompletion();
+
+        assertEquals(3, pipeline.getLaneCount());
+        assertEquals(30, pipeline.getRowsWritten());
+        assertEquals(expected, writtenByLane);
+        threadsByLane.forEach(threads -> assertEquals(1, threads.size()));
+    }
+
+    @Test
+    void shouldKeepAbortCauseWhenWriterStoppedUnexpectedly() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        BatchPipeline pipeline = BatchPipeline.partitioned(executor, 1, 2, (batch, checkpoint) -> {
+            writing.countDown();
+            throw new AssertionError("Writer crashed");
+        }, metrics);
+        pipeline.submit(batch(1));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        RuntimeException cause = new RuntimeException("Reader failed");
+
+        pipeline.abort(cause);
+
+        assertEquals(1, cause.getSuppressed().length);
+        assertEquals("Writer crashed", cause.getSuppressed()[0].getCause().getMessage());
+    }
+
+    private static List<Person> batch(int size) {
+        List<Person> people = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            people.add(new Person("EMP" + i, "Jean", "Dupont", "1980-05-15", "Actif"));
+        }
+        return people;
+    }
+}
@@ -0,0 +1,104 @@
+package com.ministry.importer.service;
+
+import com.ministry.importer.enums.Status;
+import com.ministry.importer.model.Person;
+import com.ministry.importer.model.RowHash;
+import com.ministry.importer.repository.PersonRepository;
+import com.ministry.importer.utility.ContentHash;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class DiffEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final PersonRepository repository = mock(PersonRepository.class);
+
+    @Test
+    void shouldInsertUpdateAndDeleteOnlyWhatDiffers() throws Exception {
+        Path changesFile = tempDir.resolve("changes.csv");
+        List<Person> input = List.of(
+                person("EMP0", "Zoé"),
+                person("EMP1", "Jean"),
+                person("EMP2", "Marie-Anne"),
+                person("EMP4", "Paul"),
+                person("EMP4", "Pauline"),
+                person("EMP5", "Léa"));
+        List<RowHash> table = List.of(
+                stored("EMP1", "Jean"),
+                stored("EMP2", "Marie"),
+                stored("EMP3", "Luc"),
+                stored("EMP3", "Luc"),
+                stored("EMP5", "Léa"),
+                stored("EMP5", "Lea"));
+        List<String> inserted = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<Person> batch = invocation.getArgument(0);
+            batch.forEach(person -> inserted.add(person.getFirstName()));
+            return null;
+        }).when(repository).saveAll(anyList());
+
+        try (DiffEngine diff = new DiffEngine(repository, 10, changesFile)) {
+            diff.run(input.iterator(), table.iterator());
+
+            assertEquals(6, diff.getRowsRead());
+            assertEquals(1, diff.getRowsDuplicated());
+            assertEquals(2, diff.getInserted());
+            assertEquals(2, diff.getUpdated());
+            assertEquals(1, diff.getDeleted());
+            assertEquals(1, diff.getUnchanged());
+        }
+
+        assertEquals(List.of("Zoé", "Pauline"), inserted);
+        verify(repository).updateAll(argThat(people -> people.stream().map(Person::getMatricule)
+                .collect(Collectors.toList()).equals(List.of("EMP2", "EMP5"))));
+        verify(repository).deleteAll(List.of("EMP3"));
+        assertEquals(List.of(
+                "operation,matricule,prenom,nom,naissance,statut",
+                "insert,EMP0,Zoé,Dupont,1980-05-15,Actif",
+                "update,EMP2,Marie-Anne,Dupont,1980-05-15,Actif",
+                "delete,EMP3,,,,",
+                "insert,EMP4,Pauline,Dupont,1980-05-15,Actif",
+                "update,EMP5,Léa,Dupont,1980-05-15,Actif"), Files.readAllLines(changesFile, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldApplyChangesInBatches() {
+        List<Person> input = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            input.add(person(String.format("EMP%03d", i), "Jean"));
+        }
+        List<RowHash> table = List.of(stored("EMP999", "Jean"));
+
+        try (DiffEngine diff = new DiffEngine(repository, 10, null)) {
+            diff.run(input.iterator(), table.iterator());
+        }
+
+        verify(repository, times(2)).saveAll(argThat(batch -> batch.size() == 10));
+        verify(repository).saveAll(argThat(batch -> batch.size() == 5));
+        verify(repository).deleteAll(List.of("EMP999"));
+        verify(repository, never()).updateAll(anyList());
+    }
+
+    private static Person person(String matricule, String firstName) {
+        return new Person(matricule, firstName, "Dupont", LocalDate.of(1980, 5, 15), Status.ACTIF);
+    }
+
+    private static RowHash stored(String matricule, String firstName) {
+        return new RowHash(matricule, ContentHash.of(matricule, firstName, "Dupont", LocalDate.of(1980, 5, 15),
+                Status.ACTIF));
+    }
+}
@@ -0,0 +1,115 @@
+package com.ministry.importer.service;
+
+import com.ministry.importer.enums.Status;
+import com.ministry.importer.model.BatchCheckpoint;
+import com.ministry.importer.model.Person;
+import com.ministry.importer.repository.PersonRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ImportJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldSkipCommittedRangesAndKeepBatchesContiguous() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("people.csv"), "matricule\n");
+        String importId = ImportJournal.importId(file.toString());
+        PersonRepository repository = mock(PersonRepository.class);
+        when(repository.findCheckpoints(importId)).thenReturn(List.of(
+                new BatchCheckpoint(importId, "sheet-0", 0, 4),
+                new BatchCheckpoint(importId, "sheet-0", 8, 4),
+                new BatchCheckpoint(importId, "sheet-1", 0, 4)));
+
+        ImportJournal journal = ImportJournal.load(repository, file.toString());
+        List<BatchCheckpoint> submitted = new ArrayList<>();
+        List<String> written = new ArrayList<>();
+        ImportJournal.Batcher batcher = journal.batcher("sheet-0", () -> 4, (batch, checkpoint) -> {
+            submitted.add(checkpoint);
+            batch.forEach(person -> written.add(person.getMatricule()));
+        });
+        for (int i = 0; i < 15; i++) {
+            batcher.add(new Person("EMP" + i, "Prénom", "Nom", null, Status.ACTIF));
+        }
+        batcher.flush();
+
+        assertEquals(3, journal.getCommittedBatchCount());
+        assertEquals(List.of("EMP4", "EMP5", "EMP6", "EMP7", "EMP12", "EMP13", "EMP14"), written);
+        assertEquals(List.of(4L, 12L), submitted.stream().map(BatchCheckpoint::getFirstRow).collect(Collectors.toList()));
+        assertEquals(List.of(4, 3), submitted.stream().map(BatchCheckpoint::getRowCount).collect(Collectors.toList()));
+        assertTrue(submitted.stream().allMatch(checkpoint -> importId.equals(checkpoint.getImportId())));
+        assertEquals(8, batcher.getRowsSkipped());
+        assertEquals(7, batcher.getRowsAdded());
+    }
+
+    @Test
+    void shouldCoverDiscardedRowsInTheRangeOfTheirBatch() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("people.csv"), "matricule\n");
+        PersonRepository repository = mock(PersonRepository.class);
+        when(repository.findCheckpoints(anyString())).thenReturn(List.of());
+
+        ImportJournal journal = ImportJournal.load(repository, file.toString());
+        List<BatchCheckpoint> submitted = new ArrayList<>();
+        ImportJournal.Batcher batcher = journal.batcher("sheet-0", () -> 2, (batch, checkpoint) -> submitted.add(checkpoint));
+        batcher.discard();
+        batcher.add(new Person("EMP1", "Prénom", "Nom", null, Status.ACTIF));
+        batcher.discard();
+        batcher.add(new Person("EMP3", "Prénom", "Nom", null, Status.ACTIF));
+        batcher.add(new Person("EMP4", "Prénom", "Nom", null, Status.ACTIF));
+        batcher.flush();
+
+        assertEquals(List.of(1L, 4L), submitted.stream().map(BatchCheckpoint::getFirstRow).collect(Collectors.toList()));
+        assertEquals(List.of(3, 1), submitted.stream().map(BatchCheckpoint::getRowCount).collect(Collectors.toList()));
+        assertEquals(3, batcher.getRowsAdded());
+    }
+
+    @Test
+    void shouldSkipCommittedRowsByTheirPositionInTheSource() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("people.csv"), "matricule\n");
+        String importId = ImportJournal.importId(file.toString());
+        PersonRepository repository = mock(PersonRepository.class);
+        when(repository.findCheckpoints(importId)).thenReturn(List.of(
+                new BatchCheckpoint(importId, "sheet-0/lane-1", 1, 5)));
+
+        ImportJournal journal = ImportJournal.load(repository, file.toString());
+        List<BatchCheckpoint> submitted = new ArrayList<>();
+        List<String> written = new ArrayList<>();
+        ImportJournal.Batcher batcher = journal.batcher("sheet-0/lane-1", () -> 2, (batch, checkpoint) -> {
+            submitted.add(checkpoint);
+            batch.forEach(person -> written.add(person.getMatricule()));
+        });
+        // Every other row of the source goes to this lane
+        for (int row = 1; row < 12; row += 2) {
+            batcher.add(new Person("EMP" + row, "Prénom", "Nom", null, Status.ACTIF), row);
+        }
+        batcher.flush();
+
+        assertEquals(List.of("EMP7", "EMP9", "EMP11"), written);
+        assertEquals(List.of(7L, 11L), submitted.stream().map(BatchCheckpoint::getFirstRow).collect(Collectors.toList()));
+        assertEquals(List.of(3, 1), submitted.stream().map(BatchCheckpoint::getRowCount).collect(Collectors.toList()));
+        assertEquals(3, batcher.getRowsSkipped());
+    }
+
+    @Test
+    void shouldIdentifyFileByPathSizeAndModificationTime() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("people.csv"), "matricule\nEMP1\n");
+        String importId = ImportJournal.importId(file.toString());
+
+        assertEquals(64, importId.length());
+        assertEquals(importId, ImportJournal.importId(file.toString()));
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        assertNotEquals(importId, ImportJournal.importId(file.toString()));
+    }
+}
@@ -0,0 +1,55 @@
+package com.ministry.importer.service;
+
+import com.ministry.importer.enums.DuplicatePolicy;
+import com.ministry.importer.enums.WriterThreads;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImportOptionsTest {
+
+    @Test
+    void shouldReadImportProperties() {
+        Properties config = new Properties();
+        config.setProperty("import.batch.size", "500");
+        config.setProperty("import.batch.max", "2000");
+        config.setProperty("import.writers", "3");
+        config.setProperty("import.max.rejects", "-1");
+        config.setProperty("import.writer.threads", "virtual");
+        config.setProperty("import.duplicates", "last-wins");
+
+        ImportOptions options = ImportOptions.fromConfig(config);
+
+        AdaptiveBatchSizer sizer = options.newBatchSizer();
+        assertEquals(500, sizer.getBatchSize());
+        assertTrue(sizer.isAdaptive());
+        assertEquals(3, options.getWriters());
+        assertEquals(6, options.getQueueDepth());
+        assertEquals(4, options.getMaxOpenFiles());
+        assertEquals(-1, options.getMaxRejects());
+        assertEquals(WriterThreads.VIRTUAL, options.getWriterThreads());
+        assertEquals(DuplicatePolicy.LAST_WINS, options.getDuplicatePolicy());
+        assertFalse(options.isHashLanes());
+    }
+
+    @Test
+    void shouldKeepTwoQueuedBatchesPerWriterUnlessSet() {
+        ImportOptions options = new ImportOptions().writers(5);
+
+        assertEquals(10, options.getQueueDepth());
+        assertEquals(1, options.queueDepth(1).getQueueDepth());
+        assertFalse(options.newBatchSizer().isAdaptive());
+    }
+
+    @Test
+    void shouldNameWriterThreadsSettingWhenInvalid() {
+        Properties config = new Properties();
+        config.setProperty("import.writer.threads", "green");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> ImportOptions.fromConfig(config));
+        assertEquals("import.writer.threads non valide (platform ou virtual): green", exception.getMessage());
+    }
+}
@@ -1,22 +1,53 @@
 package com.ministry.importer.service;
 
+import com.ministry.importer.enums.DuplicatePolicy;
+import com.ministry.importer.enums.WriterThreads;
+import com.ministry.importer.metrics.ImportMetrics;
+import com.ministry.importer.enums.Status;
+import com.ministry.importer.model.BatchCheckpoint;
+import com.ministry.importer.model.DiffResult;
+import com.ministry.importer.model.ImportResult;
 import com.ministry.importer.model.Person;
+import com.ministry.importer.model.RowHash;
+import com.ministry.importer.model.ValidationReport;
 import com.ministry.importer.parser.ExcelStreamParser;
 import com.ministry.importer.repository.PersonRepository;
+import com.ministry.importer.utility.ContentHash;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -55,7 +86,7 @@ public class ParallelImportServiceTest {
     @Test
     void shouldProcessValidRecords() {
         // Arrange
-        when(excelParser.parseAsStream(anyString()))
+        when(excelParser.parseAsStream(anyString(), any()))
                 .thenReturn(testPeople.stream());
 
         // Act
@@ -73,7 +104,7 @@ public class ParallelImportServiceTest {
     @Test
     void shouldHandleEmptyFile() {
         // Arrange
-        when(excelParser.parseAsStream(anyString())).thenReturn(Stream.empty());
+        when(excelParser.parseAsStream(anyString(), any())).thenReturn(Stream.empty());
 
         // Act
         int count = importService.importFromFile("empty.xlsx");
@@ -86,7 +117,7 @@ public class ParallelImportServiceTest {
     @Test
     void shouldHandleExceptionDuringParsing() {
         // Arrange
-        when(excelParser.parseAsStream(anyString())).thenThrow(new RuntimeException("Parsing error"));
+        when(excelParser.parseAsStream(anyString(), any())).thenThrow(new RuntimeException("Parsing error"));
 
         // Assert
         RuntimeException exception = org.junit.jupiter.api.Assertions.assertThrows(RuntimeException.class, () -> {
@@ -113,7 +144,7 @@ public class ParallelImportServiceTest {
         List<Person> largePeopleList = Stream.generate(() -> new Person("EMP", "Name", "LastName", null, "Actif"))
                 .limit(BATCH_SIZE + 10)
                 .collect(Collectors.toList());
-        when(excelParser.parseAsStream(anyString())).thenReturn(largePeopleList.stream());
+        when(excelParser.parseAsStream(anyString(), any())).thenReturn(largePeopleList.stream());
 
         // Act
         int count = importService.importFromFile("largeFile.xlsx");
@@ -125,4 +156,597 @@ public class ParallelImportServiceTest {
             verify(personRepository, atLeastOnce()).saveAll(anyList());
         });
     }
+
+    @Test
+    void shouldWriteEveryBatchWithVirtualWriterThreads() {
+        // Falls back to platform threads before Java 21
+        lenient().when(personRepository.getMaximumPoolSize()).thenReturn(3);
+        List<Person> people = Stream.generate(() -> new Person("EMP", "Name", "LastName", null, "Actif"))
+                .limit(BATCH_SIZE * 5 + 3)
+                .collect(Collectors.toList());
+        when(excelParser.parseAsStream(anyString(), any())).thenReturn(people.stream());
+
+        try (ParallelImportService virtualService = new ParallelImportService(excelParser, personRepository,
+                new ImportOptions().batchSize(BATCH_SIZE).writers(2).maxOpenFiles(1).writerThreads(WriterThreads.VIRTUAL))) {
+            ImportResult result = virtualService.importFile("test.xlsx");
+
+            assertTrue(result.isComplete());
+            assertEquals(people.size(), result.getRowsWritten());
+            assertEquals(6, result.getBatchCount());
+            verify(personRepository, times(6)).saveAll(anyList());
+        }
+    }
+
+    @Test
+    void shouldRouteEveryRowOfAMatriculeToTheSameLane() {
+        List<Set<Integer>> lanesOfBatches = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<Person> batch = invocation.getArgument(0);
+            lanesOfBatches.add(batch.stream().map(person -> ParallelImportService.laneOf(person, 3))
+                    .collect(Collectors.toSet()));
+            return null;
+        }).when(personRepository).saveAll(anyList());
+        List<Person> people = IntStream.range(0, 100)
+                .mapToObj(i -> new Person("EMP" + (i % 37), "Name", "LastName", null, "Actif"))
+                .collect(Collectors.toList());
+        when(excelParser.parseAsStream(anyString(), any())).thenReturn(people.stream());
+
+        try (ParallelImportService laneService = new ParallelImportService(excelParser, personRepository,
+                new ImportOptions().batchSize(BATCH_SIZE).writers(3).maxOpenFiles(1).hashLanes(true))) {
+            ImportResult result = laneService.importFile("test.xlsx");
+
+            assertTrue(result.isComplete());
+            assertEquals(people.size(), result.getRowsWritten());
+        }
+        assertTrue(lanesOfBatches.stream().allMatch(lanes -> lanes.size() == 1), lanesOfBatches.toString());
+        assertEquals(Set.of(0, 1, 2), lanesOfBatches.stream().flatMap(Set::stream).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void shouldBlockParserWhenWritersFallBehind() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger pulled = new AtomicInteger();
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(personRepository).saveAll(anyList());
+        when(excelParser.parseAsStream(anyString(), any())).thenReturn(
+                Stream.generate(() -> new Person("EMP", "Name", "LastName", null, "Actif"))
+                        .limit(100)
+                        .peek(person -> pulled.incrementAndGet()));
+
+        try (ParallelImportService boundedService = new ParallelImportService(excelParser, personRepository,
+                new ImportOptions().batchSize(1).writers(1).queueDepth(1))) {
+            // Act
+            CompletableFuture<Integer> result = CompletableFuture.supplyAsync(
+                    () -> boundedService.importFromFile("slow.xlsx"));
+
+            // Assert: one batch being written, one queued, one waiting to be queued
+            await().atMost(5, TimeUnit.SECONDS).until(() -> pulled.get() == 3);
+            Thread.sleep(200);
+            assertEquals(3, pulled.get());
+
+            release.countDown();
+            assertEquals(100, result.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void shouldReturnOnlyAfterAllBatchesAreWritten() {
+        // Arrange
+        AtomicInteger saved = new AtomicInteger();
+        doAnswer(invocation -> {
+            Thread.sleep(20);
+            saved.addAndGet(invocation.<List<Person>>getArgument(0).size());
+            return null;
+        }).when(personRepository).saveAll(anyList());
+        List<Person> people = Stream.generate(() -> new Person("EMP", "Name", "LastName", null, "Actif"))
+                .limit(BATCH_SIZE * 5 + 3)
+                .collect(Collectors.toList());
+        when(excelParser.parseAsStream(anyString(), any())).thenReturn(people.stream());
+
+        // Act
+        int count = importService.importFromFile("test.xlsx");
+
+        // Assert
+        assertEquals(people.size(), count);
+        assertEquals(people.size(), saved.get());
+    }
+
+    @Test
+    void shouldFailImportWhenBatchCannotBeSaved() {
+        // Arrange
+        doThrow(new RuntimeException("Database operation failed")).when(personRepository).saveAll(anyList());
+        when(excelParser.parseAsStream(anyString(), any())).thenReturn(testPeople.stream());
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> importService.importFromFile("test.xlsx"));
+        assertEquals("Failed to import data", exception.getMessage());
+    }
+
+    @Test
+    void shouldReportFailedBatchesInImportResult() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new RuntimeException("Database operation failed");
+            }
+            return null;
+        }).when(personRepository).saveAll(anyList());
+        List<Person> people = Stream.generate(() -> new Person("EMP", "Name", "LastName", null, "Actif"))
+                .limit(BATCH_SIZE * 3)
+                .collect(Collectors.toList());
+        when(excelParser.parseAsStream(anyString(), any())).thenReturn(people.stream());
+
+        // Act
+        ImportResult result = importService.importFile("test.xlsx");
+
+        // Assert
+        assertEquals(BATCH_SIZE * 3, result.getRowsParsed());
+        assertEquals(BATCH_SIZE * 2, result.getRowsWritten());
+        assertEquals(1, result.getBatchesFailed());
+        assertEquals(3, result.getBatchCount());
+        assertEquals(1, result.getBatchTimings().stream().filter(timing -> !timing.isSucceeded()).count());
+        assertFalse(result.isComplete());
+    }
+
+    @Test
+    void shouldUpdateMetricsDuringImport() {
+        // Arrange
+        when(excelParser.parseAsStream(anyString(), any())).thenReturn(Stream.generate(
+                () -> new Person("EMP", "Name", "LastName", null, "Actif")).limit(3 * BATCH_SIZE));
+
+        // Act
+        importService.importFile("test.xlsx");
+
+        // Assert
+        ImportMetrics metrics = importService.getMetrics();
+        assertEquals(3 * BATCH_SIZE, metrics.getRowsParsed());
+        assertEquals(3 * BATCH_SIZE, metrics.getRowsWritten());
+        assertEquals(3, metrics.getBatchesWritten());
+        assertEquals(0, metrics.getQueueDepth());
+        assertTrue(metrics.getBatchLatencyP99Millis() >= metrics.getBatchLatencyP50Millis());
+    }
+
+    @Test
+    void shouldReportCompleteImportResult() {
+        // Arrange
+        when(excelParser.parseAsStream(anyString(), any())).thenReturn(testPeople.stream());
+
+        // Act
+        ImportResult result = importService.importFile("test.xlsx");
+
+        // Assert
+        assertEquals(testPeople.size(), result.getRowsParsed());
+        assertEquals(testPeople.size(), result.getRowsWritten());
+        assertEquals(1, result.getBatchCount());
+        assertTrue(result.isComplete());
+        verify(personRepository).releaseSessions();
+    }
+
+    @Test
+    void shouldImportEverySheetOfEveryFile() {
+        // Arrange
+        when(excelParser.getSheetCount(anyString())).thenReturn(2);
+        when(excelParser.parseSheet(anyString(), anyInt(), any())).thenAnswer(invocation -> Stream.generate(
+                () -> new Person("EMP", "Name", "LastName", null, "Actif")).limit(BATCH_SIZE + 5));
+
+        // Act
+        ImportResult result = importService.importFiles(List.of("nord.xlsx", "sud.xlsx", "est.xlsx"), true);
+
+        // Assert
+        assertEquals(6 * (BATCH_SIZE + 5), result.getRowsParsed());
+        assertEquals(6 * (BATCH_SIZE + 5), result.getRowsWritten());
+        verify(excelParser, times(6)).parseSheet(anyString(), anyInt(), any());
+        verify(excelParser).parseSheet(eq("sud.xlsx"), eq(1), any());
+    }
+
+    @Test
+    void shouldReadOnlyFirstSheetUnlessAllSheetsRequested() {
+        // Arrange
+        when(excelParser.parseSheet(anyString(), anyInt(), any())).thenAnswer(invocation -> testPeople.stream());
+
+        // Act
+        ImportResult result = importService.importFiles(List.of("nord.xlsx", "sud.xlsx"), false);
+
+        // Assert
+        assertEquals(2 * testPeople.size(), result.getRowsWritten());
+        verify(excelParser, never()).getSheetCount(anyString());
+        verify(excelParser).parseSheet(eq("nord.xlsx"), eq(0), any());
+        verify(excelParser).parseSheet(eq("sud.xlsx"), eq(0), any());
+    }
+
+    @Test
+    void shouldCapNumberOfFilesOpenAtOnce() {
+        // Arrange
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+        when(excelParser.parseSheet(anyString(), anyInt(), any())).thenAnswer(invocation -> {
+            maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+            return Stream.generate(() -> new Person("EMP", "Name", "LastName", null, "Actif"))
+                    .limit(50)
+                    .peek(person -> Thread.yield())
+                    .onClose(open::decrementAndGet);
+        });
+
+        try (ParallelImportService cappedService = new ParallelImportService(excelParser, personRepository,
+                new ImportOptions().batchSize(BATCH_SIZE).writers(2).maxOpenFiles(2))) {
+            // Act
+            ImportResult result = cappedService.importFiles(List.of("1.xlsx", "2.xlsx", "3.xlsx", "4.xlsx", "5.xlsx"), false);
+
+            // Assert
+            assertEquals(250, result.getRowsWritten());
+            assertTrue(maxOpen.get() <= 2);
+        }
+    }
+
+    @Test
+    void shouldFailWhenOneFileCannotBeRead() {
+        // Arrange
+        when(excelParser.parseSheet(anyString(), anyInt(), any())).thenAnswer(invocation -> testPeople.stream());
+        when(excelParser.parseSheet(eq("corrupted.xlsx"), eq(0), any())).thenThrow(new RuntimeException("Failed to parse Excel file"));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> importService.importFiles(List.of("ok.xlsx", "corrupted.xlsx"), false));
+        assertEquals("Failed to import data", exception.getMessage());
+    }
+
+    @Test
+    void shouldImportDelimitedFilesAlongsideWorkbooks(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path csv = Files.writeString(tempDir.resolve("people.csv"), "matricule;prenom;nom;naissance;statut\n"
+                + "EMP010;Paul;Durand;15/05/1980;Actif\n"
+                + "EMP011;Anne;Petit;;Suspendu\n");
+        when(excelParser.parseSheet(anyString(), anyInt(), any())).thenAnswer(invocation -> testPeople.stream());
+
+        // Act
+        ImportResult result = importService.importFiles(List.of("nord.xlsx", csv.toString()), false);
+
+        // Assert
+        assertEquals(4, result.getRowsWritten());
+        verify(excelParser).parseSheet(eq("nord.xlsx"), eq(0), any());
+        verify(excelParser, never()).parseSheet(eq(csv.toString()), anyInt(), any());
+    }
+
+    @Test
+    void shouldQuarantineInvalidRowsAndKeepImporting(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path csv = Files.writeString(tempDir.resolve("people.csv"), "matricule,prenom,nom,naissance,statut\n"
+                + "EMP010,Paul,Durand,15/05/1980,Actif\n"
+                + "EMP011,Anne,Petit,pas une date,Actif\n"
+                + "EMP012,Luc,Blanc,,Retraité\n"
+                + "EMP013,Eve,Noir,2001-12-24,Inactif\n");
+        Path rejectsFile = tempDir.resolve("rejects.csv");
+
+        try (ParallelImportService service = new ParallelImportService(excelParser, personRepository,
+                new ImportOptions().batchSize(BATCH_SIZE).writers(2).maxOpenFiles(2).maxRejects(5)
+                        .rejectsFile(rejectsFile.toString()))) {
+            // Act
+            ImportResult result = service.importFile(csv.toString());
+
+            // Assert
+            assertEquals(2, result.getRowsWritten());
+            assertEquals(2, result.getRowsRejected());
+            assertTrue(result.isComplete());
+        }
+        List<String> rejects = Files.readAllLines(rejectsFile);
+        assertEquals(3, rejects.size());
+        assertTrue(rejects.get(1).startsWith(csv + ",3,\"Impossible de parser la date: pas une date."));
+        assertTrue(rejects.get(2).startsWith(csv + ",4,Statut non valide: Retraité"));
+    }
+
+    @Test
+    void shouldKeepOneRowPerMatriculeAccordingToPolicy(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path nord = Files.writeString(tempDir.resolve("nord.csv"), "matricule,prenom,nom,naissance,statut\n"
+                + "EMP001,Jean,Premier,,Actif\n"
+                + "EMP002,Marie,Seule,,Actif\n"
+                + "EMP001,Jean,Second,,Actif\n");
+        Path sud = Files.writeString(tempDir.resolve("sud.csv"), "matricule,prenom,nom,naissance,statut\n"
+                + "EMP001,Jean,Dernier,,Actif\n"
+                + "EMP003,Luc,Seul,,Inactif\n");
+
+        // Act & Assert
+        assertEquals(List.of("Premier", "Seule"), lastNames(DuplicatePolicy.FIRST_WINS, tempDir, nord));
+        assertEquals(List.of("Premier", "Seul", "Seule"), lastNames(DuplicatePolicy.FIRST_WINS, tempDir, nord, sud));
+        assertEquals(List.of("Second", "Seule"), lastNames(DuplicatePolicy.LAST_WINS, tempDir, nord));
+        assertEquals(List.of("Dernier", "Seul", "Seule"), lastNames(DuplicatePolicy.LAST_WINS, tempDir, nord, sud));
+    }
+
+    @Test
+    void shouldRejectEveryRowOfDuplicatedMatricule(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path csv = Files.writeString(tempDir.resolve("people.csv"), "matricule,prenom,nom,naissance,statut\n"
+                + "EMP001,Jean,Premier,,Actif\n"
+                + "EMP002,Marie,Seule,,Actif\n"
+                + "EMP001,Jean,Second,15/05/1980,Actif\n");
+        Path rejectsFile = tempDir.resolve("rejects.csv");
+
+        try (ParallelImportService service = new ParallelImportService(excelParser, personRepository,
+                new ImportOptions().batchSize(BATCH_SIZE).writers(2).maxOpenFiles(2).maxRejects(5)
+                        .rejectsFile(rejectsFile.toString()).duplicates(DuplicatePolicy.REJECT)
+                        .duplicatesDirectory(tempDir.toString()))) {
+            // Act
+            ImportResult result = service.importFile(csv.toString());
+
+            // Assert
+            assertEquals(1, result.getRowsWritten());
+            assertEquals(2, result.getRowsRejected());
+            assertEquals(0, result.getRowsDuplicated());
+        }
+        List<String> rejects = Files.readAllLines(rejectsFile);
+        assertEquals(List.of(
+                csv + ",2,Matricule en double: EMP001,EMP001,Jean,Premier,,Actif",
+                csv + ",4,Matricule en double: EMP001,EMP001,Jean,Second,1980-05-15,Actif"),
+                rejects.subList(1, rejects.size()));
+    }
+
+    @Test
+    void shouldRefuseNonPositiveBatchSizeOrWriterCount() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelImportService(excelParser, personRepository, 0, 2));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelImportService(excelParser, personRepository,
+                new ImportOptions().writers(0)));
+    }
+
+    @Test
+    void shouldNameSheetAlikeInDuplicateAndParserRejects(@TempDir Path tempDir) throws Exception {
+        // Arrange: the second sheet holds a duplicated matricule and an unknown status
+        Path workbookFile = tempDir.resolve("people.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             OutputStream out = Files.newOutputStream(workbookFile)) {
+            writeSheet(workbook.createSheet("Nord"), List.of("EMP001"), "Actif");
+            writeSheet(workbook.createSheet("Sud"), List.of("EMP002", "EMP003", "EMP002"), "Actif");
+            workbook.getSheet("Sud").getRow(2).getCell(4).setCellValue("Inconnu");
+            workbook.write(out);
+        }
+        Path rejectsFile = tempDir.resolve("rejects.csv");
+
+        try (ParallelImportService service = new ParallelImportService(new ExcelStreamParser(), personRepository,
+                new ImportOptions().batchSize(BATCH_SIZE).writers(2).maxRejects(5)
+                        .rejectsFile(rejectsFile.toString()).duplicates(DuplicatePolicy.REJECT)
+                        .duplicatesDirectory(tempDir.toString()))) {
+            // Act
+            ImportResult result = service.importFiles(List.of(workbookFile.toString()), true);
+
+            // Assert
+            assertEquals(1, result.getRowsWritten());
+            assertEquals(3, result.getRowsRejected());
+        }
+        List<String> rejects = Files.readAllLines(rejectsFile);
+        assertEquals(3, rejects.size() - 1);
+        assertTrue(rejects.stream().skip(1).allMatch(line -> line.startsWith(workbookFile + "#2,")), rejects.toString());
+    }
+
+    private static void writeSheet(Sheet sheet, List<String> matricules, String status) {
+        Row header = sheet.createRow(0);
+        List<String> columns = List.of("matricule", "prenom", "nom", "naissance", "statut");
+        for (int i = 0; i < columns.size(); i++) {
+            header.createCell(i).setCellValue(columns.get(i));
+        }
+        for (int i = 0; i < matricules.size(); i++) {
+            Row row = sheet.createRow(i + 1);
+            row.createCell(0).setCellValue(matricules.get(i));
+            row.createCell(1).setCellValue("Jean");
+            row.createCell(2).setCellValue("Dupont");
+            row.createCell(4).setCellValue(status);
+        }
+    }
+
+    private List<String> lastNames(DuplicatePolicy policy, Path indexDir, Path... files) {
+        List<String> saved = new CopyOnWriteArrayList<>();
+        reset(personRepository);
+        doAnswer(invocation -> {
+            List<Person> batch = invocation.getArgument(0);
+            batch.forEach(person -> saved.add(person.getLastName()));
+            return null;
+        }).when(personRepository).saveAll(anyList());
+
+        try (ParallelImportService service = new ParallelImportService(excelParser, personRepository,
+                new ImportOptions().batchSize(BATCH_SIZE).writers(2).maxOpenFiles(2).duplicates(policy)
+                        .duplicatesDirectory(indexDir.toString()))) {
+            ImportResult result = service.importFiles(
+                    Stream.of(files).map(Path::toString).collect(Collectors.toList()), false);
+            assertEquals(result.getRowsWritten() + result.getRowsDuplicated(),
+                    Stream.of(files).mapToInt(file -> file.getFileName().toString().equals("nord.csv") ? 3 : 2).sum());
+        }
+        return saved.stream().sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    void shouldAbortImportWhenErrorBudgetIsExceeded(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path csv = Files.writeString(tempDir.resolve("people.csv"), "matricule,prenom,nom,naissance,statut\n"
+                + "EMP010,Paul,Durand,15/05/1980,Inconnu\n"
+                + "EMP011,Anne,Petit,1990-01-01,Inconnu\n");
+
+        try (ParallelImportService service = new ParallelImportService(excelParser, personRepository,
+                new ImportOptions().batchSize(BATCH_SIZE).writers(2).maxOpenFiles(2).maxRejects(1))) {
+            // Act & Assert
+            RuntimeException exception = assertThrows(RuntimeException.class, () -> service.importFile(csv.toString()));
+            assertEquals("Failed to import data", exception.getMessage());
+            assertTrue(exception.getCause().getMessage().startsWith("Error budget exceeded"));
+        }
+    }
+
+    @Test
+    void shouldGoThroughBulkLoadWithoutJournalWhenTableIsEmpty() {
+        when(personRepository.isBulkLoadEnabled()).thenReturn(true);
+        when(personRepository.beginBulkLoad()).thenReturn(true);
+        when(excelParser.parseAsStream(anyString(), any())).thenReturn(testPeople.stream());
+
+        ImportResult result = importService.importFile("test.xlsx");
+
+        assertEquals(testPeople.size(), result.getRowsWritten());
+        InOrder inOrder = inOrder(personRepository);
+        inOrder.verify(personRepository).beginBulkLoad();
+        inOrder.verify(personRepository).saveAll(anyList());
+        inOrder.verify(personRepository).finishBulkLoad();
+        verify(personRepository, never()).isJournalEnabled();
+        verify(personRepository, never()).abortBulkLoad();
+    }
+
+    @Test
+    void shouldResumeFromFirstUncommittedBatch(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        StringBuilder content = new StringBuilder("matricule,prenom,nom,naissance,statut\n");
+        for (int i = 0; i < 35; i++) {
+            content.append("EMP").append(i).append(",Prénom,Nom,15/05/1980,Actif\n");
+        }
+        Path csv = Files.writeString(tempDir.resolve("people.csv"), content);
+        String importId = ImportJournal.importId(csv.toString());
+        when(personRepository.isJournalEnabled()).thenReturn(true);
+        // Rows are numbered as in the file: EMP0 is on row 2, below the header
+        when(personRepository.findCheckpoints(importId)).thenReturn(List.of(
+                new BatchCheckpoint(importId, "rows", 2, BATCH_SIZE),
+                new BatchCheckpoint(importId, "rows", 2 + 2 * BATCH_SIZE, BATCH_SIZE)));
+        List<String> saved = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<Person> batch = invocation.getArgument(0);
+            batch.forEach(person -> saved.add(person.getMatricule()));
+            return null;
+        }).when(personRepository).saveAll(anyList(), any(BatchCheckpoint.class));
+
+        // Act
+        ImportResult result = importService.importFile(csv.toString());
+
+        // Assert
+        assertEquals(2 * BATCH_SIZE, result.getRowsSkipped());
+        assertEquals(15, result.getRowsWritten());
+        assertTrue(result.isComplete());
+        assertEquals(IntStream.concat(IntStream.range(BATCH_SIZE, 2 * BATCH_SIZE), IntStream.range(3 * BATCH_SIZE, 35))
+                .mapToObj(i -> "EMP" + i).collect(Collectors.toSet()), Set.copyOf(saved));
+        verify(personRepository).saveAll(anyList(), argThat(checkpoint ->
+                checkpoint.getFirstRow() == 2 + BATCH_SIZE && checkpoint.getRowCount() == BATCH_SIZE));
+        verify(personRepository).saveAll(anyList(), argThat(checkpoint ->
+                checkpoint.getFirstRow() == 2 + 3 * BATCH_SIZE && checkpoint.getRowCount() == 5));
+        verify(personRepository, never()).saveAll(anyList());
+        verify(personRepository).clearCheckpoints(importId);
+    }
+
+    @Test
+    void shouldResumeCsvSplitIntoAnotherNumberOfChunks(@TempDir Path tempDir) throws Exception {
+        // Arrange: a file large enough to be split into chunks
+        StringBuilder content = new StringBuilder("matricule,prenom,nom,naissance,statut\n");
+        for (int i = 0; i < 70_000; i++) {
+            content.append("EMP").append(i).append(",Prénom,Nom,15/05/1980,Actif\n");
+        }
+        Path csv = Files.writeString(tempDir.resolve("people.csv"), content);
+        String importId = ImportJournal.importId(csv.toString());
+        List<BatchCheckpoint> committed = new CopyOnWriteArrayList<>();
+        when(personRepository.isJournalEnabled()).thenReturn(true);
+        when(personRepository.findCheckpoints(importId)).thenReturn(List.of()).thenReturn(committed);
+        doAnswer(invocation -> committed.add(invocation.getArgument(1)))
+                .when(personRepository).saveAll(anyList(), any(BatchCheckpoint.class));
+        try (ParallelImportService chunked = new ParallelImportService(excelParser, personRepository,
+                new ImportOptions().batchSize(1000).writers(2).maxOpenFiles(3))) {
+            assertEquals(70_000, chunked.importFile(csv.toString()).getRowsWritten());
+        }
+
+        // Act: the rerun reads the file as a single chunk
+        ImportResult result;
+        try (ParallelImportService whole = new ParallelImportService(excelParser, personRepository,
+                new ImportOptions().batchSize(1000).writers(2).maxOpenFiles(1))) {
+            result = whole.importFile(csv.toString());
+        }
+
+        // Assert
+        assertEquals(0, result.getRowsWritten());
+        assertEquals(70_000, result.getRowsSkipped());
+    }
+
+    @Test
+    void shouldKeepJournalWhenBatchFails(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path csv = Files.writeString(tempDir.resolve("people.csv"),
+                "matricule,prenom,nom,naissance,statut\nEMP1,Jean,Dupont,15/05/1980,Actif\n");
+        String importId = ImportJournal.importId(csv.toString());
+        when(personRepository.isJournalEnabled()).thenReturn(true);
+        when(personRepository.findCheckpoints(importId)).thenReturn(List.of());
+        doThrow(new RuntimeException("Database operation failed"))
+                .when(personRepository).saveAll(anyList(), any(BatchCheckpoint.class));
+
+        // Act
+        ImportResult result = importService.importFile(csv.toString());
+
+        // Assert
+        assertFalse(result.isComplete());
+        verify(personRepository, never()).clearCheckpoints(anyString());
+    }
+
+    @Test
+    void shouldValidateFilesWithoutWriting(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path nord = Files.writeString(tempDir.resolve("nord.csv"), "matricule,prenom,nom,naissance,statut\n"
+                + "EMP001,Jean,Dupont,25/12/1980,Actif\n"
+                + "EMP002,Marie,Curie,05/06/1985,Inconnu\n"
+                + "EMP003,Paul,Martin,1980.12.25,Actif\n"
+                + "EMP004,Anne,Durand,15/01/1990,Retraité\n");
+        Path sud = Files.writeString(tempDir.resolve("sud.csv"), "matricule,prenom,nom,naissance,statut\n"
+                + "EMP001,Jean,Dupont,1980-12-25,Actif\n"
+                + ",Luc,Petit,1975-03-02,Actif\n"
+                + "EMP005,Lea,Roux,,Inactif\n");
+
+        // Act
+        ValidationReport report = importService.validateFiles(List.of(nord.toString(), sud.toString()), false);
+
+        // Assert
+        assertEquals(7, report.getRowsRead());
+        assertEquals(3, report.getRowsValid());
+        assertEquals(Map.of("Statut non valide", 2L, "Impossible de parser la date", 1L, "Matricule manquant", 1L),
+                report.getRejectReasons());
+        assertEquals(List.of("Statut non valide", "Impossible de parser la date", "Matricule manquant"),
+                List.copyOf(report.getRejectReasons().keySet()));
+        assertEquals(Map.of("dd/MM/yyyy", 1L, "yyyy-MM-dd", 1L), report.getDateFormats());
+        assertEquals(2, report.getDistinctMatricules());
+        assertEquals(1, report.getDuplicateRows());
+        assertEquals(List.of("EMP001"), report.getDuplicateSample());
+        assertFalse(report.isClean());
+        verifyNoInteractions(personRepository);
+    }
+
+    @Test
+    void shouldOnlyValidateWithServiceBuiltForValidation(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path csv = Files.writeString(tempDir.resolve("people.csv"), "matricule,prenom,nom,naissance,statut\n"
+                + "EMP001,Jean,Dupont,25/12/1980,Actif\n");
+
+        try (ParallelImportService validator = ParallelImportService.forValidation(new Properties())) {
+            // Act
+            ValidationReport report = validator.validateFiles(List.of(csv.toString()), false);
+
+            // Assert
+            assertTrue(report.isClean());
+            assertEquals(1, report.getRowsValid());
+            assertThrows(IllegalStateException.class, () -> validator.importFile(csv.toString()));
+        }
+    }
+
+    @Test
+    void shouldWriteOnlyDifferencesWithTable(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path csv = Files.writeString(tempDir.resolve("people.csv"), "matricule,prenom,nom,naissance,statut\n"
+                + "EMP003,Paul,Martin,1990-01-15,Actif\n"
+                + "EMP001,Jean,Dupont,1980-05-15,Actif\n"
+                + "EMP002,Marie,Curie,1985-09-23,Inactif\n");
+        when(personRepository.scanRowHashes()).thenReturn(Stream.of(
+                new RowHash("EMP001", ContentHash.of("EMP001", "Jean", "Dupont", LocalDate.of(1980, 5, 15), Status.ACTIF)),
+                new RowHash("EMP002", ContentHash.of("EMP002", "Marie", "Curie", LocalDate.of(1985, 9, 23), Status.ACTIF)),
+                new RowHash("EMP009", 42L)));
+
+        // Act
+        DiffResult result = importService.diffFiles(List.of(csv.toString()), false, null);
+
+        // Assert
+        assertEquals(3, result.getRowsRead());
+        assertEquals(1, result.getUnchanged());
+        verify(personRepository).saveAll(argThat(people -> people.size() == 1
+                && people.get(0).getMatricule().equals("EMP003")));
+        verify(personRepository).updateAll(argThat(people -> people.size() == 1
+                && people.get(0).getStatus() == Status.INACTIF));
+        verify(personRepository).deleteAll(List.of("EMP009"));
+    }
 }
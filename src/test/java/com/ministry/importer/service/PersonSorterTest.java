@@ -0,0 +1,82 @@
+package com.ministry.importer.service;
+
+import com.ministry.importer.enums.Status;
+import com.ministry.importer.model.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersonSorterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldMergeSpilledRunsInMatriculeThenPositionOrder() throws Exception {
+        List<String> matricules = new ArrayList<>();
+        try (PersonSorter sorter = new PersonSorter(tempDir, 100)) {
+            for (int i = 0; i < 1000; i++) {
+                // Each matricule appears twice, its later position added first
+                int n = 999 - i;
+                Person person = new Person("EMP" + (n % 500), "Prénom " + n, null,
+                        n % 2 == 0 ? LocalDate.of(1980, 1, 1).plusDays(n) : null, n % 3 == 0 ? null : Status.SUSPENDU);
+                sorter.add(person, n);
+            }
+            assertEquals(9, sorter.getRunCount());
+            assertEquals(9, countRuns());
+
+            Iterator<Person> sorted = sorter.sorted();
+            Person previous = null;
+            while (sorted.hasNext()) {
+                Person person = sorted.next();
+                matricules.add(person.getMatricule());
+                int n = number(person);
+                assertNull(person.getLastName());
+                assertEquals(n % 2 == 0 ? LocalDate.of(1980, 1, 1).plusDays(n) : null, person.getBirthDate());
+                assertEquals(n % 3 == 0 ? null : Status.SUSPENDU, person.getStatus());
+                if (previous != null && previous.getMatricule().equals(person.getMatricule())) {
+                    assertTrue(number(previous) < n);
+                }
+                previous = person;
+            }
+        }
+
+        assertEquals(1000, matricules.size());
+        assertEquals(matricules.stream().sorted().collect(Collectors.toList()), matricules);
+        assertEquals(0, countRuns());
+    }
+
+    @Test
+    void shouldSortInMemoryWhenInputFitsOneRun() {
+        try (PersonSorter sorter = new PersonSorter(tempDir)) {
+            sorter.add(new Person("EMP2", "Marie", "Curie", (LocalDate) null, Status.ACTIF), 0);
+            sorter.add(new Person("EMP1", "Jean", "Dupont", (LocalDate) null, Status.ACTIF), 1);
+
+            List<String> sorted = new ArrayList<>();
+            sorter.sorted().forEachRemaining(person -> sorted.add(person.getMatricule()));
+
+            assertEquals(List.of("EMP1", "EMP2"), sorted);
+            assertEquals(0, sorter.getRunCount());
+        }
+    }
+
+    private static int number(Person person) {
+        return Integer.parseInt(person.getFirstName().substring("Prénom ".length()));
+    }
+
+    private long countRuns() throws Exception {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        }
+    }
+}
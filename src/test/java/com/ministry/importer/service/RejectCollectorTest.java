@@ -0,0 +1,57 @@
+package com.ministry.importer.service;
+
+import com.ministry.importer.model.RejectedRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RejectCollectorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldWriteRejectedRowsAsCsv() throws Exception {
+        Path rejectsFile = tempDir.resolve("rejects.csv");
+
+        try (RejectCollector collector = new RejectCollector(-1, rejectsFile)) {
+            collector.accept(new RejectedRow("people.xlsx", 3,
+                    Arrays.asList("EMP002", "Marie", "Curie, née \"Skłodowska\"", "31/31/1867", null), "Date invalide"));
+            assertEquals(1, collector.getCount());
+        }
+
+        assertEquals(List.of(
+                "source,row,reason,matricule,prenom,nom,naissance,statut",
+                "people.xlsx,3,Date invalide,EMP002,Marie,\"Curie, née \"\"Skłodowska\"\"\",31/31/1867,"),
+                Files.readAllLines(rejectsFile, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldNotCreateFileWithoutRejects() {
+        Path rejectsFile = tempDir.resolve("rejects.csv");
+
+        new RejectCollector(10, rejectsFile).close();
+
+        assertFalse(Files.exists(rejectsFile));
+    }
+
+    @Test
+    void shouldAbortOnceErrorBudgetIsExceeded() {
+        RejectCollector collector = new RejectCollector(2, null);
+        RejectedRow row = new RejectedRow("people.csv", 7, Arrays.asList("EMP007", null, null, null, "?"), "Statut non valide: ?");
+
+        collector.accept(row);
+        collector.accept(row);
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> collector.accept(row));
+
+        assertTrue(exception.getMessage().startsWith("Error budget exceeded"));
+        assertEquals(3, collector.getCount());
+    }
+}
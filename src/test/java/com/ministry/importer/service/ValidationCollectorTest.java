@@ -0,0 +1,76 @@
+package com.ministry.importer.service;
+
+import com.ministry.importer.model.Person;
+import com.ministry.importer.model.RejectedRow;
+import com.ministry.importer.model.ValidationReport;
+import com.ministry.importer.parser.RowListener;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValidationCollectorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldCountDuplicatedMatriculesAcrossSources() {
+        try (ValidationCollector collector = new ValidationCollector(tempDir)) {
+            ValidationCollector.Source first = collector.source();
+            ValidationCollector.Source second = collector.source();
+            RowListener firstRows = first.listener(collector);
+            RowListener secondRows = second.listener(collector);
+            for (int i = 0; i < 20; i++) {
+                firstRows.accepted(i + 2, "dd/MM/yyyy");
+                first.accept(person("EMP" + i));
+            }
+            for (int i = 0; i < 15; i++) {
+                secondRows.accepted(i + 2, i < 5 ? "yyyy-MM-dd" : null);
+                second.accept(person("EMP" + (i % 12)));
+            }
+            first.flush();
+            second.flush();
+
+            ValidationReport report = collector.report(2, 42);
+
+            assertEquals(35, report.getRowsValid());
+            assertEquals(20, report.getDistinctMatricules());
+            assertEquals(12, report.getDuplicatedMatricules());
+            assertEquals(15, report.getDuplicateRows());
+            assertEquals(IntStream.range(0, 12).mapToObj(i -> "EMP" + i).sorted().limit(10).collect(Collectors.toList()),
+                    report.getDuplicateSample());
+            assertEquals(Map.of("dd/MM/yyyy", 20L, "yyyy-MM-dd", 5L), report.getDateFormats());
+            assertFalse(report.isClean());
+        }
+    }
+
+    @Test
+    void shouldGroupRejectedRowsByReasonWithoutTheirValue() {
+        try (ValidationCollector collector = new ValidationCollector(tempDir)) {
+            collector.accept(reject("Statut non valide: Inconnu"));
+            collector.accept(reject("Matricule manquant"));
+            collector.accept(reject("Statut non valide: Retraité"));
+
+            ValidationReport report = collector.report(1, 0);
+
+            assertEquals(3, report.getRowsRejected());
+            assertEquals(List.of("Statut non valide", "Matricule manquant"), List.copyOf(report.getRejectReasons().keySet()));
+            assertEquals(2L, report.getRejectReasons().get("Statut non valide"));
+        }
+    }
+
+    private static Person person(String matricule) {
+        return new Person(matricule, "Jean", "Dupont", (String) null, "Actif");
+    }
+
+    private static RejectedRow reject(String reason) {
+        return new RejectedRow("people.csv", 2, List.of(), reason);
+    }
+}
@@ -3,6 +3,7 @@ package com.ministry.importer.utility;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import static org.mockito.Mockito.*;
@@ -90,4 +91,25 @@ class BatchProcessorTest {
         // Assert
         verify(mockConsumer, times(1)).accept(List.of("item1", "item2"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBatchSizeIsReadForEveryItem() {
+        // Arrange
+        Consumer<List<String>> mockConsumer = mock(Consumer.class);
+        AtomicInteger batchSize = new AtomicInteger(2);
+        BatchProcessor<String> batchProcessor = new BatchProcessor<>(batchSize::get, mockConsumer);
+
+        batchProcessor.add("item1");
+        batchProcessor.add("item2");
+        batchSize.set(3);
+
+        // Act
+        batchProcessor.add("item3");
+        batchProcessor.add("item4");
+        batchProcessor.add("item5");
+
+        // Assert
+        verify(mockConsumer, times(1)).accept(List.of("item1", "item2"));
+        verify(mockConsumer, times(1)).accept(List.of("item3", "item4", "item5"));
+    }
+}
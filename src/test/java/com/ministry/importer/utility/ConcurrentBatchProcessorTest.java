@@ -0,0 +1,216 @@
+package com.ministry.importer.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConcurrentBatchProcessorTest {
+
+    @Test
+    void testFlushDrainsPartialBatchesOfEveryThread() throws Exception {
+        // Arrange
+        Consumer<List<String>> mockConsumer = mock(Consumer.class);
+        ConcurrentBatchProcessor<String> batchProcessor = new ConcurrentBatchProcessor<>(3, mockConsumer);
+
+        batchProcessor.add("item1");
+        Thread other = new Thread(() -> batchProcessor.add("item2"));
+        other.start();
+        other.join();
+
+        // Act
+        batchProcessor.flush();
+
+        // Assert
+        verify(mockConsumer, times(1)).accept(List.of("item1"));
+        verify(mockConsumer, times(1)).accept(List.of("item2"));
+    }
+
+    @Test
+    void testFullBatchIsHandedOffWithoutFlush() {
+        // Arrange
+        Consumer<List<String>> mockConsumer = mock(Consumer.class);
+        ConcurrentBatchProcessor<String> batchProcessor = new ConcurrentBatchProcessor<>(2, mockConsumer);
+
+        // Act
+        batchProcessor.add("item1");
+        batchProcessor.add("item2");
+        batchProcessor.add("item3");
+
+        // Assert
+        verify(mockConsumer, times(1)).accept(List.of("item1", "item2"));
+        verifyNoMoreInteractions(mockConsumer);
+    }
+
+    @Test
+    void testEveryItemIsDeliveredOnceUnderContention() throws Exception {
+        // Arrange
+        int producers = 8;
+        int itemsPerProducer = 20_000;
+        int batchSize = 100;
+        Set<Integer> delivered = ConcurrentHashMap.newKeySet();
+        AtomicInteger deliveredCount = new AtomicInteger();
+        AtomicInteger oversizedBatches = new AtomicInteger();
+        ConcurrentBatchProcessor<Integer> batchProcessor = new ConcurrentBatchProcessor<>(batchSize, batch -> {
+            if (batch.size() > batchSize) {
+                oversizedBatches.incrementAndGet();
+            }
+            delivered.addAll(batch);
+            deliveredCount.addAndGet(batch.size());
+        });
+
+        // Act
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int offset = p * itemsPerProducer;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < itemsPerProducer; i++) {
+                    batchProcessor.add(offset + i);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        batchProcessor.flush();
+        executor.shutdown();
+
+        // Assert
+        assertEquals(producers * itemsPerProducer, deliveredCount.get());
+        assertEquals(producers * itemsPerProducer, delivered.size());
+        assertEquals(0, oversizedBatches.get());
+    }
+
+    @Test
+    void testBlockedConsumerDoesNotStallOtherProducers() throws Exception {
+        // Arrange: the first full batch blocks inside the consumer
+        CountDownLatch consumerEntered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger batches = new AtomicInteger();
+        ConcurrentBatchProcessor<String> batchProcessor = new ConcurrentBatchProcessor<>(1, batch -> {
+            if (batches.incrementAndGet() == 1) {
+                consumerEntered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        Thread blocked = new Thread(() -> batchProcessor.add("blocked"));
+        blocked.start();
+        assertTrue(consumerEntered.await(5, TimeUnit.SECONDS));
+
+        // Act: with a single shared monitor this producer would wait for the blocked one
+        Thread other = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                batchProcessor.add("item" + i);
+            }
+        });
+        other.start();
+        other.join(5000);
+
+        // Assert
+        assertFalse(other.isAlive());
+        assertEquals(101, batches.get());
+        release.countDown();
+        blocked.join(5000);
+    }
+
+    @Test
+    void testProducersFillTheirBuffersInParallel() throws Exception {
+        // Arrange: every batch waits in the consumer until all producers hold a full batch at once,
+        // which only happens if no producer waits on another
+        int producers = 4;
+        CyclicBarrier allInConsumer = new CyclicBarrier(producers);
+        AtomicInteger batches = new AtomicInteger();
+        ConcurrentBatchProcessor<Integer> batchProcessor = new ConcurrentBatchProcessor<>(10, batch -> {
+            try {
+                allInConsumer.await(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            batches.incrementAndGet();
+        });
+
+        // Act
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    batchProcessor.add(i);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(producers * 5, batches.get());
+    }
+
+    @Test
+    void testCloseRetiresBuffersOfPooledThreads() throws Exception {
+        // Arrange
+        List<List<Integer>> batches = new ArrayList<>();
+        ConcurrentBatchProcessor<Integer> batchProcessor = new ConcurrentBatchProcessor<>(100, batch -> {
+            synchronized (batches) {
+                batches.add(batch);
+            }
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CyclicBarrier bothThreads = new CyclicBarrier(2);
+        Runnable produce = () -> {
+            try {
+                bothThreads.await(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            batchProcessor.add(1);
+        };
+
+        // Act
+        Future<?> first = executor.submit(produce);
+        executor.submit(produce).get(5, TimeUnit.SECONDS);
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(2, batchProcessor.getBufferCount());
+        batchProcessor.close();
+        int afterClose = batchProcessor.getBufferCount();
+        // The same pooled threads drop their retired buffers and register new ones
+        first = executor.submit(produce);
+        executor.submit(produce).get(5, TimeUnit.SECONDS);
+        first.get(5, TimeUnit.SECONDS);
+        int afterReuse = batchProcessor.getBufferCount();
+        batchProcessor.close();
+        executor.shutdown();
+
+        // Assert
+        assertEquals(0, afterClose);
+        assertEquals(2, afterReuse);
+        assertEquals(4, batches.size());
+        assertEquals(0, batchProcessor.getBufferCount());
+    }
+}
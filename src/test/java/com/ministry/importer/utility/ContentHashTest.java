@@ -0,0 +1,45 @@
+package com.ministry.importer.utility;
+
+import com.ministry.importer.enums.Status;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentHashTest {
+    private static final LocalDate BIRTH_DATE = LocalDate.of(1980, 5, 15);
+
+    @Test
+    void shouldHashEqualContentEqually() {
+        assertEquals(ContentHash.of("EMP001", "Jean", "Dupont", BIRTH_DATE, Status.ACTIF),
+                ContentHash.of(new String("EMP001"), "Jean", "Dupont", LocalDate.parse("1980-05-15"), Status.ACTIF));
+    }
+
+    @Test
+    void shouldTellApartEveryChangedField() {
+        long hash = ContentHash.of("EMP001", "Jean", "Dupont", BIRTH_DATE, Status.ACTIF);
+
+        assertNotEquals(hash, ContentHash.of("EMP002", "Jean", "Dupont", BIRTH_DATE, Status.ACTIF));
+        assertNotEquals(hash, ContentHash.of("EMP001", "Jea", "nDupont", BIRTH_DATE, Status.ACTIF));
+        assertNotEquals(hash, ContentHash.of("EMP001", "Jean", "Dupont", BIRTH_DATE.plusDays(1), Status.ACTIF));
+        assertNotEquals(hash, ContentHash.of("EMP001", "Jean", "Dupont", BIRTH_DATE, Status.INACTIF));
+        assertNotEquals(ContentHash.of("EMP001", "", "Dupont", null, Status.ACTIF),
+                ContentHash.of("EMP001", null, "Dupont", null, Status.ACTIF));
+    }
+
+    @Test
+    void shouldOrderMatriculesAsUtf8Bytes() {
+        List<String> matricules = Arrays.asList("EMP😀", "EMPＡ", "emp1", "EMP10", "EMP2", "EMP1");
+
+        List<String> sorted = matricules.stream().sorted(ContentHash.MATRICULE_ORDER).collect(Collectors.toList());
+
+        assertEquals(List.of("EMP1", "EMP10", "EMP2", "EMPＡ", "EMP😀", "emp1"), sorted);
+        assertEquals(matricules.stream().sorted((a, b) -> Arrays.compareUnsigned(a.getBytes(StandardCharsets.UTF_8),
+                b.getBytes(StandardCharsets.UTF_8))).collect(Collectors.toList()), sorted);
+    }
+}
@@ -3,6 +3,8 @@ package com.ministry.importer.utility;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -87,4 +89,93 @@ class DateParserTest {
                 exception.getMessage(),
                 "Should throw IllegalArgumentException for invalid date format");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFastPathMatchesFormatters() {
+        List<String> inputs = new ArrayList<>();
+        for (int year : new int[]{1, 999, 1900, 1980, 2000, 2023, 2024, 9999}) {
+            for (int a = 0; a <= 32; a++) {
+                for (int b = 0; b <= 32; b++) {
+                    inputs.add(String.format("%02d/%02d/%04d", a, b, year));
+                    inputs.add(String.format("%02d-%02d-%04d", a, b, year));
+                    inputs.add(String.format("%04d-%02d-%02d", year, a, b));
+                    inputs.add(String.format("%04d/%02d/%02d", year, a, b));
+                }
+            }
+        }
+        inputs.add("0000-01-01");
+
+        for (String input : inputs) {
+            LocalDate expected;
+            try {
+                expected = DateParser.parseWithFormatters(input, input);
+            } catch (IllegalArgumentException e) {
+                assertThrows(IllegalArgumentException.class, () -> DateParser.parseDate(input), input);
+                continue;
+            }
+            assertEquals(expected, DateParser.parseDate(input), input);
+        }
+    }
+
+    @Test
+    void testSmartResolutionClampsDayToEndOfMonth() {
+        assertEquals(LocalDate.of(2023, 2, 28), DateParser.parseDate("2023-02-30"));
+        assertEquals(LocalDate.of(2024, 2, 29), DateParser.parseDate("31/02/2024"));
+        assertEquals(LocalDate.of(2023, 4, 30), DateParser.parseDate("31-04-2023"));
+    }
+
+    @Test
+    void testSurroundingWhitespaceIsIgnored() {
+        assertEquals(LocalDate.of(2023, 12, 25), DateParser.parseDate("  2023-12-25 "));
+    }
+
+    @Test
+    void testColumnParserKeepsDetectedDayFirstFormat() {
+        DateParser column = new DateParser();
+
+        assertEquals(LocalDate.of(2023, 12, 25), column.parse("25/12/2023"));
+        assertEquals(LocalDate.of(2020, 6, 5), column.parse("05/06/2020"));
+        assertEquals("dd/MM/yyyy", column.getDetectedPattern());
+
+        // Without column context the value keeps its historical MM/dd/yyyy reading
+        assertEquals(LocalDate.of(2020, 5, 6), DateParser.parseDate("05/06/2020"));
+    }
+
+    @Test
+    void testColumnParserDoesNotLearnFromAmbiguousValues() {
+        DateParser column = new DateParser();
+
+        assertEquals(LocalDate.of(2020, 5, 6), column.parse("05/06/2020"));
+        assertNull(column.getDetectedPattern());
+    }
+
+    @Test
+    void testColumnParserSwitchesFormatWhenValueDoesNotFit() {
+        DateParser column = new DateParser();
+
+        assertEquals(LocalDate.of(2023, 12, 25), column.parse("2023-12-25"));
+        assertEquals("yyyy-MM-dd", column.getDetectedPattern());
+        assertEquals(LocalDate.of(2023, 12, 25), column.parse("12/25/2023"));
+        assertEquals("MM/dd/yyyy", column.getDetectedPattern());
+    }
+
+    @Test
+    void testColumnParserRejectsInvalidDate() {
+        DateParser column = new DateParser();
+
+        assertThrows(IllegalArgumentException.class, () -> column.parse("2023.12.25"));
+        assertNull(column.parse(null));
+    }
+
+    @Test
+    void testColumnParserReportsPatternOfEachValue() {
+        DateParser column = new DateParser();
+
+        column.parse("25/12/2023");
+        assertEquals("dd/MM/yyyy", column.getLastPattern());
+        column.parse("2023-12-25");
+        assertEquals("yyyy-MM-dd", column.getLastPattern());
+        column.parse("");
+        assertNull(column.getLastPattern());
+    }
+}
@@ -0,0 +1,66 @@
+package com.ministry.importer.utility;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileResolverTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDirectoryExpandsToImportableFiles() throws Exception {
+        Path first = Files.createFile(tempDir.resolve("a.xlsx"));
+        Path second = Files.createFile(tempDir.resolve("b.XLSX"));
+        Path csv = Files.createFile(tempDir.resolve("c.csv"));
+        Path tsv = Files.createFile(tempDir.resolve("d.tsv"));
+        Files.createFile(tempDir.resolve("notes.txt"));
+        Files.createFile(tempDir.resolve("~$a.xlsx"));
+
+        List<String> files = FileResolver.resolve(List.of(tempDir.toString()));
+
+        assertEquals(List.of(first.toString(), second.toString(), csv.toString(), tsv.toString()), files);
+    }
+
+    @Test
+    void testGlobMatchesNestedFiles() throws Exception {
+        Path region = Files.createDirectories(tempDir.resolve("nord"));
+        Path nested = Files.createFile(region.resolve("janvier.xlsx"));
+        Files.createFile(region.resolve("janvier.csv"));
+        Path top = Files.createFile(tempDir.resolve("fevrier.xlsx"));
+
+        assertEquals(List.of(top.toString()), FileResolver.resolve(List.of(tempDir + "/*.xlsx")));
+        assertEquals(List.of(nested.toString()), FileResolver.resolve(List.of(tempDir + "/*/*.xlsx")));
+    }
+
+    @Test
+    void testPlainFilesAreKeptInOrderWithoutDuplicates() {
+        List<String> files = FileResolver.resolve(List.of("b.xlsx", "a.xlsx", "b.xlsx"));
+
+        assertEquals(List.of("b.xlsx", "a.xlsx"), files);
+    }
+
+    @Test
+    void testSameFileSpelledDifferentlyIsKeptOnce() throws Exception {
+        Path file = Files.createFile(tempDir.resolve("a.xlsx"));
+        Path other = Files.createFile(tempDir.resolve("b.csv"));
+
+        List<String> files = FileResolver.resolve(List.of(tempDir + "/./b.csv", tempDir.toString(),
+                tempDir + "/sub/../a.xlsx"));
+
+        assertEquals(List.of(tempDir + "/./b.csv", file.toString()), files);
+        assertEquals(other.toAbsolutePath().normalize(), Paths.get(files.get(0)).toAbsolutePath().normalize());
+    }
+
+    @Test
+    void testGlobWithoutMatchIsEmpty() {
+        assertTrue(FileResolver.resolve(List.of(tempDir + "/missing/*.xlsx")).isEmpty());
+    }
+}
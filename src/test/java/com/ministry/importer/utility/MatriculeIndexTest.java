@@ -0,0 +1,75 @@
+package com.ministry.importer.utility;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatriculeIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldStoreAndMergeValues() {
+        try (MatriculeIndex index = new MatriculeIndex(tempDir)) {
+            assertEquals(MatriculeIndex.ABSENT, index.get("EMP001"));
+            assertEquals(MatriculeIndex.ABSENT, index.putIfAbsent("EMP001", 5));
+            assertEquals(5, index.putIfAbsent("EMP001", 9));
+            assertEquals(5, index.merge("EMP001", 9, Math::max));
+            assertEquals(9, index.get("EMP001"));
+            assertEquals(MatriculeIndex.ABSENT, index.get("EMP0010"));
+            assertEquals(1, index.size());
+            assertThrows(IllegalArgumentException.class, () -> index.putIfAbsent("EMP002", -2));
+        }
+    }
+
+    @Test
+    void shouldGrowAndKeepEveryKey() throws Exception {
+        try (MatriculeIndex index = new MatriculeIndex(tempDir)) {
+            for (int i = 0; i < 300_000; i++) {
+                assertEquals(MatriculeIndex.ABSENT, index.putIfAbsent("EMP" + i, i));
+            }
+            for (int i = 0; i < 300_000; i++) {
+                assertEquals(i, index.get("EMP" + i));
+            }
+            assertEquals(300_000, index.size());
+            assertEquals(MatriculeIndex.ABSENT, index.get("EMP300000"));
+            // Table files are unlinked as soon as they are mapped
+            try (Stream<Path> files = Files.list(tempDir)) {
+                assertEquals(0, files.count());
+            }
+        }
+    }
+
+    @Test
+    void shouldCountEachKeyOnceUnderConcurrentInserts() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try (MatriculeIndex index = new MatriculeIndex(tempDir)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(threads.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        index.merge("EMP" + i, i, Math::min);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(50_000, index.size());
+            assertEquals(49_999, index.get("EMP49999"));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}